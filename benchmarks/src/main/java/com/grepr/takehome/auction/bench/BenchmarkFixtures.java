@@ -0,0 +1,47 @@
+package com.grepr.takehome.auction.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.Item;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Shared test data. The object mapper mirrors the one Spring Boot builds for the application
+ * (well-known modules registered, ISO-8601 dates).
+ */
+final class BenchmarkFixtures {
+  static final Instant NOW = Instant.parse("2026-02-12T20:02:00Z");
+  static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  private BenchmarkFixtures() {}
+
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+
+  static Auction openAuction() {
+    Item item = new Item(UUID.randomUUID(), "Vintage Watch", "Unique item", NOW.minus(Duration.ofHours(1)));
+    return new Auction(
+        UUID.randomUUID(),
+        item,
+        AuctionStatus.OPEN,
+        NOW.minus(Duration.ofMinutes(2)),
+        NOW.plus(Duration.ofMinutes(3)),
+        new BigDecimal("10.00"),
+        new BigDecimal("1.00"),
+        new BigDecimal("125.00"),
+        UUID.randomUUID(),
+        null
+    );
+  }
+}
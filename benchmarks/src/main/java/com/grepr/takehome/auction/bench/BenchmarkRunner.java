@@ -0,0 +1,51 @@
+package com.grepr.takehome.auction.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the regular JMH command line, with two defaults so runs can
+ * be compared over time without remembering flags.
+ *
+ * <ul>
+ *   <li>the GC profiler is on unless other profilers are requested, so every result carries
+ *       {@code gc.alloc.rate.norm} (bytes allocated per operation);</li>
+ *   <li>results are written as JSON to {@code target/jmh-results/} unless {@code -rff} is given.</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    if (cli.shouldHelp()) {
+      cli.showHelp();
+      return;
+    }
+    if (cli.shouldList()) {
+      new Runner(cli).list();
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+    if (cli.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    if (!cli.getResult().hasValue()) {
+      Path results = Path.of("target", "jmh-results");
+      Files.createDirectories(results);
+      String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+      options.resultFormat(ResultFormatType.JSON)
+          .result(results.resolve("jmh-" + stamp + ".json").toString());
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,124 @@
+package com.grepr.takehome.auction.bench;
+
+import com.grepr.takehome.auction.util.UuidUtils;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserts into {@code bids} against a real Postgres with the application's schema, comparing random
+ * vs time-ordered ids and single-row vs batched inserts. The {@code rows} counter is the number to
+ * compare (rows per second); the primary score counts executed batches.
+ *
+ * <p>Needs a database migrated by the application, by default the docker-compose one. Override
+ * with {@code -Dbench.jdbc.url=... -Dbench.jdbc.user=... -Dbench.jdbc.password=...}. Every row it
+ * writes belongs to a throwaway item/auction that is deleted afterwards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BidInsertBenchmark {
+  private static final String INSERT_BID =
+      "insert into bids (id, auction_id, bidder_user_id, amount, created_at) values (?, ?, ?, ?, ?)";
+
+  @Param({"random", "v7"})
+  public String ids;
+
+  @Param({"1", "50"})
+  public int batchSize;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Rows {
+    public long rows;
+  }
+
+  private Connection connection;
+  private PreparedStatement insert;
+  private UUID itemId;
+  private UUID auctionId;
+  private UUID bidderUserId;
+  private BigDecimal amount;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    // Same driver settings as application.yml.
+    String url = System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/auction")
+        + "?reWriteBatchedInserts=true&prepareThreshold=1";
+    connection = DriverManager.getConnection(
+        url,
+        System.getProperty("bench.jdbc.user", "auction"),
+        System.getProperty("bench.jdbc.password", "auction"));
+
+    itemId = UuidUtils.timeOrdered();
+    auctionId = UuidUtils.timeOrdered();
+    bidderUserId = UUID.randomUUID();
+    amount = new BigDecimal("1.00");
+    OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+    try (PreparedStatement item = connection.prepareStatement("insert into items (id, name) values (?, 'bid insert benchmark')")) {
+      item.setObject(1, itemId);
+      item.executeUpdate();
+    }
+    try (PreparedStatement auction = connection.prepareStatement("""
+        insert into auctions (id, item_id, status, start_time, end_time, starting_price, min_increment, current_price)
+        values (?, ?, 'OPEN', ?, ?, 1, 1, 1)
+        """)) {
+      auction.setObject(1, auctionId);
+      auction.setObject(2, itemId);
+      auction.setObject(3, now);
+      auction.setObject(4, now.plusDays(1));
+      auction.executeUpdate();
+    }
+    insert = connection.prepareStatement(INSERT_BID);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    insert.close();
+    try (PreparedStatement delete = connection.prepareStatement("delete from items where id = ?")) {
+      delete.setObject(1, itemId);
+      delete.executeUpdate();
+    }
+    connection.close();
+  }
+
+  @Benchmark
+  public int[] insertBids(Rows rows) throws SQLException {
+    OffsetDateTime createdAt = OffsetDateTime.now(ZoneOffset.UTC);
+    for (int i = 0; i < batchSize; i++) {
+      amount = amount.add(BigDecimal.ONE);
+      insert.setObject(1, "v7".equals(ids) ? UuidUtils.timeOrdered() : UUID.randomUUID());
+      insert.setObject(2, auctionId);
+      insert.setObject(3, bidderUserId);
+      insert.setBigDecimal(4, amount);
+      insert.setObject(5, createdAt);
+      insert.addBatch();
+    }
+    int[] counts = insert.executeBatch();
+    rows.rows += batchSize;
+    return counts;
+  }
+}
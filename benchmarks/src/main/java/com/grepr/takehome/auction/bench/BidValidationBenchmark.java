@@ -0,0 +1,51 @@
+package com.grepr.takehome.auction.bench;
+
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.service.BidValidator;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CPU-only part of {@code AuctionService.placeBid}: status refresh plus the bidding rules, for
+ * an accepted bid and for the (allocating) rejection path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BidValidationBenchmark {
+  private Auction auction;
+  private BigDecimal validAmount;
+  private BigDecimal tooLowAmount;
+
+  @Setup
+  public void setUp() {
+    auction = BenchmarkFixtures.openAuction();
+    validAmount = new BigDecimal("126.50");
+    tooLowAmount = new BigDecimal("125.50");
+  }
+
+  @Benchmark
+  public BidValidator.Rejection acceptedBid() {
+    auction.refreshStatus(BenchmarkFixtures.NOW);
+    return BidValidator.check(auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), validAmount);
+  }
+
+  @Benchmark
+  public BidValidator.Rejection rejectedBid() {
+    auction.refreshStatus(BenchmarkFixtures.NOW);
+    return BidValidator.check(auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), tooLowAmount);
+  }
+}
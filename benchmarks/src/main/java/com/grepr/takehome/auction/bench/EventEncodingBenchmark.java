@@ -0,0 +1,70 @@
+package com.grepr.takehome.auction.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
+import com.grepr.takehome.auction.realtime.AuctionEventMapper;
+import com.grepr.takehome.auction.realtime.Deflate;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a {@code BID_PLACED} event and serializing it the way the publisher does, and the one-off
+ * compression shared by compressed {@code /ws} subscribers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventEncodingBenchmark {
+  private ObjectMapper objectMapper;
+  private AuctionEventMapper eventMapper;
+  private UUID itemId;
+  private Auction auction;
+  private Bid bid;
+  private AuctionEvent event;
+
+  @Setup
+  public void setUp() {
+    objectMapper = BenchmarkFixtures.objectMapper();
+    eventMapper = new AuctionEventMapper(BenchmarkFixtures.CLOCK);
+    auction = BenchmarkFixtures.openAuction();
+    itemId = auction.getItem().getId();
+    bid = new Bid(UUID.randomUUID(), auction, UUID.randomUUID(), new BigDecimal("126.50"), BenchmarkFixtures.NOW);
+    event = eventMapper.bidPlaced(itemId, auction, bid, BenchmarkFixtures.NOW);
+  }
+
+  @Benchmark
+  public AuctionEvent map() {
+    return eventMapper.bidPlaced(itemId, auction, bid, BenchmarkFixtures.NOW);
+  }
+
+  @Benchmark
+  public String encode() throws Exception {
+    return objectMapper.writeValueAsString(event);
+  }
+
+  @Benchmark
+  public String mapAndEncode() throws Exception {
+    return objectMapper.writeValueAsString(eventMapper.bidPlaced(itemId, auction, bid, BenchmarkFixtures.NOW));
+  }
+
+  @Benchmark
+  public byte[] encodeAndDeflate() throws Exception {
+    return Deflate.compress(objectMapper.writeValueAsBytes(event));
+  }
+}
@@ -0,0 +1,59 @@
+package com.grepr.takehome.auction.bench;
+
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
+import com.grepr.takehome.auction.realtime.AuctionEventMapper;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Publishing one event to N subscribers. Sessions are no-op stubs and delivery runs on the calling
+ * thread, so this measures serialization plus registry iteration, not socket I/O.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+  @Param({"1", "100", "10000"})
+  public int subscribers;
+
+  private AuctionEventPublisher publisher;
+  private UUID itemId;
+  private AuctionEvent event;
+
+  @Setup
+  public void setUp() {
+    publisher = new AuctionEventPublisher(BenchmarkFixtures.objectMapper(), new AuctionMetrics(new SimpleMeterRegistry()), 256, 0);
+    Auction auction = BenchmarkFixtures.openAuction();
+    itemId = auction.getItem().getId();
+    Bid bid = new Bid(UUID.randomUUID(), auction, UUID.randomUUID(), new BigDecimal("126.50"), BenchmarkFixtures.NOW);
+    event = new AuctionEventMapper(BenchmarkFixtures.CLOCK).bidPlaced(itemId, auction, bid, BenchmarkFixtures.NOW);
+    for (int i = 0; i < subscribers; i++) {
+      publisher.addSession(itemId, new NoopWebSocketSession());
+    }
+  }
+
+  @Benchmark
+  public void publish() {
+    publisher.reserve(itemId).publish(event);
+  }
+}
@@ -0,0 +1,48 @@
+package com.grepr.takehome.auction.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.websocket.InboundMessage;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Parsing of client frames received by {@code AuctionWebSocketHandler}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InboundParseBenchmark {
+  private ObjectMapper objectMapper;
+  private String placeBid;
+  private String subscribe;
+
+  @Setup
+  public void setUp() {
+    objectMapper = BenchmarkFixtures.objectMapper();
+    UUID itemId = UUID.randomUUID();
+    placeBid = "{\"type\":\"PLACE_BID\",\"itemId\":\"" + itemId
+        + "\",\"bidderUserId\":\"" + UUID.randomUUID() + "\",\"amount\":126.50}";
+    subscribe = "{\"type\":\"SUBSCRIBE\",\"itemId\":\"" + itemId + "\"}";
+  }
+
+  @Benchmark
+  public InboundMessage parsePlaceBid() throws Exception {
+    return InboundMessage.parse(objectMapper, placeBid);
+  }
+
+  @Benchmark
+  public InboundMessage parseSubscribe() throws Exception {
+    return InboundMessage.parse(objectMapper, subscribe);
+  }
+}
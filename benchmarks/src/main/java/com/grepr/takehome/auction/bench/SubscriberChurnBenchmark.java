@@ -0,0 +1,116 @@
+package com.grepr.takehome.auction.bench;
+
+import com.grepr.takehome.auction.realtime.SubscriberSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * One item's subscriber registry under churn while events fan out: one thread keeps replacing
+ * subscribers (unsubscribe + subscribe), the other iterates the registry as
+ * {@code AuctionEventPublisher.publish} does. Compares the previous {@code CopyOnWriteArraySet} with
+ * {@link SubscriberSet}; the {@code churn} and {@code broadcast} secondary results are the ones to
+ * compare, along with the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class SubscriberChurnBenchmark {
+  @Param({"copyOnWrite", "indexed"})
+  public String registry;
+
+  @Param({"100", "10000"})
+  public int subscribers;
+
+  private Registry members;
+  // Only touched by the churn thread.
+  private Object[] current;
+  private int cursor;
+
+  private interface Registry {
+    void add(Object subscriber);
+
+    void remove(Object subscriber);
+
+    void forEach(Consumer<Object> action);
+  }
+
+  @Setup
+  public void setUp() {
+    members = switch (registry) {
+      case "copyOnWrite" -> {
+        CopyOnWriteArraySet<Object> set = new CopyOnWriteArraySet<>();
+        yield new Registry() {
+          public void add(Object subscriber) {
+            set.add(subscriber);
+          }
+
+          public void remove(Object subscriber) {
+            set.remove(subscriber);
+          }
+
+          public void forEach(Consumer<Object> action) {
+            set.forEach(action);
+          }
+        };
+      }
+      case "indexed" -> {
+        SubscriberSet<Object> set = new SubscriberSet<>();
+        yield new Registry() {
+          public void add(Object subscriber) {
+            set.add(subscriber);
+          }
+
+          public void remove(Object subscriber) {
+            set.remove(subscriber);
+          }
+
+          public void forEach(Consumer<Object> action) {
+            set.forEach(action);
+          }
+        };
+      }
+      default -> throw new IllegalArgumentException("Unknown registry: " + registry);
+    };
+    current = new Object[subscribers];
+    for (int i = 0; i < subscribers; i++) {
+      current[i] = new Object();
+      members.add(current[i]);
+    }
+  }
+
+  @Benchmark
+  @Group("churnAndBroadcast")
+  @GroupThreads(1)
+  public void churn() {
+    int slot = cursor;
+    cursor = slot + 1 == subscribers ? 0 : slot + 1;
+    members.remove(current[slot]);
+    current[slot] = new Object();
+    members.add(current[slot]);
+  }
+
+  @Benchmark
+  @Group("churnAndBroadcast")
+  @GroupThreads(1)
+  public void broadcast(Blackhole blackhole) {
+    members.forEach(blackhole::consume);
+  }
+}
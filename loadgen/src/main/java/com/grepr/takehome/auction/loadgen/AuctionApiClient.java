@@ -0,0 +1,115 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/** Minimal blocking REST client; meant to be called from virtual threads. */
+final class AuctionApiClient {
+  /** {@code replayed} is the {@code Idempotent-Replayed} header of a bid. */
+  record Response(int status, JsonNode body, boolean replayed) {}
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final URI baseUrl;
+  private final HttpClient http;
+  private final ObjectMapper objectMapper;
+
+  AuctionApiClient(URI baseUrl, HttpClient http, ObjectMapper objectMapper) {
+    this.baseUrl = baseUrl;
+    this.http = http;
+    this.objectMapper = objectMapper;
+  }
+
+  UUID createUser(String displayName) throws IOException, InterruptedException {
+    return id(expect(201, post("/api/users", Map.of("displayName", displayName))));
+  }
+
+  UUID createItem(String name, String description) throws IOException, InterruptedException {
+    return id(expect(201, post("/api/items", Map.of("name", name, "description", description))));
+  }
+
+  void scheduleAuction(UUID itemId, Instant startTime, Instant endTime, BigDecimal startingPrice, BigDecimal minIncrement)
+      throws IOException, InterruptedException {
+    expect(201, post("/api/items/" + itemId + "/auction", Map.of(
+        "startTime", startTime.toString(),
+        "endTime", endTime.toString(),
+        "startingPrice", startingPrice,
+        "minIncrement", minIncrement
+    )));
+  }
+
+  JsonNode getItem(UUID itemId) throws IOException, InterruptedException {
+    return expect(200, get("/api/items/" + itemId)).body();
+  }
+
+  Response placeBid(UUID itemId, UUID bidderUserId, BigDecimal amount) throws IOException, InterruptedException {
+    return placeBid(itemId, bidderUserId, amount, null);
+  }
+
+  Response placeBid(UUID itemId, UUID bidderUserId, BigDecimal amount, String idempotencyKey)
+      throws IOException, InterruptedException {
+    HttpRequest.Builder request = postRequest(
+        "/api/items/" + itemId + "/bids", Map.of("bidderUserId", bidderUserId, "amount", amount));
+    if (idempotencyKey != null) {
+      request.header("Idempotency-Key", idempotencyKey);
+    }
+    return send(request.build());
+  }
+
+  void awaitOpen(UUID itemId, Duration timeout) throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      JsonNode auction = getItem(itemId).path("auction");
+      if ("OPEN".equals(auction.path("status").asText())) {
+        return;
+      }
+      Thread.sleep(200);
+    }
+    throw new IllegalStateException("Auction for item " + itemId + " did not open within " + timeout);
+  }
+
+  private Response post(String path, Object body) throws IOException, InterruptedException {
+    return send(postRequest(path, body).build());
+  }
+
+  private HttpRequest.Builder postRequest(String path, Object body) throws IOException {
+    return HttpRequest.newBuilder(baseUrl.resolve(path))
+        .header("Content-Type", "application/json")
+        .timeout(REQUEST_TIMEOUT)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+  }
+
+  private Response get(String path) throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build());
+  }
+
+  private Response send(HttpRequest request) throws IOException, InterruptedException {
+    HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    byte[] body = response.body();
+    return new Response(
+        response.statusCode(),
+        body.length == 0 ? null : objectMapper.readTree(body),
+        response.headers().firstValue("Idempotent-Replayed").map(Boolean::parseBoolean).orElse(false));
+  }
+
+  private static Response expect(int status, Response response) {
+    if (response.status() != status) {
+      throw new IllegalStateException("Expected HTTP " + status + " but got " + response.status() + ": " + response.body());
+    }
+    return response;
+  }
+
+  private static UUID id(Response response) {
+    return UUID.fromString(response.body().get("id").asText());
+  }
+}
@@ -0,0 +1,142 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@code /ws} session subscribed to one item. It records delivery latency for every
+ * {@code BID_PLACED} it sees and also carries {@code PLACE_BID} frames for that item.
+ *
+ * <p>Replies do not come back in the order the bids went out: an {@code ERROR} is sent right away,
+ * while the {@code BID_PLACED} broadcast of an accepted bid comes later from the delivery threads.
+ * So every frame carries a {@code requestId}, which the server echoes on the {@code ERROR}, and an
+ * accepted bid is matched by its item, bidder and amount.
+ */
+final class EventConnection implements WebSocket.Listener {
+  private final UUID itemId;
+  private final ObjectMapper objectMapper;
+  private final LoadStats stats;
+  private final Map<String, PendingBid> sentBids;
+  // By requestId.
+  private final Map<String, PendingBid> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong nextRequestId = new AtomicLong();
+  private final ReentrantLock sendLock = new ReentrantLock();
+  private final StringBuilder partial = new StringBuilder();
+  private WebSocket webSocket;
+
+  private EventConnection(UUID itemId, ObjectMapper objectMapper, LoadStats stats, Map<String, PendingBid> sentBids) {
+    this.itemId = itemId;
+    this.objectMapper = objectMapper;
+    this.stats = stats;
+    this.sentBids = sentBids;
+  }
+
+  static EventConnection open(
+      HttpClient http,
+      URI url,
+      UUID itemId,
+      ObjectMapper objectMapper,
+      LoadStats stats,
+      Map<String, PendingBid> sentBids
+  ) throws Exception {
+    EventConnection connection = new EventConnection(itemId, objectMapper, stats, sentBids);
+    connection.webSocket = http.newWebSocketBuilder().buildAsync(url, connection).join();
+    connection.send(objectMapper.writeValueAsString(Map.of("type", "SUBSCRIBE", "itemId", itemId)));
+    return connection;
+  }
+
+  void placeBid(PendingBid bid) throws Exception {
+    bid.requestId = Long.toString(nextRequestId.incrementAndGet());
+    String frame = objectMapper.writeValueAsString(Map.of(
+        "type", "PLACE_BID",
+        "itemId", bid.itemId,
+        "bidderUserId", bid.bidderUserId,
+        "amount", bid.amount,
+        "requestId", bid.requestId
+    ));
+    sendLock.lock();
+    try {
+      inFlight.put(bid.requestId, bid);
+      bid.sentNanos = System.nanoTime();
+      webSocket.sendText(frame, true).join();
+    } finally {
+      sendLock.unlock();
+    }
+    stats.sent(bid);
+  }
+
+  void close() {
+    webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+  }
+
+  private void send(String frame) {
+    sendLock.lock();
+    try {
+      webSocket.sendText(frame, true).join();
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  @Override
+  public void onOpen(WebSocket webSocket) {
+    webSocket.request(1);
+  }
+
+  @Override
+  public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+    partial.append(data);
+    if (last) {
+      long now = System.nanoTime();
+      try {
+        handle(objectMapper.readTree(partial.toString()), now);
+      } catch (Exception e) {
+        stats.error();
+      }
+      partial.setLength(0);
+    }
+    webSocket.request(1);
+    return null;
+  }
+
+  private void handle(JsonNode message, long now) {
+    switch (message.path("type").asText()) {
+      case "BID_PLACED" -> {
+        JsonNode bid = message.path("bid");
+        String key = PendingBid.key(
+            itemId, UUID.fromString(bid.path("bidderUserId").asText()), new BigDecimal(bid.path("amount").asText()));
+        PendingBid sent = sentBids.get(key);
+        if (sent != null) {
+          stats.delivered(sent, now);
+          // Only if this connection sent it; remove(key, value) compares the instance.
+          if (sent.requestId != null && inFlight.remove(sent.requestId, sent)) {
+            stats.wsAck(sent, now, Outcome.ACCEPTED);
+          }
+        }
+      }
+      case "ERROR" -> {
+        String requestId = message.path("requestId").asText(null);
+        PendingBid failed = requestId == null ? null : inFlight.remove(requestId);
+        if (failed != null) {
+          Outcome outcome = message.hasNonNull("reason")
+              ? Outcome.fromRetryLater(message.path("reason").asText())
+              : Outcome.fromRejection(message.path("message").asText());
+          stats.wsAck(failed, now, outcome);
+        }
+      }
+      default -> {
+        // SNAPSHOT and auction lifecycle events carry nothing to measure.
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.grepr.takehome.auction.loadgen;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}.
+ *
+ * @param baseUrl            API base URL; the WebSocket URL is derived from it
+ * @param rate               bids per second, issued on a fixed schedule regardless of responses
+ * @param duration           how long bids are issued
+ * @param items              number of auctions bid on concurrently
+ * @param bidders            number of users bids are spread across
+ * @param subscribersPerItem WebSocket sessions subscribed to each item; WS bids are sent through them
+ * @param wsBidRatio         share of bids sent as {@code PLACE_BID} frames instead of REST calls
+ * @param tooLowRatio        share of bids that are deliberately below the minimum
+ * @param drain              how long to wait for outstanding acks and events after the last bid
+ * @param hgrmDir            if set, full percentile distributions are written there as {@code .hgrm} files
+ */
+record LoadConfig(
+    URI baseUrl,
+    int rate,
+    Duration duration,
+    int items,
+    int bidders,
+    int subscribersPerItem,
+    double wsBidRatio,
+    double tooLowRatio,
+    BigDecimal startingPrice,
+    BigDecimal minIncrement,
+    Duration drain,
+    String hgrmDir
+) {
+  static LoadConfig parse(String[] args) {
+    Map<String, String> options = options(args);
+    LoadConfig config = new LoadConfig(
+        URI.create(options.getOrDefault("base-url", "http://localhost:8080")),
+        Integer.parseInt(options.getOrDefault("rate", "200")),
+        Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "30"))),
+        Integer.parseInt(options.getOrDefault("items", "5")),
+        Integer.parseInt(options.getOrDefault("bidders", "20")),
+        Integer.parseInt(options.getOrDefault("subscribers-per-item", "10")),
+        Double.parseDouble(options.getOrDefault("ws-bid-ratio", "0.5")),
+        Double.parseDouble(options.getOrDefault("too-low-ratio", "0.2")),
+        new BigDecimal(options.getOrDefault("starting-price", "10.00")),
+        new BigDecimal(options.getOrDefault("min-increment", "1.00")),
+        Duration.ofSeconds(Long.parseLong(options.getOrDefault("drain-seconds", "5"))),
+        options.get("hgrm-dir")
+    );
+    if (config.rate <= 0 || config.items <= 0 || config.bidders <= 0) {
+      throw new IllegalArgumentException("rate, items and bidders must be > 0");
+    }
+    if (config.wsBidRatio > 0 && config.subscribersPerItem <= 0) {
+      throw new IllegalArgumentException("WebSocket bids need subscribers-per-item > 0");
+    }
+    return config;
+  }
+
+  static Map<String, String> options(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+      }
+      int eq = arg.indexOf('=');
+      options.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  URI webSocketUrl() {
+    return webSocketUrl(baseUrl);
+  }
+
+  static URI webSocketUrl(URI baseUrl) {
+    String http = baseUrl.toString().replaceAll("/+$", "");
+    return URI.create(http.replaceFirst("^http", "ws") + "/ws");
+  }
+}
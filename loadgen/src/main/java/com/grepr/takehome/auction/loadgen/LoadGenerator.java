@@ -0,0 +1,176 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: creates users, items and auctions, subscribes WebSocket sessions to
+ * every item, then issues bids at a constant rate over REST and {@code PLACE_BID} frames and reports
+ * HdrHistogram percentiles for bid acknowledgement and bid-to-subscriber delivery.
+ *
+ * <p>Bids are sent on a fixed schedule from virtual threads and never wait for earlier responses,
+ * so the offered load stays constant however slow the server gets.
+ */
+public final class LoadGenerator {
+  private static final Duration AUCTION_START_DELAY = Duration.ofSeconds(3);
+
+  private final LoadConfig config;
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+  private final HttpClient http = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+  private final AuctionApiClient api;
+  private final LoadStats stats = new LoadStats();
+  private final Map<String, PendingBid> sentBids = new ConcurrentHashMap<>();
+  private final List<Target> targets = new ArrayList<>();
+  private final List<UUID> bidders = new ArrayList<>();
+
+  /** An auction under load, with its price cursor and the sessions subscribed to it. */
+  private record Target(UUID itemId, AtomicLong nextPriceCents, List<EventConnection> connections) {}
+
+  LoadGenerator(LoadConfig config) {
+    this.config = config;
+    this.api = new AuctionApiClient(config.baseUrl(), http, objectMapper);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new LoadGenerator(LoadConfig.parse(args)).run();
+  }
+
+  void run() throws Exception {
+    setUp();
+    System.out.printf("[run] %d bids/s for %ds across %d items (%d%% over WebSocket)%n",
+        config.rate(), config.duration().toSeconds(), config.items(), Math.round(config.wsBidRatio() * 100));
+
+    long started = System.nanoTime();
+    try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+      long interval = TimeUnit.SECONDS.toNanos(1) / config.rate();
+      long total = config.duration().toSeconds() * config.rate();
+      for (long i = 0; i < total; i++) {
+        long intended = started + i * interval;
+        long wait = intended - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        stats.scheduled();
+        senders.execute(() -> fire(intended));
+      }
+      awaitDrain();
+    }
+    double elapsed = (System.nanoTime() - started) / 1e9;
+
+    System.out.println();
+    System.out.println("=== Load summary ===");
+    stats.print(System.out, elapsed);
+    if (config.hgrmDir() != null) {
+      stats.writeDistributions(Path.of(config.hgrmDir()));
+      System.out.println("percentile distributions written to " + config.hgrmDir());
+    }
+    printFinalAuctions();
+    targets.forEach(target -> target.connections().forEach(EventConnection::close));
+  }
+
+  private void setUp() throws Exception {
+    for (int i = 0; i < config.bidders(); i++) {
+      bidders.add(api.createUser("loadgen-bidder-" + i));
+    }
+
+    Instant start = Instant.now().plus(AUCTION_START_DELAY);
+    Instant end = start.plus(config.duration()).plus(config.drain()).plusSeconds(30);
+    long startingCents = config.startingPrice().movePointRight(2).longValueExact();
+    for (int i = 0; i < config.items(); i++) {
+      UUID itemId = api.createItem("loadgen-item-" + i, "Created by the load generator");
+      api.scheduleAuction(itemId, start, end, config.startingPrice(), config.minIncrement());
+      targets.add(new Target(itemId, new AtomicLong(startingCents), new ArrayList<>()));
+    }
+    System.out.printf("[setup] %d bidders, %d auctions opening at %s%n", bidders.size(), targets.size(), start);
+
+    for (Target target : targets) {
+      for (int i = 0; i < config.subscribersPerItem(); i++) {
+        target.connections().add(EventConnection.open(
+            http, config.webSocketUrl(), target.itemId(), objectMapper, stats, sentBids));
+      }
+    }
+    for (Target target : targets) {
+      api.awaitOpen(target.itemId(), AUCTION_START_DELAY.plusSeconds(30));
+    }
+  }
+
+  private void fire(long intendedNanos) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Target target = targets.get(random.nextInt(targets.size()));
+    UUID bidder = bidders.get(random.nextInt(bidders.size()));
+    BigDecimal amount;
+    if (random.nextDouble() < config.tooLowRatio()) {
+      amount = config.startingPrice();
+    } else {
+      long incrementCents = config.minIncrement().movePointRight(2).longValueExact();
+      amount = BigDecimal.valueOf(target.nextPriceCents().addAndGet(incrementCents * (1 + random.nextInt(3))), 2);
+    }
+
+    PendingBid bid = new PendingBid(target.itemId(), bidder, amount, intendedNanos);
+    sentBids.put(bid.key, bid);
+    try {
+      if (random.nextDouble() < config.wsBidRatio()) {
+        List<EventConnection> connections = target.connections();
+        connections.get(random.nextInt(connections.size())).placeBid(bid);
+      } else {
+        placeRestBid(bid);
+      }
+    } catch (Exception e) {
+      stats.error();
+    }
+  }
+
+  private void placeRestBid(PendingBid bid) throws Exception {
+    bid.sentNanos = System.nanoTime();
+    stats.sent(bid);
+    AuctionApiClient.Response response = api.placeBid(bid.itemId, bid.bidderUserId, bid.amount);
+    long now = System.nanoTime();
+    Outcome outcome = switch (response.status()) {
+      case 201 -> Outcome.ACCEPTED;
+      case 400 -> Outcome.fromRejection(response.body() == null ? null : response.body().path("message").asText());
+      case 429 -> Outcome.fromRetryLater(response.body() == null ? null : response.body().path("reason").asText(null));
+      default -> Outcome.ERROR;
+    };
+    stats.restAck(bid, now, outcome);
+  }
+
+  private void awaitDrain() throws InterruptedException {
+    long deadline = System.nanoTime() + config.drain().toNanos();
+    while (System.nanoTime() < deadline && stats.acknowledgedCount() < stats.scheduledCount()) {
+      Thread.sleep(100);
+    }
+    // Let trailing BID_PLACED broadcasts reach the remaining subscribers.
+    Thread.sleep(500);
+  }
+
+  private void printFinalAuctions() throws Exception {
+    System.out.println("final auctions:");
+    for (Target target : targets) {
+      JsonNode auction = api.getItem(target.itemId()).path("auction");
+      System.out.printf("  item=%s status=%s currentPrice=%s winner=%s%n",
+          target.itemId(), auction.path("status").asText(), auction.path("currentPrice").asText(),
+          auction.path("currentWinnerUserId").asText());
+    }
+  }
+}
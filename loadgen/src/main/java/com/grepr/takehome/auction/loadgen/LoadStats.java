@@ -0,0 +1,116 @@
+package com.grepr.takehome.auction.loadgen;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Thread-safe latency histograms (nanoseconds) and outcome counters.
+ *
+ * <p>Ack latencies are measured from the <em>intended</em> send time of the open-loop schedule, so
+ * a stalled server shows up as latency instead of silently lowering the offered load (no
+ * coordinated omission). Delivery latency is measured from the moment the bid was actually sent to
+ * the moment a subscriber received the matching {@code BID_PLACED} event.
+ */
+final class LoadStats {
+  private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+  final Histogram restAck = histogram();
+  final Histogram wsAck = histogram();
+  final Histogram delivery = histogram();
+  final Histogram sendLag = histogram();
+  private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+  private final LongAdder scheduled = new LongAdder();
+
+  LoadStats() {
+    for (Outcome outcome : Outcome.values()) {
+      outcomes.put(outcome, new LongAdder());
+    }
+  }
+
+  void scheduled() {
+    scheduled.increment();
+  }
+
+  void sent(PendingBid bid) {
+    record(sendLag, bid.sentNanos - bid.intendedNanos);
+  }
+
+  void restAck(PendingBid bid, long nowNanos, Outcome outcome) {
+    record(restAck, nowNanos - bid.intendedNanos);
+    outcomes.get(outcome).increment();
+  }
+
+  void wsAck(PendingBid bid, long nowNanos, Outcome outcome) {
+    record(wsAck, nowNanos - bid.intendedNanos);
+    outcomes.get(outcome).increment();
+  }
+
+  void delivered(PendingBid bid, long nowNanos) {
+    record(delivery, nowNanos - bid.sentNanos);
+  }
+
+  void error() {
+    outcomes.get(Outcome.ERROR).increment();
+  }
+
+  long scheduledCount() {
+    return scheduled.sum();
+  }
+
+  long acknowledgedCount() {
+    return outcomes.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  void print(PrintStream out, double elapsedSeconds) {
+    long scheduledCount = scheduledCount();
+    out.printf("bids scheduled=%d acknowledged=%d unacknowledged=%d achieved=%.1f/s%n",
+        scheduledCount, acknowledgedCount(), scheduledCount - acknowledgedCount(), scheduledCount / elapsedSeconds);
+    StringBuilder line = new StringBuilder("outcomes:");
+    outcomes.forEach((outcome, count) -> line.append(' ').append(outcome.name().toLowerCase()).append('=').append(count.sum()));
+    out.println(line);
+    out.printf("%-22s %9s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+    row(out, "rest bid ack", restAck);
+    row(out, "ws bid ack", wsAck);
+    row(out, "bid -> subscriber", delivery);
+    row(out, "scheduler send lag", sendLag);
+  }
+
+  void writeDistributions(Path dir) throws FileNotFoundException {
+    dir.toFile().mkdirs();
+    write(dir.resolve("rest-ack.hgrm"), restAck);
+    write(dir.resolve("ws-ack.hgrm"), wsAck);
+    write(dir.resolve("delivery.hgrm"), delivery);
+    write(dir.resolve("send-lag.hgrm"), sendLag);
+  }
+
+  private static void write(Path file, Histogram histogram) throws FileNotFoundException {
+    try (PrintStream out = new PrintStream(file.toFile())) {
+      histogram.outputPercentileDistribution(out, 1_000_000.0);
+    }
+  }
+
+  static void row(PrintStream out, String name, Histogram h) {
+    out.printf("%-22s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+        name, h.getTotalCount(), ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+        ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+  }
+
+  private static double ms(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private static void record(Histogram histogram, long nanos) {
+    histogram.recordValue(Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS));
+  }
+
+  static Histogram histogram() {
+    return new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+  }
+}
@@ -0,0 +1,34 @@
+package com.grepr.takehome.auction.loadgen;
+
+enum Outcome {
+  ACCEPTED,
+  BID_TOO_LOW,
+  AUCTION_NOT_OPEN,
+  OVERLOADED,
+  RATE_LIMITED,
+  OTHER_REJECTION,
+  ERROR;
+
+  /** Maps a rejection message from the API onto an outcome, mirroring the server's reject reasons. */
+  static Outcome fromRejection(String message) {
+    String lower = message == null ? "" : message.toLowerCase();
+    if (lower.contains("too low")) {
+      return BID_TOO_LOW;
+    }
+    if (lower.contains("not open")) {
+      return AUCTION_NOT_OPEN;
+    }
+    return OTHER_REJECTION;
+  }
+
+  /**
+   * Maps the {@code reason} of a "retry later" answer (429, 503, or an {@code ERROR} with
+   * {@code retryAfterMs}): the bidder rate limit, a bid whose outcome is unknown, or load shedding.
+   */
+  static Outcome fromRetryLater(String reason) {
+    if ("rate_limited".equals(reason)) {
+      return RATE_LIMITED;
+    }
+    return "outcome_unknown".equals(reason) ? ERROR : OVERLOADED;
+  }
+}
@@ -0,0 +1,29 @@
+package com.grepr.takehome.auction.loadgen;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** A bid that has been scheduled; {@code intendedNanos} is when the open-loop schedule wanted it sent. */
+final class PendingBid {
+  final UUID itemId;
+  final UUID bidderUserId;
+  final BigDecimal amount;
+  final String key;
+  final long intendedNanos;
+  volatile long sentNanos;
+  // Set by the connection that sends it as a PLACE_BID frame; echoed on its ERROR.
+  volatile String requestId;
+
+  PendingBid(UUID itemId, UUID bidderUserId, BigDecimal amount, long intendedNanos) {
+    this.itemId = itemId;
+    this.bidderUserId = bidderUserId;
+    this.amount = amount;
+    this.key = key(itemId, bidderUserId, amount);
+    this.intendedNanos = intendedNanos;
+  }
+
+  /** Identifies a bid in {@code BID_PLACED} events, which carry no client-side correlation id. */
+  static String key(UUID itemId, UUID bidderUserId, BigDecimal amount) {
+    return itemId + ":" + bidderUserId + ":" + amount.stripTrailingZeros().toPlainString();
+  }
+}
@@ -0,0 +1,46 @@
+package com.grepr.takehome.auction.loadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@link TrafficReplay} options, given as {@code --name=value} like {@link LoadConfig}'s.
+ *
+ * @param baseUrl  API base URL of the instance to replay against
+ * @param file     the recording
+ * @param speed    how much faster than recorded to replay; 0 ({@code --speed=max}) sends everything
+ *                 as fast as possible
+ * @param drain    how long to wait for outstanding acks after the last event
+ * @param hgrmDir  if set, full percentile distributions are written there as {@code .hgrm} files
+ */
+record ReplayConfig(URI baseUrl, Path file, double speed, Duration drain, String hgrmDir) {
+  static ReplayConfig parse(String[] args) {
+    Map<String, String> options = LoadConfig.options(args);
+    String file = options.get("file");
+    if (file == null) {
+      throw new IllegalArgumentException("--file=<recording> is required");
+    }
+    String speed = options.getOrDefault("speed", "1");
+    ReplayConfig config = new ReplayConfig(
+        URI.create(options.getOrDefault("base-url", "http://localhost:8080")),
+        Path.of(file),
+        "max".equalsIgnoreCase(speed) ? 0 : Double.parseDouble(speed),
+        Duration.ofSeconds(Long.parseLong(options.getOrDefault("drain-seconds", "5"))),
+        options.get("hgrm-dir")
+    );
+    if (config.speed < 0) {
+      throw new IllegalArgumentException("speed must be > 0, or max");
+    }
+    return config;
+  }
+
+  boolean maxSpeed() {
+    return speed == 0;
+  }
+
+  URI webSocketUrl() {
+    return LoadConfig.webSocketUrl(baseUrl);
+  }
+}
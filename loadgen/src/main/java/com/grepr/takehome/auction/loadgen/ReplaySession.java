@@ -0,0 +1,216 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.loadgen.TrafficLog.RecordedOutcome;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One recorded {@code /ws} session, replayed. It connects when its first frame is due and sends its
+ * frames in recorded order from its own virtual thread, so a slow session holds up only itself.
+ *
+ * <p>Replies are matched like {@link EventConnection}'s: every frame carries a {@code requestId},
+ * which the server echoes on its {@code ERROR} or {@code BID_REPLAYED}. A {@code SUBSCRIBE} is
+ * answered right away, so {@code SNAPSHOT}s come back in the order they were asked for. An accepted
+ * bid is acknowledged by whichever session sees its {@code BID_PLACED}, and stays unacknowledged if
+ * none does (e.g. a bid on an item this session is not subscribed to, with no one else watching).
+ */
+final class ReplaySession implements WebSocket.Listener {
+  private final HttpClient http;
+  private final URI url;
+  private final ObjectMapper objectMapper;
+  private final LoadStats stats;
+  private final Map<String, ReplayedBid> sentBids;
+  private final LongAdder subscribeErrors;
+  private final ExecutorService sender = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+  // Bids by requestId, until they are acknowledged.
+  private final Map<String, ReplayedBid> bidsAwaitingReply = new ConcurrentHashMap<>();
+  // requestIds of SUBSCRIBEs, oldest first.
+  private final Queue<String> subscribesAwaitingReply = new ConcurrentLinkedQueue<>();
+  private final StringBuilder partial = new StringBuilder();
+  // Only used from the sender thread.
+  private WebSocket webSocket;
+  private long lastRequestId;
+
+  ReplaySession(
+      HttpClient http,
+      URI url,
+      ObjectMapper objectMapper,
+      LoadStats stats,
+      Map<String, ReplayedBid> sentBids,
+      LongAdder subscribeErrors
+  ) {
+    this.http = http;
+    this.url = url;
+    this.objectMapper = objectMapper;
+    this.stats = stats;
+    this.sentBids = sentBids;
+    this.subscribeErrors = subscribeErrors;
+  }
+
+  void subscribe(UUID itemId) {
+    sender.execute(() -> {
+      try {
+        Map<String, Object> frame = new HashMap<>();
+        String requestId = Long.toString(++lastRequestId);
+        frame.put("type", "SUBSCRIBE");
+        frame.put("itemId", itemId);
+        frame.put("requestId", requestId);
+        String text = objectMapper.writeValueAsString(frame);
+        connected();
+        subscribesAwaitingReply.add(requestId);
+        webSocket.sendText(text, true).join();
+      } catch (Exception e) {
+        subscribeErrors.increment();
+      }
+    });
+  }
+
+  void placeBid(ReplayedBid bid) {
+    sender.execute(() -> {
+      PendingBid pending = bid.pending;
+      try {
+        Map<String, Object> frame = new HashMap<>();
+        String requestId = Long.toString(++lastRequestId);
+        frame.put("type", "PLACE_BID");
+        frame.put("itemId", pending.itemId);
+        frame.put("bidderUserId", pending.bidderUserId);
+        frame.put("amount", pending.amount);
+        if (bid.recorded.idempotencyKey() != null) {
+          frame.put("idempotencyKey", bid.recorded.idempotencyKey());
+        }
+        frame.put("requestId", requestId);
+        String text = objectMapper.writeValueAsString(frame);
+        connected();
+        bidsAwaitingReply.put(requestId, bid);
+        pending.sentNanos = System.nanoTime();
+        webSocket.sendText(text, true).join();
+        stats.sent(pending);
+      } catch (Exception e) {
+        bid.resolve(RecordedOutcome.FAILED, Outcome.ERROR, System.nanoTime(), stats);
+      }
+    });
+  }
+
+  /**
+   * Closes the session once its earlier frames are sent and have their replies, or {@code grace}
+   * has passed; at high speed the recorded close can follow a bid more closely than its reply.
+   */
+  void close(Duration grace) {
+    sender.execute(() -> {
+      long deadline = System.nanoTime() + grace.toNanos();
+      while (awaitingReply() && System.nanoTime() < deadline) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+      }
+      if (webSocket != null) {
+        try {
+          webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").join();
+        } catch (Exception e) {
+          webSocket.abort();
+        }
+      }
+    });
+    sender.shutdown();
+  }
+
+  private boolean awaitingReply() {
+    // Bids acknowledged by their BID_PLACED are still in the map.
+    bidsAwaitingReply.values().removeIf(ReplayedBid::resolved);
+    return !subscribesAwaitingReply.isEmpty() || !bidsAwaitingReply.isEmpty();
+  }
+
+  private void connected() {
+    if (webSocket == null) {
+      webSocket = http.newWebSocketBuilder().buildAsync(url, this).join();
+    }
+  }
+
+  @Override
+  public void onOpen(WebSocket webSocket) {
+    webSocket.request(1);
+  }
+
+  @Override
+  public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+    partial.append(data);
+    if (last) {
+      long now = System.nanoTime();
+      try {
+        handle(objectMapper.readTree(partial.toString()), now);
+      } catch (Exception e) {
+        stats.error();
+      }
+      partial.setLength(0);
+    }
+    webSocket.request(1);
+    return null;
+  }
+
+  private void handle(JsonNode message, long now) {
+    switch (message.path("type").asText()) {
+      case "BID_PLACED" -> {
+        JsonNode bid = message.path("bid");
+        String key = PendingBid.key(
+            UUID.fromString(message.path("itemId").asText()),
+            UUID.fromString(bid.path("bidderUserId").asText()),
+            new BigDecimal(bid.path("amount").asText()));
+        ReplayedBid sent = sentBids.get(key);
+        if (sent != null) {
+          if (sent.pending.sentNanos != 0) {
+            stats.delivered(sent.pending, now);
+          }
+          if (sent.webSocket()) {
+            sent.resolve(RecordedOutcome.ACCEPTED, Outcome.ACCEPTED, now, stats);
+          }
+        }
+      }
+      case "SNAPSHOT" -> subscribesAwaitingReply.poll();
+      case "BID_REPLAYED" -> {
+        ReplayedBid bid = bidsAwaitingReply.remove(message.path("requestId").asText(""));
+        if (bid != null) {
+          bid.resolve(RecordedOutcome.REPLAYED, Outcome.ACCEPTED, now, stats);
+        }
+      }
+      case "ERROR" -> {
+        String requestId = message.path("requestId").asText("");
+        ReplayedBid bid = bidsAwaitingReply.remove(requestId);
+        if (bid == null) {
+          if (subscribesAwaitingReply.remove(requestId)) {
+            subscribeErrors.increment();
+          }
+        } else {
+          String text = message.path("message").asText();
+          String reason = message.path("reason").asText(null);
+          if ("outcome_unknown".equals(reason)) {
+            bid.resolve(RecordedOutcome.FAILED, Outcome.ERROR, now, stats);
+          } else if (reason != null) {
+            bid.resolve(RecordedOutcome.THROTTLED, Outcome.fromRetryLater(reason), now, stats);
+          } else if (text.startsWith("Failed")) {
+            bid.resolve(RecordedOutcome.FAILED, Outcome.ERROR, now, stats);
+          } else {
+            bid.resolve(RecordedOutcome.REJECTED, Outcome.fromRejection(text), now, stats);
+          }
+        }
+      }
+      default -> {
+        // Lifecycle events carry nothing to measure.
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.grepr.takehome.auction.loadgen.TrafficLog.RecordedOutcome;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A recorded bid as sent by {@link TrafficReplay}, with the outcome it got this time. It is
+ * resolved once; a WebSocket bid can be resolved by any session that sees its {@code BID_PLACED}.
+ */
+final class ReplayedBid {
+  final TrafficLog.Bid recorded;
+  final PendingBid pending;
+  private final AtomicReference<RecordedOutcome> outcome = new AtomicReference<>();
+
+  ReplayedBid(TrafficLog.Bid recorded, PendingBid pending) {
+    this.recorded = recorded;
+    this.pending = pending;
+  }
+
+  boolean webSocket() {
+    return recorded.session() >= 0;
+  }
+
+  /** {@code null} until it is acknowledged. */
+  RecordedOutcome outcome() {
+    return outcome.get();
+  }
+
+  boolean resolved() {
+    return outcome.get() != null;
+  }
+
+  /** Records the acknowledgement, unless the bid already had one. */
+  void resolve(RecordedOutcome replayed, Outcome detail, long nowNanos, LoadStats stats) {
+    if (!outcome.compareAndSet(null, replayed)) {
+      return;
+    }
+    if (webSocket()) {
+      stats.wsAck(pending, nowNanos, detail);
+    } else {
+      stats.restAck(pending, nowNanos, detail);
+    }
+  }
+}
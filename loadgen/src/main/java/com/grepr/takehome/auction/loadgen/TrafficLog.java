@@ -0,0 +1,165 @@
+package com.grepr.takehome.auction.loadgen;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A traffic recording made by the API's {@code TrafficRecorder} ({@code auction.recording.enabled}),
+ * read whole into memory. The layout is documented on the API's {@code TrafficCodec}; this is its
+ * reader and the two must change together.
+ *
+ * <p>Events are sorted by offset, since the recorder writes them as calls complete. A file cut
+ * short, e.g. by killing the API, is read up to its last whole record.
+ */
+final class TrafficLog {
+  private static final int MAGIC = 0x41545246;
+  private static final byte VERSION = 1;
+
+  /** The recorder's outcome of a bid, in the file's order. */
+  enum RecordedOutcome { ACCEPTED, REPLAYED, REJECTED, THROTTLED, FAILED }
+
+  /** An item's auction when the recording first saw the item. */
+  record RecordedAuction(
+      UUID itemId, boolean open, Instant startTime, Instant endTime, BigDecimal currentPrice, BigDecimal minIncrement) {}
+
+  sealed interface Event permits Subscribe, Bid, Close {
+    /** Microseconds since the recording started. */
+    long offsetMicros();
+  }
+
+  record Subscribe(long offsetMicros, int session, UUID itemId) implements Event {}
+
+  /** {@code session} is -1 for a REST bid. */
+  record Bid(
+      long offsetMicros,
+      int session,
+      UUID itemId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      String idempotencyKey,
+      RecordedOutcome outcome,
+      long latencyMicros
+  ) implements Event {}
+
+  record Close(long offsetMicros, int session) implements Event {}
+
+  final Instant start;
+  final Map<UUID, RecordedAuction> auctions;
+  final List<Event> events;
+  final boolean truncated;
+
+  private TrafficLog(Instant start, Map<UUID, RecordedAuction> auctions, List<Event> events, boolean truncated) {
+    this.start = start;
+    this.auctions = auctions;
+    this.events = events;
+    this.truncated = truncated;
+  }
+
+  /** When the first event happened; the recording starts with the API, usually well before. */
+  Instant firstEvent() {
+    return start.plus(events.isEmpty() ? 0 : events.getFirst().offsetMicros(), ChronoUnit.MICROS);
+  }
+
+  /** Microseconds from the first event to {@code event}. */
+  long sinceFirst(Event event) {
+    return event.offsetMicros() - events.getFirst().offsetMicros();
+  }
+
+  Duration span() {
+    return events.isEmpty() ? Duration.ZERO : Duration.of(sinceFirst(events.getLast()), ChronoUnit.MICROS);
+  }
+
+  static TrafficLog read(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a traffic recording");
+      }
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException("Unsupported traffic recording version " + version);
+      }
+      Instant start = instant(in.readLong());
+
+      Map<UUID, RecordedAuction> auctions = new LinkedHashMap<>();
+      List<Event> events = new ArrayList<>();
+      boolean truncated = false;
+      try {
+        int type;
+        while ((type = in.read()) != -1) {
+          long offset = getVarLong(in);
+          switch (type) {
+            case 1 -> {
+              RecordedAuction auction = new RecordedAuction(
+                  getUuid(in), in.readByte() == 1, instant(in.readLong()), instant(in.readLong()), getDecimal(in), getDecimal(in));
+              auctions.putIfAbsent(auction.itemId(), auction);
+            }
+            case 2 -> events.add(new Subscribe(offset, (int) getVarLong(in), getUuid(in)));
+            case 3 -> {
+              int session = in.readByte() == 1 ? (int) getVarLong(in) : -1;
+              UUID itemId = getUuid(in);
+              UUID bidderUserId = getUuid(in);
+              BigDecimal amount = getDecimal(in);
+              RecordedOutcome outcome = RecordedOutcome.values()[in.readByte()];
+              long latencyMicros = getVarLong(in);
+              String idempotencyKey = in.readByte() == 1 ? in.readUTF() : null;
+              events.add(new Bid(offset, session, itemId, bidderUserId, amount, idempotencyKey, outcome, latencyMicros));
+            }
+            case 4 -> events.add(new Close(offset, (int) getVarLong(in)));
+            default -> throw new IOException("Unknown record type " + type + " in " + file);
+          }
+        }
+      } catch (EOFException e) {
+        truncated = true;
+      }
+      events.sort(Comparator.comparingLong(Event::offsetMicros));
+      return new TrafficLog(start, auctions, events, truncated);
+    }
+  }
+
+  private static Instant instant(long epochMicros) {
+    return Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1_000L);
+  }
+
+  private static long getVarLong(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b == -1) {
+        throw new EOFException();
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static UUID getUuid(DataInputStream in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+
+  private static BigDecimal getDecimal(DataInputStream in) throws IOException {
+    long zigzag = getVarLong(in);
+    int scale = (int) (zigzag >>> 1) ^ -(int) (zigzag & 1);
+    byte[] unscaled = new byte[in.readUnsignedByte()];
+    in.readFully(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
@@ -0,0 +1,357 @@
+package com.grepr.takehome.auction.loadgen;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.loadgen.TrafficLog.RecordedAuction;
+import com.grepr.takehome.auction.loadgen.TrafficLog.RecordedOutcome;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Replays a traffic recording ({@link TrafficLog}) against an API instance: the recorded REST bids,
+ * {@code /ws} sessions with their {@code SUBSCRIBE} and {@code PLACE_BID} frames, at the recorded
+ * pace times {@code --speed}, or as fast as possible with {@code --speed=max}.
+ *
+ * <p>Every recorded bidder becomes a new user, and every recorded auction a new item whose auction
+ * starts at the recorded price with the recorded increment. Its start and end are moved to the
+ * replay's clock and scaled with the speed; auctions already open when recorded, and at
+ * {@code max} all of them, open before the first event and stay open past the last. Items the
+ * recording has no auction for are sent as ids that do not exist.
+ *
+ * <p>Like {@link LoadGenerator}, it is open-loop and reports ack and delivery latency from the
+ * intended send time, next to the latency the recording saw. It then compares each bid's outcome
+ * with the recorded one, and each auction's final price and winner with the highest bid the
+ * recording accepted; at 1x those should agree, faster they may not. Independently of the
+ * recording, it checks that each final state is the highest bid the replay saw accepted, and exits
+ * with 1 if one is not.
+ */
+public final class TrafficReplay {
+  private static final Duration AUCTION_START_DELAY = Duration.ofSeconds(3);
+  private static final int SETUP_CONCURRENCY = 16;
+  private static final int MAX_LISTED_AUCTIONS = 20;
+
+  private final ReplayConfig config;
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+  private final HttpClient http = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+  private final AuctionApiClient api;
+  private final LoadStats stats = new LoadStats();
+  private final Map<String, ReplayedBid> sentBids = new ConcurrentHashMap<>();
+  private final List<ReplayedBid> bids = new ArrayList<>();
+  private final Map<UUID, UUID> users = new HashMap<>();
+  private final Map<UUID, UUID> items = new HashMap<>();
+  private final Map<Integer, ReplaySession> sessions = new HashMap<>();
+  private final LongAdder subscribeErrors = new LongAdder();
+
+  TrafficReplay(ReplayConfig config) {
+    this.config = config;
+    this.api = new AuctionApiClient(config.baseUrl(), http, objectMapper);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(new TrafficReplay(ReplayConfig.parse(args)).run());
+  }
+
+  /** @return the exit status */
+  int run() throws Exception {
+    TrafficLog log = TrafficLog.read(config.file());
+    long bidCount = log.events.stream().filter(TrafficLog.Bid.class::isInstance).count();
+    long sessionCount = log.events.stream()
+        .mapToInt(event -> switch (event) {
+          case TrafficLog.Subscribe subscribe -> subscribe.session();
+          case TrafficLog.Bid bid -> bid.session();
+          case TrafficLog.Close close -> close.session();
+        })
+        .filter(session -> session >= 0)
+        .distinct()
+        .count();
+    System.out.printf("[load] %s: %d events (%d bids) on %d auctions and %d sessions over %.1fs%s%n",
+        config.file(), log.events.size(), bidCount, log.auctions.size(), sessionCount, log.span().toMillis() / 1e3,
+        log.truncated ? ", cut short" : "");
+
+    Instant start = setUp(log);
+    System.out.printf("[run] replaying at %s%n", config.maxSpeed() ? "max speed" : config.speed() + "x");
+
+    // At max speed the auctions are all open already and nothing waits for the clock.
+    long startNanos = System.nanoTime() + (config.maxSpeed() ? 0 : Math.max(0, Duration.between(Instant.now(), start).toNanos()));
+    double elapsed;
+    try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (TrafficLog.Event event : log.events) {
+        long intended = config.maxSpeed()
+            ? System.nanoTime()
+            : startNanos + (long) (log.sinceFirst(event) * 1_000 / config.speed());
+        long wait = intended - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        switch (event) {
+          case TrafficLog.Subscribe subscribe -> session(subscribe.session()).subscribe(item(subscribe.itemId()));
+          case TrafficLog.Bid recorded -> {
+            ReplayedBid bid = new ReplayedBid(
+                recorded, new PendingBid(item(recorded.itemId()), users.get(recorded.bidderUserId()), recorded.amount(), intended));
+            bids.add(bid);
+            sentBids.putIfAbsent(bid.pending.key, bid);
+            stats.scheduled();
+            if (bid.webSocket()) {
+              session(recorded.session()).placeBid(bid);
+            } else {
+              senders.execute(() -> placeRestBid(bid));
+            }
+          }
+          case TrafficLog.Close close -> {
+            ReplaySession session = sessions.remove(close.session());
+            if (session != null) {
+              session.close(config.drain());
+            }
+          }
+        }
+      }
+      elapsed = (System.nanoTime() - startNanos) / 1e9;
+      awaitDrain();
+    }
+
+    System.out.println();
+    System.out.println("=== Replay summary ===");
+    stats.print(System.out, elapsed);
+    Histogram recordedLatency = LoadStats.histogram();
+    bids.forEach(bid -> recordedLatency.recordValue(
+        Math.min(TimeUnit.MICROSECONDS.toNanos(bid.recorded.latencyMicros()), recordedLatency.getHighestTrackableValue())));
+    LoadStats.row(System.out, "recorded placeBid", recordedLatency);
+    if (subscribeErrors.sum() > 0) {
+      System.out.println("subscribe errors: " + subscribeErrors.sum());
+    }
+    if (config.hgrmDir() != null) {
+      stats.writeDistributions(Path.of(config.hgrmDir()));
+      System.out.println("percentile distributions written to " + config.hgrmDir());
+    }
+    printOutcomes();
+    boolean consistent = checkAuctions(log);
+    sessions.values().forEach(session -> session.close(Duration.ZERO));
+    return consistent ? 0 : 1;
+  }
+
+  /** Creates the users and auctions; returns when the replay's clock starts. */
+  private Instant setUp(TrafficLog log) throws Exception {
+    List<UUID> bidders = log.events.stream()
+        .filter(TrafficLog.Bid.class::isInstance)
+        .map(event -> ((TrafficLog.Bid) event).bidderUserId())
+        .distinct()
+        .toList();
+    List<RecordedAuction> auctions = List.copyOf(log.auctions.values());
+    Map<UUID, Future<UUID>> createdUsers = new LinkedHashMap<>();
+    Map<UUID, Future<UUID>> createdItems = new LinkedHashMap<>();
+    try (ExecutorService setup = Executors.newFixedThreadPool(SETUP_CONCURRENCY, Thread.ofVirtual().factory())) {
+      for (int i = 0; i < bidders.size(); i++) {
+        String name = "replay-bidder-" + i;
+        createdUsers.put(bidders.get(i), setup.submit(() -> api.createUser(name)));
+      }
+      for (int i = 0; i < auctions.size(); i++) {
+        String name = "replay-item-" + i;
+        createdItems.put(auctions.get(i).itemId(), setup.submit(() -> api.createItem(name, "Replayed from " + config.file())));
+      }
+      for (Map.Entry<UUID, Future<UUID>> user : createdUsers.entrySet()) {
+        users.put(user.getKey(), user.getValue().get());
+      }
+      for (Map.Entry<UUID, Future<UUID>> item : createdItems.entrySet()) {
+        items.put(item.getKey(), item.getValue().get());
+      }
+
+      // Room to schedule every auction before the first one due at the start has to open.
+      Instant start = Instant.now().plus(AUCTION_START_DELAY).plusSeconds(2).plusMillis(10L * auctions.size());
+      Instant openEnd = start.plus(scaled(log.span())).plus(config.drain()).plusSeconds(config.maxSpeed() ? 3600 : 30);
+      List<UUID> openAtStart = new ArrayList<>();
+      List<Future<?>> scheduled = new ArrayList<>();
+      for (RecordedAuction auction : auctions) {
+        Instant recordedStart = start.plus(scaled(Duration.between(log.firstEvent(), auction.startTime())));
+        boolean open = auction.open() || config.maxSpeed() || !recordedStart.isAfter(start);
+        Instant end = config.maxSpeed() ? openEnd : start.plus(scaled(Duration.between(log.firstEvent(), auction.endTime())));
+        UUID itemId = items.get(auction.itemId());
+        if (open) {
+          openAtStart.add(itemId);
+        }
+        scheduled.add(setup.submit(() -> {
+          Instant startTime = open ? Instant.now().plusSeconds(1) : recordedStart;
+          Instant endTime = end.isAfter(startTime) ? end : startTime.plusSeconds(1);
+          api.scheduleAuction(itemId, startTime, endTime, auction.currentPrice(), auction.minIncrement());
+          return null;
+        }));
+      }
+      for (Future<?> future : scheduled) {
+        future.get();
+      }
+      System.out.printf("[setup] %d bidders, %d auctions (%d open at the start), replay starts at %s%n",
+          users.size(), items.size(), openAtStart.size(), start);
+      for (UUID itemId : openAtStart) {
+        api.awaitOpen(itemId, AUCTION_START_DELAY.plusSeconds(30));
+      }
+      return start;
+    }
+  }
+
+  private Duration scaled(Duration recorded) {
+    if (config.maxSpeed()) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos((long) (recorded.toNanos() / config.speed()));
+  }
+
+  private UUID item(UUID recordedItemId) {
+    return items.computeIfAbsent(recordedItemId, ignored -> UUID.randomUUID());
+  }
+
+  private ReplaySession session(int recorded) {
+    return sessions.computeIfAbsent(recorded, ignored -> new ReplaySession(
+        http, config.webSocketUrl(), objectMapper, stats, sentBids, subscribeErrors));
+  }
+
+  private void placeRestBid(ReplayedBid bid) {
+    PendingBid pending = bid.pending;
+    try {
+      pending.sentNanos = System.nanoTime();
+      stats.sent(pending);
+      AuctionApiClient.Response response =
+          api.placeBid(pending.itemId, pending.bidderUserId, pending.amount, bid.recorded.idempotencyKey());
+      long now = System.nanoTime();
+      String message = response.body() == null ? null : response.body().path("message").asText();
+      String reason = response.body() == null ? null : response.body().path("reason").asText(null);
+      switch (response.status()) {
+        case 201 -> bid.resolve(response.replayed() ? RecordedOutcome.REPLAYED : RecordedOutcome.ACCEPTED, Outcome.ACCEPTED, now, stats);
+        case 400, 404, 409 -> bid.resolve(RecordedOutcome.REJECTED, Outcome.fromRejection(message), now, stats);
+        case 429 -> bid.resolve(RecordedOutcome.THROTTLED, Outcome.fromRetryLater(reason), now, stats);
+        default -> bid.resolve(RecordedOutcome.FAILED, Outcome.ERROR, now, stats);
+      }
+    } catch (Exception e) {
+      bid.resolve(RecordedOutcome.FAILED, Outcome.ERROR, System.nanoTime(), stats);
+    }
+  }
+
+  private void awaitDrain() throws InterruptedException {
+    long deadline = System.nanoTime() + config.drain().toNanos();
+    while (System.nanoTime() < deadline && stats.acknowledgedCount() < stats.scheduledCount()) {
+      Thread.sleep(100);
+    }
+    // Let trailing BID_PLACED broadcasts reach the remaining subscribers.
+    Thread.sleep(500);
+  }
+
+  private void printOutcomes() {
+    Map<RecordedOutcome, Map<RecordedOutcome, Integer>> matrix = new EnumMap<>(RecordedOutcome.class);
+    int same = 0;
+    int unacknowledged = 0;
+    for (ReplayedBid bid : bids) {
+      RecordedOutcome replayed = bid.outcome();
+      if (replayed == null) {
+        unacknowledged++;
+        continue;
+      }
+      if (replayed == bid.recorded.outcome()) {
+        same++;
+      }
+      matrix.computeIfAbsent(bid.recorded.outcome(), ignored -> new EnumMap<>(RecordedOutcome.class))
+          .merge(replayed, 1, Integer::sum);
+    }
+    System.out.printf("bid outcomes as recorded: %d of %d acknowledged (%.1f%%)%n",
+        same, bids.size() - unacknowledged, bids.size() == unacknowledged ? 100.0 : 100.0 * same / (bids.size() - unacknowledged));
+    matrix.forEach((recorded, replayed) -> replayed.forEach((outcome, count) -> {
+      if (outcome != recorded) {
+        System.out.printf("  recorded %s, replayed %s: %d%n", recorded.name().toLowerCase(), outcome.name().toLowerCase(), count);
+      }
+    }));
+  }
+
+  /** Prints how each auction ended; {@code false} if one ended on a bid the replay did not see win. */
+  private boolean checkAuctions(TrafficLog log) throws Exception {
+    Map<UUID, UUID> recordedUsers = new HashMap<>();
+    users.forEach((recorded, local) -> recordedUsers.put(local, recorded));
+    Map<UUID, List<ReplayedBid>> bidsByItem = new HashMap<>();
+    for (ReplayedBid bid : bids) {
+      bidsByItem.computeIfAbsent(bid.recorded.itemId(), ignored -> new ArrayList<>()).add(bid);
+    }
+
+    int matched = 0;
+    int differ = 0;
+    int inconsistent = 0;
+    int unverified = 0;
+    List<String> listed = new ArrayList<>();
+    for (RecordedAuction auction : log.auctions.values()) {
+      List<ReplayedBid> itemBids = bidsByItem.getOrDefault(auction.itemId(), List.of());
+      ReplayedBid recordedTop = highest(itemBids, bid -> bid.recorded.outcome() == RecordedOutcome.ACCEPTED);
+      ReplayedBid replayedTop = highest(itemBids, bid -> bid.outcome() == RecordedOutcome.ACCEPTED);
+
+      JsonNode state = api.getItem(items.get(auction.itemId())).path("auction");
+      BigDecimal price = new BigDecimal(state.path("currentPrice").asText());
+      String winnerText = state.path("currentWinnerUserId").asText(null);
+      UUID winner = winnerText == null ? null : recordedUsers.get(UUID.fromString(winnerText));
+
+      String problem = null;
+      if (!ends(price, winner, recordedTop, auction.currentPrice())) {
+        differ++;
+        problem = "differs from recording";
+      } else {
+        matched++;
+      }
+      if (!ends(price, winner, replayedTop, auction.currentPrice())) {
+        boolean acknowledged = itemBids.stream().allMatch(ReplayedBid::resolved);
+        if (acknowledged) {
+          inconsistent++;
+          problem = "INCONSISTENT with accepted bids";
+        } else {
+          unverified++;
+        }
+      }
+      if (problem != null && listed.size() < MAX_LISTED_AUCTIONS) {
+        listed.add(String.format("  item=%s %s: recorded %s by %s, replayed %s by %s",
+            auction.itemId(), problem,
+            recordedTop == null ? auction.currentPrice() : recordedTop.recorded.amount(),
+            recordedTop == null ? "nobody" : recordedTop.recorded.bidderUserId(),
+            price, winner == null ? "nobody" : winner));
+      }
+    }
+    System.out.printf("final auctions: %d, as recorded %d, different %d, inconsistent %d, unverified %d%n",
+        log.auctions.size(), matched, differ, inconsistent, unverified);
+    listed.forEach(System.out::println);
+    return inconsistent == 0;
+  }
+
+  private static ReplayedBid highest(List<ReplayedBid> bids, Predicate<ReplayedBid> accepted) {
+    ReplayedBid highest = null;
+    for (ReplayedBid bid : bids) {
+      if (accepted.test(bid) && (highest == null || bid.recorded.amount().compareTo(highest.recorded.amount()) > 0)) {
+        highest = bid;
+      }
+    }
+    return highest;
+  }
+
+  /** Whether the auction ended on {@code top}, or with no winner at the starting price if that is null. */
+  private static boolean ends(BigDecimal price, UUID winner, ReplayedBid top, BigDecimal startingPrice) {
+    if (top == null) {
+      return winner == null && price.compareTo(startingPrice) == 0;
+    }
+    return price.compareTo(top.recorded.amount()) == 0 && Objects.equals(winner, top.recorded.bidderUserId());
+  }
+}
@@ -0,0 +1,51 @@
+package com.grepr.takehome.auction.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Connections for read-only transactions: the replica while {@link ReplicaLagMonitor} considers it
+ * fresh enough, the primary otherwise. A replica that cannot hand out a connection is marked
+ * unusable and the caller gets a primary connection instead of an error.
+ */
+class ReadOnlyRoutingDataSource extends AbstractDataSource {
+  private final DataSource primary;
+  private final DataSource replica;
+  private final ReplicaLagMonitor monitor;
+
+  ReadOnlyRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+    this.primary = primary;
+    this.replica = replica;
+    this.monitor = monitor;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (monitor.isUsable()) {
+      try {
+        return replica.getConnection();
+      } catch (SQLException e) {
+        monitor.markUnusable(e);
+      }
+    }
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    if (monitor.isUsable()) {
+      try {
+        return replica.getConnection(username, password);
+      } catch (SQLFeatureNotSupportedException e) {
+        // A pool with fixed credentials (Hikari) says no; that is not the replica failing.
+        throw e;
+      } catch (SQLException e) {
+        monitor.markUnusable(e);
+      }
+    }
+    return primary.getConnection(username, password);
+  }
+}
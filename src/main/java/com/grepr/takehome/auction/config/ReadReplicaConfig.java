@@ -0,0 +1,76 @@
+package com.grepr.takehome.auction.config;
+
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to a read replica when
+ * {@code auction.datasource.replica.url} is set; without it the regular single datasource is used.
+ *
+ * <p>The application datasource is a {@link LazyConnectionDataSourceProxy} over the primary pool.
+ * The physical connection is only fetched at the first statement, after the transaction manager
+ * has marked it read-only, so read-only transactions can be handed a replica connection instead.
+ * Bid writes, the auction row locks and Flyway stay on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "auction.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("auction.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      @Value("${auction.datasource.replica.url}") String url,
+      @Value("${auction.datasource.replica.username:${spring.datasource.username}}") String username,
+      @Value("${auction.datasource.replica.password:${spring.datasource.password}}") String password
+  ) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("replica");
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      @Qualifier("replicaDataSource") DataSource replica,
+      @Value("${auction.datasource.replica.max-staleness-ms:1000}") long maxStalenessMs,
+      AuctionMetrics metrics
+  ) {
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, maxStalenessMs);
+    metrics.registerReplicaLagGauge(monitor, ReplicaLagMonitor::lagMillis);
+    return monitor;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      ReplicaLagMonitor monitor
+  ) {
+    LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+    dataSource.setReadOnlyDataSource(new ReadOnlyRoutingDataSource(primary, replica, monitor));
+    return dataSource;
+  }
+}
@@ -0,0 +1,82 @@
+package com.grepr.takehome.auction.config;
+
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Polls the replica's replay lag and decides whether read-only work may use it.
+ *
+ * <p>The replica is unusable until the first successful check, while its lag exceeds
+ * {@code auction.datasource.replica.max-staleness-ms}, while it is not streaming from the primary
+ * (no WAL receiver: it has lost the primary, or only restores archived WAL), and after any
+ * connection failure; reads go to the primary meanwhile. A streaming replica that has replayed
+ * everything it received counts as zero lag even if the primary has been idle, and a server that is
+ * not in recovery (a plain second Postgres, e.g. in local testing) always does.
+ */
+public class ReplicaLagMonitor {
+  private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+  // Null when the lag cannot be told: no WAL receiver, or nothing replayed yet.
+  private static final String LAG_MILLIS_SQL = """
+      select case
+        when not pg_is_in_recovery() then 0
+        when not exists (select 1 from pg_stat_wal_receiver) then null
+        when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+        else extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000
+      end::bigint
+      """;
+
+  private final JdbcTemplate replica;
+  private final long maxStalenessMs;
+  private volatile long lagMillis = -1;
+  private volatile boolean usable;
+
+  public ReplicaLagMonitor(DataSource replica, long maxStalenessMs) {
+    this.replica = new JdbcTemplate(replica);
+    this.maxStalenessMs = maxStalenessMs;
+  }
+
+  public boolean isUsable() {
+    return usable;
+  }
+
+  /** Last measured lag, or -1 if the last check failed or could not tell. */
+  public long lagMillis() {
+    return lagMillis;
+  }
+
+  @Scheduled(fixedDelayString = "${auction.datasource.replica.lag-check-delay-ms:1000}")
+  public void check() {
+    try {
+      Long lag = replica.queryForObject(LAG_MILLIS_SQL, Long.class);
+      if (lag == null) {
+        lagMillis = -1;
+        update(false, "not streaming from the primary");
+        return;
+      }
+      lagMillis = lag;
+      update(lagMillis <= maxStalenessMs, "lag " + lagMillis + "ms");
+    } catch (DataAccessException e) {
+      markUnusable(e);
+    }
+  }
+
+  void markUnusable(Exception cause) {
+    lagMillis = -1;
+    update(false, cause.getMessage());
+  }
+
+  private void update(boolean nowUsable, String reason) {
+    if (nowUsable != usable) {
+      if (nowUsable) {
+        log.info("Routing read-only transactions to the replica ({})", reason);
+      } else {
+        log.warn("Routing read-only transactions to the primary ({})", reason);
+      }
+    }
+    usable = nowUsable;
+  }
+}
@@ -0,0 +1,56 @@
+package com.grepr.takehome.auction.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A bid of a long-closed auction, moved out of the partitioned {@code bids} table by the archival
+ * job. Read-only; the auction is kept as a plain id since history reads already have it loaded.
+ */
+@Entity
+@Immutable
+@Table(name = "bids_archive")
+public class ArchivedBid {
+  @Id
+  private UUID id;
+
+  @Column(name = "auction_id", nullable = false)
+  private UUID auctionId;
+
+  @Column(name = "bidder_user_id", nullable = false)
+  private UUID bidderUserId;
+
+  @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+  private BigDecimal amount;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  protected ArchivedBid() {}
+
+  public UUID getId() {
+    return id;
+  }
+
+  public UUID getAuctionId() {
+    return auctionId;
+  }
+
+  public UUID getBidderUserId() {
+    return bidderUserId;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
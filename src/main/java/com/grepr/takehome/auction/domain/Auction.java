@@ -4,14 +4,20 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -20,7 +26,8 @@ public class Auction {
     @Id
     private UUID id;
 
-    @OneToOne(optional = false)
+    /** Lazy: every caller only needs the item id, which the proxy has without a query. */
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "item_id", nullable = false, unique = true)
     private Item item;
 
@@ -49,6 +56,26 @@ public class Auction {
     @Column(name = "closed_at")
     private Instant closedAt;
 
+    /**
+     * When the auction's bids were moved to {@code bids_archive}. Written only by the archival job,
+     * so JPA never includes it in inserts or updates.
+     */
+    @Column(name = "bids_archived_at", insertable = false, updatable = false)
+    private Instant bidsArchivedAt;
+
+    /** Highest bids first, bounded by the leaderboard size at the time each bid was accepted. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "top_bids", nullable = false)
+    private List<TopBid> topBids = List.of();
+
+    /** Distinct bidders; see {@code auction_bidders}. */
+    @Column(name = "bidder_count", nullable = false)
+    private int bidderCount;
+
+    /** Accepted bids, archived ones included. */
+    @Column(name = "bid_count", nullable = false)
+    private int bidCount;
+
     /**
      * Optimistic locking version used by JPA/Hibernate to prevent lost updates.
      * Incremented automatically on each update; concurrent updates will fail with
@@ -128,7 +155,32 @@ public class Auction {
         return closedAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getBidsArchivedAt() {
+        return bidsArchivedAt;
+    }
+
+    public List<TopBid> getTopBids() {
+        return topBids;
+    }
+
+    public int getBidderCount() {
+        return bidderCount;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
     public AuctionStatus effectiveStatus(Instant now) {
+        return effectiveStatus(status, startTime, endTime, now);
+    }
+
+    /** Status as of {@code now} from raw columns, for read projections that never load an {@code Auction}. */
+    public static AuctionStatus effectiveStatus(AuctionStatus status, Instant startTime, Instant endTime, Instant now) {
         if (status == AuctionStatus.CLOSED) {
             return AuctionStatus.CLOSED;
         }
@@ -153,9 +205,58 @@ public class Auction {
         return true;
     }
 
+    /** Every accepted bid is the new winning bid, so this also counts it. */
     public void applyWinningBid(UUID bidderUserId, BigDecimal amount) {
         this.currentWinnerUserId = bidderUserId;
         this.currentPrice = amount;
+        this.bidCount++;
+    }
+
+    /**
+     * Soft close: a bid placed within {@code window} of the end pushes the end out so that at least
+     * {@code extension} remains. Must be called under the auction's row lock, like
+     * {@link #applyWinningBid}.
+     *
+     * @return true if {@code endTime} changed
+     */
+    public boolean extendForLateBid(Instant now, Duration window, Duration extension) {
+        if (now.plus(window).isBefore(endTime)) {
+            return false;
+        }
+        Instant extendedEnd = now.plus(extension);
+        if (!extendedEnd.isAfter(endTime)) {
+            return false;
+        }
+        this.endTime = extendedEnd;
+        return true;
+    }
+
+    /**
+     * Inserts {@code bid} into the top bids by amount and drops whatever falls past {@code size}.
+     * Accepted bids always raise the price, so in practice this prepends and trims.
+     */
+    public void recordTopBid(TopBid bid, int size) {
+        int position = 0;
+        while (position < topBids.size() && topBids.get(position).amount().compareTo(bid.amount()) >= 0) {
+            position++;
+        }
+        if (position >= size) {
+            return;
+        }
+        List<TopBid> updated = new ArrayList<>(topBids);
+        updated.add(position, bid);
+        this.topBids = List.copyOf(updated.subList(0, Math.min(updated.size(), size)));
+    }
+
+    public void incrementBidderCount() {
+        this.bidderCount++;
     }
-}
 
+    /**
+     * For a detached copy whose changes are written without JPA (the bid engine's): counts one
+     * such write, so the copy's version matches the row's once the write is in.
+     */
+    public long incrementVersion() {
+        return ++version;
+    }
+}
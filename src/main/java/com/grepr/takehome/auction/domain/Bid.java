@@ -2,21 +2,33 @@ package com.grepr.takehome.auction.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
+import org.springframework.data.domain.Persistable;
 
+/**
+ * A placed bid. {@code bids} is range-partitioned on {@code created_at}, and the primary key is
+ * {@code (id, created_at)}; {@code id} alone is still unique because it is generated here.
+ *
+ * <p>Bids are never updated, so new instances report {@link #isNew()} and {@code save} inserts
+ * directly instead of merging, which would first look the id up across every partition.
+ */
 @Entity
 @Table(name = "bids")
-public class Bid {
+public class Bid implements Persistable<UUID> {
   @Id
   private UUID id;
 
-  @ManyToOne(optional = false)
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
   @JoinColumn(name = "auction_id", nullable = false)
   private Auction auction;
 
@@ -29,6 +41,9 @@ public class Bid {
   @Column(name = "created_at", nullable = false)
   private Instant createdAt;
 
+  @Transient
+  private boolean isNew = true;
+
   protected Bid() {}
 
   public Bid(UUID id, Auction auction, UUID bidderUserId, BigDecimal amount, Instant createdAt) {
@@ -39,6 +54,7 @@ public class Bid {
     this.createdAt = createdAt;
   }
 
+  @Override
   public UUID getId() {
     return id;
   }
@@ -58,5 +74,15 @@ public class Bid {
   public Instant getCreatedAt() {
     return createdAt;
   }
-}
 
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+}
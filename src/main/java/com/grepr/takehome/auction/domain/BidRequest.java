@@ -0,0 +1,105 @@
+package com.grepr.takehome.auction.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * A bid submission that carried an idempotency key, and the bid it produced. The primary key
+ * {@code (bidder_user_id, idempotency_key)} is what makes a retried request find the original bid
+ * even after the in-memory dedupe window has forgotten it.
+ *
+ * <p>Written once, in the same transaction as the bid, so {@link #isNew()} lets {@code save} insert
+ * without a lookup first.
+ */
+@Entity
+@Table(name = "bid_requests")
+public class BidRequest implements Persistable<BidRequest.Key> {
+  @Embeddable
+  public record Key(
+      @Column(name = "bidder_user_id", nullable = false) UUID bidderUserId,
+      @Column(name = "idempotency_key", nullable = false) String idempotencyKey
+  ) {}
+
+  @EmbeddedId
+  private Key id;
+
+  @Column(name = "item_id", nullable = false)
+  private UUID itemId;
+
+  @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+  private BigDecimal amount;
+
+  @Column(name = "bid_id", nullable = false)
+  private UUID bidId;
+
+  @Column(name = "bid_created_at", nullable = false)
+  private Instant bidCreatedAt;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Transient
+  private boolean isNew = true;
+
+  protected BidRequest() {}
+
+  public BidRequest(Key id, UUID itemId, BigDecimal amount, UUID bidId, Instant bidCreatedAt, Instant createdAt) {
+    this.id = id;
+    this.itemId = itemId;
+    this.amount = amount;
+    this.bidId = bidId;
+    this.bidCreatedAt = bidCreatedAt;
+    this.createdAt = createdAt;
+  }
+
+  @Override
+  public Key getId() {
+    return id;
+  }
+
+  public UUID getItemId() {
+    return itemId;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public UUID getBidId() {
+    return bidId;
+  }
+
+  public Instant getBidCreatedAt() {
+    return bidCreatedAt;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  /** Whether a retry asks for the same bid; amounts compare by value, so {@code 12} matches {@code 12.00}. */
+  public boolean matches(UUID itemId, BigDecimal amount) {
+    return this.itemId.equals(itemId) && this.amount.compareTo(amount) == 0;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+}
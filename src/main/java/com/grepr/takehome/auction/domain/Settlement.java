@@ -0,0 +1,87 @@
+package com.grepr.takehome.auction.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The result of a closed auction: winner, final price and bid counts as of the close. Inserted only
+ * by {@code SettlementRepository.settle}, in the transaction that closes the auction, and never
+ * changed afterwards.
+ */
+@Entity
+@Immutable
+@Table(name = "auction_settlements")
+public class Settlement {
+  /** Assigned in commit order; the cursor of the settlements feed. */
+  @Id
+  @Column(name = "sequence")
+  private long sequence;
+
+  @Column(name = "auction_id", nullable = false)
+  private UUID auctionId;
+
+  @Column(name = "item_id", nullable = false)
+  private UUID itemId;
+
+  @Column(name = "winner_user_id")
+  private UUID winnerUserId;
+
+  @Column(name = "final_price", nullable = false, precision = 19, scale = 2)
+  private BigDecimal finalPrice;
+
+  @Column(name = "bid_count", nullable = false)
+  private int bidCount;
+
+  @Column(name = "bidder_count", nullable = false)
+  private int bidderCount;
+
+  @Column(name = "closed_at", nullable = false)
+  private Instant closedAt;
+
+  @Column(name = "settled_at", nullable = false)
+  private Instant settledAt;
+
+  protected Settlement() {}
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public UUID getAuctionId() {
+    return auctionId;
+  }
+
+  public UUID getItemId() {
+    return itemId;
+  }
+
+  public UUID getWinnerUserId() {
+    return winnerUserId;
+  }
+
+  public BigDecimal getFinalPrice() {
+    return finalPrice;
+  }
+
+  public int getBidCount() {
+    return bidCount;
+  }
+
+  public int getBidderCount() {
+    return bidderCount;
+  }
+
+  public Instant getClosedAt() {
+    return closedAt;
+  }
+
+  public Instant getSettledAt() {
+    return settledAt;
+  }
+}
@@ -0,0 +1,13 @@
+package com.grepr.takehome.auction.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/** An entry of {@link Auction#getTopBids()}, stored as JSON on the auction row. */
+public record TopBid(
+    UUID bidId,
+    UUID bidderUserId,
+    BigDecimal amount,
+    Instant createdAt
+) {}
@@ -0,0 +1,445 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.domain.TopBid;
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.ServiceUnavailableException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.observability.AuctionMetrics.BidRejectedReason;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
+import com.grepr.takehome.auction.realtime.AuctionEventMapper;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
+import com.grepr.takehome.auction.realtime.AuctionEventType;
+import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.repo.ItemRepository;
+import com.grepr.takehome.auction.repo.UserRepository;
+import com.grepr.takehome.auction.service.AuctionActivityTracker;
+import com.grepr.takehome.auction.service.BidReceipt;
+import com.grepr.takehome.auction.service.BidValidator;
+import com.grepr.takehome.auction.util.UuidUtils;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory bidding engine, enabled with {@code auction.engine.enabled}.
+ *
+ * <p>Items are hash-partitioned over {@code auction.engine.shards} single-threaded loops (default:
+ * one per core). A loop owns the state of its items outright: bids, soft-close extensions and
+ * open/close transitions for an item all run on its loop, one at a time, with no locks and no row
+ * lock in Postgres. Changes go to the {@link BidSink}, which batches them across bids; a bid is
+ * acknowledged and its events are published, from the loop, once it is durable.
+ *
+ * <p>Publishing fills in the item's {@link AuctionEventPublisher.Ticket}; the fan-out to subscribers
+ * itself runs on the publisher's delivery threads, in ticket order, so a hot item's subscribers do
+ * not hold up the bids of the other items on its loop. With {@code auction.events.delivery-threads}
+ * set to 0 the fan-out runs on the loop instead.
+ *
+ * <p>An item's state is loaded from the primary the first time the engine sees it, once the sink
+ * has all of the item's earlier writes in the database ({@link BidSink#awaitWritten}), and dropped
+ * once the auction has closed; a late bid on a closed auction reads it but does not keep it. The
+ * read happens off the loop, so a state read before the scheduler's fallback changed the same item
+ * on the loop is dropped there and read again.
+ *
+ * <p>Each loop queues at most {@code max-queued-per-shard} bids and rejects the rest with 429,
+ * which replaces the per-item bulkhead in this mode.
+ *
+ * <p>A bid still queued after {@code bid-timeout-ms} is taken back and answered with 429. One the
+ * loop has already taken up may yet be placed, so it is answered with 503 saying so.
+ */
+@Component
+@ConditionalOnProperty(name = "auction.engine.enabled", havingValue = "true")
+public class AuctionEngine {
+  private static final Logger log = LoggerFactory.getLogger(AuctionEngine.class);
+  // Reads of an item's state per bid before giving up; more than one only if the fallback keeps
+  // changing the item meanwhile.
+  private static final int MAX_LOAD_ATTEMPTS = 3;
+
+  private final Clock clock;
+  private final ItemRepository itemRepository;
+  private final AuctionRepository auctionRepository;
+  private final UserRepository userRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final BidSink sink;
+  private final AuctionEventPublisher eventPublisher;
+  private final AuctionEventMapper eventMapper;
+  private final AuctionMetrics metrics;
+  private final AuctionActivityTracker activityTracker;
+  private final int leaderboardSize;
+  private final boolean softCloseEnabled;
+  private final Duration softCloseWindow;
+  private final Duration softCloseExtension;
+  private final int maxQueuedPerShard;
+  private final long bidTimeoutNanos;
+  private final Duration retryAfter;
+  private final int maxKnownUsers;
+  // A state read longer ago than this is read again rather than checked against fallback transitions.
+  private final long staleLoadNanos;
+  // Bidders seen to exist. Users are never deleted, so only the first bid of each is looked up.
+  private final Set<UUID> knownUsers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong loads = new AtomicLong();
+  private final Shard[] shards;
+
+  private static final class Shard {
+    private final ExecutorService loop;
+    private final AtomicInteger queuedBids = new AtomicInteger();
+    // Only changed on the loop thread; concurrent so other threads can look keys up.
+    private final Map<UUID, AuctionState> states = new ConcurrentHashMap<>();
+    // Loop thread only: when the fallback last changed an item the shard does not hold, for
+    // staleLoadNanos.
+    private final Map<UUID, Long> refreshedNanos = new HashMap<>();
+
+    private Shard(int index) {
+      this.loop = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("auction-engine-" + index).daemon().factory());
+    }
+  }
+
+  public AuctionEngine(
+      Clock clock,
+      ItemRepository itemRepository,
+      AuctionRepository auctionRepository,
+      UserRepository userRepository,
+      TransactionTemplate transactionTemplate,
+      BidSink sink,
+      AuctionEventPublisher eventPublisher,
+      AuctionEventMapper eventMapper,
+      AuctionMetrics metrics,
+      AuctionActivityTracker activityTracker,
+      @Value("${auction.engine.shards:0}") int shardCount,
+      @Value("${auction.engine.max-queued-per-shard:10000}") int maxQueuedPerShard,
+      @Value("${auction.engine.bid-timeout-ms:5000}") long bidTimeoutMs,
+      @Value("${auction.engine.max-known-users:100000}") int maxKnownUsers,
+      @Value("${auction.bids.admission.retry-after-ms:200}") long retryAfterMs,
+      @Value("${auction.leaderboard.size:10}") int leaderboardSize,
+      @Value("${auction.soft-close.enabled:false}") boolean softCloseEnabled,
+      @Value("${auction.soft-close.window-seconds:10}") long softCloseWindowSeconds,
+      @Value("${auction.soft-close.extension-seconds:10}") long softCloseExtensionSeconds
+  ) {
+    this.clock = clock;
+    this.itemRepository = itemRepository;
+    this.auctionRepository = auctionRepository;
+    this.userRepository = userRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.sink = sink;
+    this.eventPublisher = eventPublisher;
+    this.eventMapper = eventMapper;
+    this.metrics = metrics;
+    this.activityTracker = activityTracker;
+    this.maxQueuedPerShard = maxQueuedPerShard;
+    this.bidTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(bidTimeoutMs);
+    this.retryAfter = Duration.ofMillis(retryAfterMs);
+    this.maxKnownUsers = maxKnownUsers;
+    // The read waits for the sink for up to a bid timeout, and the bid for the loop for another.
+    this.staleLoadNanos = 3 * bidTimeoutNanos;
+    this.leaderboardSize = leaderboardSize;
+    this.softCloseEnabled = softCloseEnabled;
+    this.softCloseWindow = Duration.ofSeconds(softCloseWindowSeconds);
+    this.softCloseExtension = Duration.ofSeconds(softCloseExtensionSeconds);
+    this.shards = new Shard[shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors()];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new Shard(i);
+    }
+    log.info("Auction engine running with {} shards", shards.length);
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (Shard shard : shards) {
+      shard.loop.shutdown();
+    }
+  }
+
+  /**
+   * Places a bid on the item's loop and waits until it is durable.
+   *
+   * @throws TooManyRequestsException if the loop already has {@code max-queued-per-shard} bids queued,
+   *     or did not get to the bid within {@code bid-timeout-ms}
+   * @throws ServiceUnavailableException if the bid was taken up but is not durable within
+   *     {@code bid-timeout-ms}; it may still be placed
+   */
+  public BidReceipt placeBid(UUID itemId, UUID bidderUserId, BigDecimal amount) {
+    if (!knownUsers.contains(bidderUserId)) {
+      if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> userRepository.existsById(bidderUserId)))) {
+        metrics.incrementBidRejected(BidRejectedReason.UNKNOWN_USER);
+        if (shardFor(itemId).states.containsKey(itemId)) {
+          // Only an item the engine has loaded is known to exist.
+          activityTracker.recordRejected(itemId);
+        }
+        throw new BadRequestException("Unknown user: " + bidderUserId);
+      }
+      if (knownUsers.size() >= maxKnownUsers) {
+        knownUsers.clear();
+      }
+      knownUsers.add(bidderUserId);
+    }
+    // Rounded the way the numeric(19, 2) columns round it, so memory matches what is written.
+    BigDecimal rounded = amount.setScale(2, RoundingMode.HALF_UP);
+    Shard shard = shardFor(itemId);
+    // Loading happens here, off the loop; the loop only installs the result if it still needs it.
+    BidReceipt receipt = submitBid(shard, itemId, bidderUserId, rounded, shard.states.containsKey(itemId) ? null : load(itemId));
+    for (int attempt = 1; receipt == null; attempt++) {
+      // Dropped between the check and the loop getting to it, or read before a fallback transition.
+      if (attempt == MAX_LOAD_ATTEMPTS) {
+        metrics.incrementBidRejected(BidRejectedReason.OVERLOADED);
+        throw new TooManyRequestsException("Auction state is changing while being loaded, retry later", retryAfter);
+      }
+      receipt = submitBid(shard, itemId, bidderUserId, rounded, load(itemId));
+    }
+    return receipt;
+  }
+
+  /**
+   * Applies due opens/closes for the state scheduler, each on its item's loop. Per loop, the
+   * auctions the engine has not loaded are handed to {@code fallback} together, on the loop as
+   * well, so it cannot interleave with a bid loading one of those items.
+   *
+   * @return completes once every loop has gone through its share of {@code due}
+   */
+  public CompletableFuture<Void> refreshStatuses(List<Auction> due, Consumer<List<Auction>> fallback) {
+    Map<Shard, List<Auction>> byShard = new HashMap<>();
+    for (Auction auction : due) {
+      byShard.computeIfAbsent(shardFor(auction.getItem().getId()), shard -> new ArrayList<>()).add(auction);
+    }
+    List<CompletableFuture<Void>> refreshed = new ArrayList<>(byShard.size());
+    byShard.forEach((shard, auctions) -> refreshed.add(CompletableFuture.runAsync(() -> {
+      long started = System.nanoTime();
+      shard.refreshedNanos.values().removeIf(at -> started - at > staleLoadNanos);
+      Instant now = Instant.now(clock);
+      List<Auction> unloaded = new ArrayList<>();
+      for (Auction auction : auctions) {
+        UUID itemId = auction.getItem().getId();
+        AuctionState state = shard.states.get(itemId);
+        if (state != null) {
+          transition(shard, state, now);
+        } else if (sink.awaitWritten(itemId, Duration.ZERO)) {
+          unloaded.add(auction);
+        }
+        // Otherwise the database may not have the item's latest state yet; the next tick retries.
+      }
+      if (!unloaded.isEmpty()) {
+        try {
+          fallback.accept(unloaded);
+        } catch (RuntimeException e) {
+          log.warn("Failed to refresh the status of {} auctions", unloaded.size(), e);
+        } finally {
+          // Taken once the fallback has committed: a read started after this sees its changes.
+          long refreshedAt = System.nanoTime();
+          unloaded.forEach(auction -> shard.refreshedNanos.put(auction.getItem().getId(), refreshedAt));
+        }
+      }
+    }, shard.loop)));
+    return CompletableFuture.allOf(refreshed.toArray(CompletableFuture[]::new));
+  }
+
+  private Shard shardFor(UUID itemId) {
+    return shards[Math.floorMod(itemId.hashCode(), shards.length)];
+  }
+
+  private AuctionState load(UUID itemId) {
+    long started = System.nanoTime();
+    if (!sink.awaitWritten(itemId, Duration.ofNanos(bidTimeoutNanos))) {
+      throw new TooManyRequestsException("Auction state is still being written, retry later", retryAfter);
+    }
+    // Read-write transaction so this reads the primary, not a possibly stale replica.
+    return transactionTemplate.execute(status -> {
+      Auction auction = auctionRepository.findByItem_Id(itemId).orElse(null);
+      if (auction == null) {
+        throw new NotFoundException(itemRepository.existsById(itemId)
+            ? "Auction not found for item: " + itemId
+            : "Item not found: " + itemId);
+      }
+      return new AuctionState(
+          itemId, auction, new HashSet<>(auctionRepository.findBidderIds(auction.getId())), loads.incrementAndGet(), started);
+    });
+  }
+
+  private BidReceipt submitBid(Shard shard, UUID itemId, UUID bidderUserId, BigDecimal amount, AuctionState loaded) {
+    if (shard.queuedBids.incrementAndGet() > maxQueuedPerShard) {
+      shard.queuedBids.decrementAndGet();
+      metrics.incrementBidRejected(BidRejectedReason.OVERLOADED);
+      throw new TooManyRequestsException("Too many bids queued for this auction engine shard, retry later", retryAfter);
+    }
+    CompletableFuture<BidReceipt> receipt = new CompletableFuture<>();
+    // Taken by the loop when it starts on the bid, or by this thread when it gives up waiting first.
+    AtomicBoolean claimed = new AtomicBoolean();
+    shard.loop.execute(() -> {
+      shard.queuedBids.decrementAndGet();
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        bidOnLoop(shard, itemId, bidderUserId, amount, loaded, receipt);
+      } catch (RuntimeException e) {
+        receipt.completeExceptionally(e);
+      }
+    });
+
+    try {
+      return receipt.get(bidTimeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      if (claimed.compareAndSet(false, true)) {
+        metrics.incrementBidRejected(BidRejectedReason.OVERLOADED);
+        throw new TooManyRequestsException("Auction engine shard is too busy, bid not placed, retry later", retryAfter);
+      }
+      throw new ServiceUnavailableException(
+          "Timed out waiting for the bid to be written; it may still be placed, check the item's bids before retrying",
+          retryAfter);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while placing the bid", e);
+    }
+  }
+
+  /**
+   * Completes {@code receipt} with {@code null} if the item is not loaded and nothing usable was
+   * passed in: nothing, or a state that may predate a fallback transition of the item.
+   */
+  private void bidOnLoop(
+      Shard shard,
+      UUID itemId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      AuctionState loaded,
+      CompletableFuture<BidReceipt> receipt
+  ) {
+    AuctionState state = shard.states.get(itemId);
+    if (state == null) {
+      if (loaded == null || !isCurrent(shard, loaded)) {
+        receipt.complete(null);
+        return;
+      }
+      state = loaded;
+      if (state.auction().getStatus() != AuctionStatus.CLOSED) {
+        shard.states.put(itemId, state);
+      }
+      // A closed one is only read to reject this bid: nothing moves it on, so nothing would drop it.
+    }
+
+    Instant now = Instant.now(clock);
+    transition(shard, state, now);
+    Auction auction = state.auction();
+    BidValidator.Rejection rejection = BidValidator.check(
+        auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), amount);
+    if (rejection != null) {
+      metrics.incrementBidRejected(rejection.reason());
+      activityTracker.recordRejected(itemId);
+      receipt.completeExceptionally(new BadRequestException(rejection.message()));
+      return;
+    }
+
+    boolean newBidder = state.bidders().add(bidderUserId);
+    Bid bid = new Bid(UuidUtils.timeOrdered(), auction, bidderUserId, amount, now);
+    auction.applyWinningBid(bidderUserId, amount);
+    auction.recordTopBid(new TopBid(bid.getId(), bidderUserId, amount, now), leaderboardSize);
+    if (newBidder) {
+      auction.incrementBidderCount();
+    }
+    boolean extended = softCloseEnabled && auction.extendForLateBid(now, softCloseWindow, softCloseExtension);
+
+    // Built now: by the time the write is durable, later bids may have changed the auction again.
+    AuctionEvent placed = eventMapper.bidPlaced(itemId, auction, bid, now);
+    AuctionEvent extendedEvent = extended
+        ? eventMapper.auctionEvent(AuctionEventType.AUCTION_EXTENDED, itemId, auction, now)
+        : null;
+    BidReceipt accepted = BidReceipt.of(bid, false);
+    List<AuctionEvent> events = extendedEvent == null ? List.of(placed) : List.of(placed, extendedEvent);
+    persistThen(shard, state, AuctionWrite.of(state, bid, newBidder), events, () -> {
+      metrics.incrementBidAccepted();
+      activityTracker.recordAccepted(itemId);
+      receipt.complete(accepted);
+    }, receipt::completeExceptionally);
+  }
+
+  /** Whether {@code loaded} was read after the item's last fallback transition. Loop thread only. */
+  private boolean isCurrent(Shard shard, AuctionState loaded) {
+    if (System.nanoTime() - loaded.loadedNanos() > staleLoadNanos) {
+      // The transition it would have to be checked against may have been forgotten.
+      return false;
+    }
+    Long refreshed = shard.refreshedNanos.get(loaded.itemId());
+    return refreshed == null || loaded.loadedNanos() - refreshed > 0;
+  }
+
+  private void transition(Shard shard, AuctionState state, Instant now) {
+    Auction auction = state.auction();
+    if (!auction.refreshStatus(now)) {
+      return;
+    }
+    boolean closed = auction.getStatus() == AuctionStatus.CLOSED;
+    AuctionEvent event = eventMapper.auctionEvent(
+        closed ? AuctionEventType.AUCTION_CLOSED : AuctionEventType.AUCTION_OPENED, state.itemId(), auction, now);
+    persistThen(shard, state, AuctionWrite.of(state, null, false), List.of(event), () -> {
+      if (closed) {
+        // Nothing changes a closed auction any more; a late bid reloads it and is rejected.
+        shard.states.remove(state.itemId(), state);
+      }
+    }, error -> {});
+  }
+
+  /**
+   * Runs {@code onDurable} on the shard's loop once {@code write} is durable, then publishes
+   * {@code events}. Their place in the item's event order is taken now, in the order the loop
+   * applies changes, whatever order the sink completes them in.
+   */
+  private void persistThen(
+      Shard shard,
+      AuctionState state,
+      AuctionWrite write,
+      List<AuctionEvent> events,
+      Runnable onDurable,
+      Consumer<Throwable> onFailure
+  ) {
+    AuctionEventPublisher.Ticket ticket = eventPublisher.reserve(state.itemId());
+    sink.submit(write).whenCompleteAsync((ignored, error) -> {
+      if (error == null) {
+        try {
+          onDurable.run();
+        } finally {
+          ticket.publish(events);
+        }
+        return;
+      }
+      ticket.cancel();
+      // Memory is now ahead of the database; drop the state so the next bid reloads it. The sink
+      // fails this state's writes queued behind this one too (FailedWrites).
+      shard.states.remove(state.itemId(), state);
+      onFailure.accept(error);
+    }, shard.loop);
+  }
+}
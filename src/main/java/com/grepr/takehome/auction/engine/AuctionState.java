@@ -0,0 +1,13 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.domain.Auction;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An auction owned by one engine shard: a detached {@link Auction} that only the shard's thread
+ * reads or changes, and the ids of everyone who has bid on it (for the distinct bidder count).
+ * {@code generation} tells this load of the item apart from earlier ones; {@code loadedNanos} is
+ * when the read started ({@link System#nanoTime()}).
+ */
+record AuctionState(UUID itemId, Auction auction, Set<UUID> bidders, long generation, long loadedNanos) {}
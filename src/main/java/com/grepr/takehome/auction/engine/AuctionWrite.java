@@ -0,0 +1,59 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.domain.TopBid;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One change made by a shard, handed to the {@link BidSink}: the auction row as it stands after the
+ * change, plus the bid that caused it, if any. Rows are written whole, so when several writes for
+ * one auction are flushed together only the last one's row matters.
+ *
+ * <p>{@code version} is the auction row's version once the write is in; the sink only applies the
+ * row over an older one. {@code generation} identifies the engine's load of the item the write
+ * comes from (see {@link FailedWrites}). It is not journaled: writes read back from the journal
+ * have 0.
+ */
+public record AuctionWrite(
+    UUID itemId,
+    UUID auctionId,
+    AuctionStatus status,
+    Instant endTime,
+    BigDecimal currentPrice,
+    UUID currentWinnerUserId,
+    Instant closedAt,
+    List<TopBid> topBids,
+    int bidCount,
+    int bidderCount,
+    NewBid bid,
+    long version,
+    long generation
+) {
+  public record NewBid(UUID id, UUID bidderUserId, BigDecimal amount, Instant createdAt, boolean newBidder) {}
+
+  /** Takes the auction's next version for the write. */
+  static AuctionWrite of(AuctionState state, Bid bid, boolean newBidder) {
+    Auction auction = state.auction();
+    long version = auction.incrementVersion();
+    return new AuctionWrite(
+        state.itemId(),
+        auction.getId(),
+        auction.getStatus(),
+        auction.getEndTime(),
+        auction.getCurrentPrice(),
+        auction.getCurrentWinnerUserId(),
+        auction.getClosedAt(),
+        auction.getTopBids(),
+        auction.getBidCount(),
+        auction.getBidderCount(),
+        bid == null ? null : new NewBid(bid.getId(), bid.getBidderUserId(), bid.getAmount(), bid.getCreatedAt(), newBidder),
+        version,
+        state.generation()
+    );
+  }
+}
@@ -0,0 +1,435 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local append-only journal of engine changes, enabled with {@code auction.engine.journal.enabled}.
+ * With it, a bid is durable (and acknowledged) once it is in the journal rather than in Postgres.
+ *
+ * <p>The journal is a series of memory-mapped segment files of {@code segment-bytes} in
+ * {@code dir}. One writer thread appends whatever has queued up, forces the segment once for the
+ * whole group and only then completes the futures, so acknowledging a bid costs a sequential local
+ * write and a share of one fsync.
+ *
+ * <p>A record is {@code [length][crc32c][sequence][payload]}, the checksum covering the sequence and
+ * the {@link JournalCodec payload}. On startup the segments are scanned and the first record that
+ * does not check out is taken as the end, which cuts off a write torn by a crash. The
+ * {@link JournalProjector} copies records into Postgres and reports how far it got; that position
+ * is checkpointed in {@code dir/projected}, and segments that are entirely behind it are deleted.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "auction.engine.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "auction.engine.journal.enabled", havingValue = "true")
+public class BidJournal implements BidSink {
+  private static final Logger log = LoggerFactory.getLogger(BidJournal.class);
+  private static final int HEADER_BYTES = 16;
+  private static final int MAX_RECORD_BYTES = 64 * 1024;
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final AuctionMetrics metrics;
+  private final Path dir;
+  private final int segmentBytes;
+  private final int maxBatch;
+  private final boolean fsync;
+  private final FileChannel checkpoint;
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  // Keyed by the sequence of the segment's first record.
+  private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  // Items with records that are not projected yet, with the sequence of their latest record.
+  private final Map<UUID, Long> unprojected = new ConcurrentHashMap<>();
+  private final Object progress = new Object();
+  private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_BYTES);
+  private final CRC32C crc = new CRC32C();
+  // Writer thread only.
+  private final FailedWrites failed = new FailedWrites();
+  private Thread writer;
+
+  // Writer thread only, once the constructor is done.
+  private Segment active;
+  private long nextSequence;
+
+  private volatile long durableSequence;
+  private volatile long projectedSequence;
+
+  /** Something read back from the journal. */
+  record JournalRecord(long sequence, AuctionWrite write) {}
+
+  private record Pending(AuctionWrite write, CompletableFuture<Void> durable) {}
+
+  private static final class Segment {
+    private final long firstSequence;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writeOffset;
+
+    private Segment(long firstSequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+      this.firstSequence = firstSequence;
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+  }
+
+  public BidJournal(
+      AuctionMetrics metrics,
+      @Value("${auction.engine.journal.dir:data/journal}") Path dir,
+      @Value("${auction.engine.journal.segment-bytes:67108864}") int segmentBytes,
+      @Value("${auction.engine.journal.max-batch:1000}") int maxBatch,
+      @Value("${auction.engine.journal.fsync:true}") boolean fsync
+  ) throws IOException {
+    if (segmentBytes < HEADER_BYTES + MAX_RECORD_BYTES) {
+      throw new IllegalArgumentException("auction.engine.journal.segment-bytes must be at least " + (HEADER_BYTES + MAX_RECORD_BYTES));
+    }
+    this.metrics = metrics;
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+    this.maxBatch = maxBatch;
+    this.fsync = fsync;
+    Files.createDirectories(dir);
+    this.checkpoint = FileChannel.open(dir.resolve("projected"),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    recover();
+  }
+
+  /** Starts the writer; anything submitted before then waits in the queue. */
+  @PostConstruct
+  void start() {
+    metrics.registerJournalLagGauge(this, journal -> journal.durableSequence - journal.projectedSequence);
+    writer = Thread.ofPlatform().name("auction-journal-writer").daemon().start(this::run);
+  }
+
+  @Override
+  public CompletableFuture<Void> submit(AuctionWrite write) {
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+    queue.add(new Pending(write, durable));
+    return durable;
+  }
+
+  @Override
+  public boolean awaitWritten(UUID itemId, Duration timeout) {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    synchronized (progress) {
+      while (unprojected.containsKey(itemId)) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        try {
+          progress.wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException, IOException {
+    writer.interrupt();
+    writer.join(TimeUnit.SECONDS.toMillis(5));
+    for (Segment segment : segments.values()) {
+      segment.channel.close();
+    }
+    checkpoint.close();
+  }
+
+  long projectedSequence() {
+    return projectedSequence;
+  }
+
+  /** Reads the records after {@code afterSequence}, up to what is durable. Not thread-safe. */
+  Cursor cursor(long afterSequence) {
+    return new Cursor(afterSequence);
+  }
+
+  /** Waits until a record after {@code afterSequence} is durable, for at most {@code timeoutMillis}. */
+  void awaitRecords(long afterSequence, long timeoutMillis) throws InterruptedException {
+    synchronized (progress) {
+      if (durableSequence <= afterSequence) {
+        progress.wait(timeoutMillis);
+      }
+    }
+  }
+
+  /**
+   * Records that everything up to {@code sequence} is in the database. {@code items} maps each item
+   * the projected records touched to the last of its sequences among them.
+   */
+  void markProjected(long sequence, Map<UUID, Long> items) {
+    try {
+      checkpoint.write(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence), 0);
+      checkpoint.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to checkpoint the journal", e);
+    }
+    projectedSequence = sequence;
+    items.forEach(unprojected::remove);
+    synchronized (progress) {
+      progress.notifyAll();
+    }
+
+    // A segment is done once the segment after it starts at or before the next record to project.
+    Map.Entry<Long, Segment> first;
+    while ((first = segments.firstEntry()) != null) {
+      Long next = segments.higherKey(first.getKey());
+      if (next == null || next > sequence + 1) {
+        break;
+      }
+      segments.remove(first.getKey());
+      try {
+        first.getValue().channel.close();
+        Files.delete(first.getValue().path);
+      } catch (IOException e) {
+        log.warn("Failed to delete projected journal segment {}", first.getValue().path, e);
+      }
+    }
+  }
+
+  private void run() {
+    List<Pending> batch = new ArrayList<>(maxBatch);
+    List<Pending> appended = new ArrayList<>(maxBatch);
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      queue.drainTo(batch, maxBatch - 1);
+      for (Pending pending : batch) {
+        if (failed.follows(pending.write())) {
+          pending.durable().completeExceptionally(FailedWrites.failure(pending.write()));
+          continue;
+        }
+        try {
+          append(pending.write());
+          appended.add(pending);
+        } catch (RuntimeException e) {
+          log.warn("Failed to journal an engine change for item {}", pending.write().itemId(), e);
+          failed.failed(pending.write());
+          pending.durable().completeExceptionally(e);
+        }
+      }
+      try {
+        force(active);
+        durableSequence = nextSequence - 1;
+        appended.forEach(pending -> pending.durable().complete(null));
+      } catch (RuntimeException e) {
+        log.error("Failed to force the journal, {} engine changes are not acknowledged", appended.size(), e);
+        appended.forEach(pending -> pending.durable().completeExceptionally(e));
+      }
+      synchronized (progress) {
+        progress.notifyAll();
+      }
+      batch.clear();
+      appended.clear();
+    }
+    queue.forEach(pending -> pending.durable().completeExceptionally(new IllegalStateException("Journal stopped")));
+  }
+
+  private void append(AuctionWrite write) {
+    scratch.clear();
+    JournalCodec.encode(write, scratch);
+    int length = scratch.position();
+    if (active.writeOffset + HEADER_BYTES + length > active.buffer.capacity()) {
+      force(active);
+      active = openSegment(nextSequence, segmentBytes);
+    }
+    long sequence = nextSequence;
+    int offset = active.writeOffset;
+    MappedByteBuffer buffer = active.buffer;
+    buffer.putLong(offset + 8, sequence);
+    buffer.put(offset + HEADER_BYTES, scratch, 0, length);
+    buffer.putInt(offset + 4, checksum(buffer, offset, length));
+    buffer.putInt(offset, length);
+    active.writeOffset = offset + HEADER_BYTES + length;
+    nextSequence = sequence + 1;
+    unprojected.put(write.itemId(), sequence);
+  }
+
+  private void force(Segment segment) {
+    if (fsync) {
+      segment.buffer.force();
+    }
+  }
+
+  private int checksum(MappedByteBuffer buffer, int offset, int length) {
+    crc.reset();
+    crc.update(buffer.slice(offset + 8, 8 + length));
+    return (int) crc.getValue();
+  }
+
+  /** Length of the valid record at {@code offset}, or -1 if there is none there. */
+  private int recordLength(Segment segment, int offset, CRC32C check) {
+    MappedByteBuffer buffer = segment.buffer;
+    if (offset + HEADER_BYTES > buffer.capacity()) {
+      return -1;
+    }
+    int length = buffer.getInt(offset);
+    if (length <= 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > buffer.capacity()) {
+      return -1;
+    }
+    check.reset();
+    check.update(buffer.slice(offset + 8, 8 + length));
+    return (int) check.getValue() == buffer.getInt(offset + 4) ? length : -1;
+  }
+
+  private void recover() throws IOException {
+    ByteBuffer saved = ByteBuffer.allocate(Long.BYTES);
+    long projected = checkpoint.read(saved, 0) == Long.BYTES ? saved.getLong(0) : 0;
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(dir)) {
+      files = listing
+          .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .sorted()
+          .toList();
+    }
+
+    long expected = projected + 1;
+    int records = 0;
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      long firstSequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+      Segment segment = openSegment(firstSequence, (int) Files.size(file));
+      if (active == null) {
+        // Segments entirely before the checkpoint are deleted as it moves past them.
+        if (firstSequence > expected) {
+          throw new IllegalStateException("Journal records " + expected + " to " + (firstSequence - 1) + " are missing");
+        }
+        expected = firstSequence;
+      } else if (firstSequence != expected) {
+        throw new IllegalStateException("Journal segment " + file + " does not follow on from sequence " + (expected - 1));
+      }
+      int offset = 0;
+      int length;
+      while ((length = recordLength(segment, offset, crc)) > 0) {
+        long sequence = segment.buffer.getLong(offset + 8);
+        if (sequence != expected) {
+          throw new IllegalStateException("Journal segment " + file + " has sequence " + sequence + " where " + expected + " was expected");
+        }
+        if (sequence > projected) {
+          unprojected.put(JournalCodec.decode(segment.buffer.slice(offset + HEADER_BYTES, length)).itemId(), sequence);
+          records++;
+        }
+        offset += HEADER_BYTES + length;
+        expected++;
+      }
+      segment.writeOffset = offset;
+      active = segment;
+    }
+
+    if (active == null) {
+      active = openSegment(expected, segmentBytes);
+    } else {
+      // Whatever follows the last good record is a torn write; clear it so it can never be read as one.
+      MappedByteBuffer buffer = active.buffer;
+      for (int i = active.writeOffset; i < buffer.capacity(); i++) {
+        if (buffer.get(i) != 0) {
+          buffer.put(i, (byte) 0);
+        }
+      }
+      force(active);
+    }
+    nextSequence = expected;
+    durableSequence = expected - 1;
+    projectedSequence = projected;
+    log.info("Journal opened in {}: {} segments, {} records not projected yet", dir, segments.size(), records);
+  }
+
+  private Segment openSegment(long firstSequence, int bytes) {
+    Path path = dir.resolve(SEGMENT_PREFIX + "%020d".formatted(firstSequence) + SEGMENT_SUFFIX);
+    try {
+      boolean created = !Files.exists(path);
+      FileChannel channel = FileChannel.open(path,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      Segment segment = new Segment(firstSequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes));
+      if (created && fsync) {
+        // Make the new file's directory entry durable too.
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+          directory.force(true);
+        }
+      }
+      segments.put(firstSequence, segment);
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open journal segment " + path, e);
+    }
+  }
+
+  /** Reads records in order, across segments. Only ever used by one thread at a time. */
+  final class Cursor {
+    private final CRC32C check = new CRC32C();
+    private long lastSequence;
+    private Segment segment;
+    private int offset;
+
+    private Cursor(long afterSequence) {
+      this.lastSequence = afterSequence;
+      Map.Entry<Long, Segment> start = segments.floorEntry(afterSequence + 1);
+      this.segment = start != null ? start.getValue() : segments.firstEntry().getValue();
+    }
+
+    long lastSequence() {
+      return lastSequence;
+    }
+
+    /** The next durable record, or null if there is none yet. */
+    JournalRecord next() {
+      while (lastSequence < durableSequence) {
+        int length = recordLength(segment, offset, check);
+        if (length < 0) {
+          Map.Entry<Long, Segment> following = segments.higherEntry(segment.firstSequence);
+          if (following == null) {
+            throw new IllegalStateException("Journal ends before durable sequence " + durableSequence);
+          }
+          segment = following.getValue();
+          offset = 0;
+          continue;
+        }
+        long sequence = segment.buffer.getLong(offset + 8);
+        ByteBuffer payload = segment.buffer.slice(offset + HEADER_BYTES, length);
+        offset += HEADER_BYTES + length;
+        if (sequence <= lastSequence) {
+          continue;
+        }
+        lastSequence = sequence;
+        return new JournalRecord(sequence, JournalCodec.decode(payload));
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.grepr.takehome.auction.engine;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the engine's shards send what they changed. The shard has already applied the change in
+ * memory; the returned future completes once it is durable, and only then is the bid acknowledged
+ * and its events published.
+ *
+ * <p>Writes for the same item must become durable in submission order. Once one fails, the
+ * item's later writes of the same {@link AuctionWrite#generation()} must fail too, see
+ * {@link FailedWrites}.
+ */
+public interface BidSink {
+  CompletableFuture<Void> submit(AuctionWrite write);
+
+  /**
+   * Waits until every durable write for the item is also in the database, so the item can be read
+   * back from there. Sinks that only report writes durable once they are in the database have
+   * nothing to wait for.
+   *
+   * @return false if that did not happen within {@code timeout}
+   */
+  default boolean awaitWritten(UUID itemId, Duration timeout) {
+    return true;
+  }
+}
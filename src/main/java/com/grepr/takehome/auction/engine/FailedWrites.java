@@ -0,0 +1,42 @@
+package com.grepr.takehome.auction.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The items whose writes a sink failed, for the sink to fail their later writes as well: those come
+ * from the same state in memory, which still holds the lost change, so committing them would write
+ * a price or leaderboard that includes a bid that is not in {@code bids}. The engine drops that
+ * state when it sees the failure; writes from the state it reloads next carry a newer
+ * {@link AuctionWrite#generation()} and go through.
+ *
+ * <p>Not thread-safe: one per writer thread, which sees all writes of its items in order.
+ */
+final class FailedWrites {
+  // The newest failed generation per item.
+  private final Map<UUID, Long> generations = new HashMap<>();
+
+  void failed(AuctionWrite write) {
+    if (write.generation() > 0) {
+      generations.merge(write.itemId(), write.generation(), Math::max);
+    }
+  }
+
+  /** Whether {@code write} comes from the same state as a write that failed. */
+  boolean follows(AuctionWrite write) {
+    Long failed = generations.get(write.itemId());
+    if (failed == null || write.generation() == 0) {
+      return false;
+    }
+    if (write.generation() > failed) {
+      generations.remove(write.itemId());
+      return false;
+    }
+    return true;
+  }
+
+  static IllegalStateException failure(AuctionWrite write) {
+    return new IllegalStateException("An earlier change to item " + write.itemId() + " failed to be written");
+  }
+}
@@ -0,0 +1,228 @@
+package com.grepr.takehome.auction.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.repo.SettlementRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind {@link BidSink} for Postgres, used in engine mode.
+ *
+ * <p>Writes are spread over {@code auction.engine.sink.writers} threads by item, so an item's writes
+ * stay in order. Each thread takes whatever has queued up (up to {@code batch-size}) and commits it
+ * in one transaction: the bids and new bidders as JDBC batches, and one update per auction with its
+ * latest state, plus the settlement of any auction that closed. Under load, a single commit covers
+ * many bids instead of one row lock per bid.
+ *
+ * <p>An auction row is only updated over an older {@link AuctionWrite#version()}. Without the
+ * journal, a row that is not (something else changed the auction since the engine loaded it) fails
+ * that auction's writes, and its bids are not inserted. Projected from the journal, the row is
+ * already in, from before a crash, and is skipped.
+ *
+ * <p>With the {@link BidJournal} enabled this is not the engine's sink any more; the
+ * {@link JournalProjector} feeds it from the journal instead.
+ */
+@Component
+@ConditionalOnProperty(name = "auction.engine.enabled", havingValue = "true")
+public class JdbcBidSink implements BidSink {
+  private static final Logger log = LoggerFactory.getLogger(JdbcBidSink.class);
+  // A write can arrive twice when the journal is replayed after a crash.
+  private static final String INSERT_BID =
+      "insert into bids (id, auction_id, bidder_user_id, amount, created_at) values (?, ?, ?, ?, ?) on conflict do nothing";
+  private static final String INSERT_BIDDER =
+      "insert into auction_bidders (auction_id, bidder_user_id) values (?, ?) on conflict do nothing";
+  private static final String UPDATE_AUCTION = """
+      update auctions
+      set status = ?, end_time = ?, current_price = ?, current_winner_user_id = ?, closed_at = ?,
+          top_bids = ?::jsonb, bid_count = ?, bidder_count = ?, version = ?
+      where id = ? and version < ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final SettlementRepository settlementRepository;
+  private final int batchSize;
+  private final boolean journaled;
+  private final Writer[] writers;
+
+  public JdbcBidSink(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      SettlementRepository settlementRepository,
+      @Value("${auction.engine.sink.writers:4}") int writerCount,
+      @Value("${auction.engine.sink.batch-size:500}") int batchSize,
+      @Value("${auction.engine.journal.enabled:false}") boolean journaled
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.settlementRepository = settlementRepository;
+    this.batchSize = batchSize;
+    this.journaled = journaled;
+    this.writers = new Writer[Math.max(1, writerCount)];
+    for (int i = 0; i < writers.length; i++) {
+      writers[i] = new Writer();
+      writers[i].thread = Thread.ofPlatform().name("auction-engine-sink-" + i).daemon().start(writers[i]::run);
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> submit(AuctionWrite write) {
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+    writers[Math.floorMod(write.itemId().hashCode(), writers.length)].queue.add(new Pending(write, durable));
+    return durable;
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (Writer writer : writers) {
+      writer.thread.interrupt();
+    }
+  }
+
+  private record Pending(AuctionWrite write, CompletableFuture<Void> durable) {}
+
+  private final class Writer {
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final FailedWrites failed = new FailedWrites();
+    private Thread thread;
+
+    private void run() {
+      List<Pending> batch = new ArrayList<>(batchSize);
+      while (!Thread.currentThread().isInterrupted()) {
+        try {
+          batch.add(queue.take());
+        } catch (InterruptedException e) {
+          break;
+        }
+        queue.drainTo(batch, batchSize - 1);
+        batch.removeIf(pending -> {
+          if (!failed.follows(pending.write())) {
+            return false;
+          }
+          pending.durable().completeExceptionally(FailedWrites.failure(pending.write()));
+          return true;
+        });
+        if (batch.isEmpty()) {
+          continue;
+        }
+        try {
+          Set<UUID> stale = flush(batch);
+          batch.forEach(pending -> {
+            if (stale.contains(pending.write().auctionId())) {
+              failed.failed(pending.write());
+              pending.durable().completeExceptionally(new IllegalStateException(
+                  "Auction " + pending.write().auctionId() + " changed in the database since the engine loaded it"));
+            } else {
+              pending.durable().complete(null);
+            }
+          });
+        } catch (RuntimeException e) {
+          log.warn("Failed to write {} engine changes", batch.size(), e);
+          batch.forEach(pending -> {
+            failed.failed(pending.write());
+            pending.durable().completeExceptionally(e);
+          });
+        }
+        batch.clear();
+      }
+      queue.forEach(pending -> pending.durable().completeExceptionally(new IllegalStateException("Bid sink stopped")));
+    }
+  }
+
+  /** @return the auctions whose writes failed because their row changed; always empty from the journal */
+  private Set<UUID> flush(List<Pending> batch) {
+    Map<UUID, AuctionWrite> latest = new LinkedHashMap<>();
+    for (Pending pending : batch) {
+      latest.put(pending.write().auctionId(), pending.write());
+    }
+    List<AuctionWrite> rows = new ArrayList<>(latest.values());
+    List<Object[]> auctions = new ArrayList<>(rows.size());
+    for (AuctionWrite write : rows) {
+      auctions.add(new Object[] {
+          write.status().name(),
+          utc(write.endTime()),
+          write.currentPrice(),
+          write.currentWinnerUserId(),
+          utc(write.closedAt()),
+          toJson(write.topBids()),
+          write.bidCount(),
+          write.bidderCount(),
+          write.version(),
+          write.auctionId(),
+          write.version()
+      });
+    }
+
+    return transactionTemplate.execute(status -> {
+      // Auctions first, so the bids of a row that was not updated can be left out.
+      int[] updated = jdbcTemplate.batchUpdate(UPDATE_AUCTION, auctions);
+      Set<UUID> skipped = new HashSet<>();
+      for (int i = 0; i < updated.length; i++) {
+        if (updated[i] == 0) {
+          skipped.add(rows.get(i).auctionId());
+        }
+      }
+      List<Object[]> bids = new ArrayList<>();
+      List<Object[]> bidders = new ArrayList<>();
+      for (Pending pending : batch) {
+        AuctionWrite write = pending.write();
+        AuctionWrite.NewBid bid = write.bid();
+        if (bid == null || (!journaled && skipped.contains(write.auctionId()))) {
+          continue;
+        }
+        bids.add(new Object[] {bid.id(), write.auctionId(), bid.bidderUserId(), bid.amount(), utc(bid.createdAt())});
+        if (bid.newBidder()) {
+          bidders.add(new Object[] {write.auctionId(), bid.bidderUserId()});
+        }
+      }
+      if (!bids.isEmpty()) {
+        jdbcTemplate.batchUpdate(INSERT_BID, bids);
+      }
+      if (!bidders.isEmpty()) {
+        jdbcTemplate.batchUpdate(INSERT_BIDDER, bidders);
+      }
+      for (AuctionWrite write : rows) {
+        if (write.status() == AuctionStatus.CLOSED && !skipped.contains(write.auctionId())) {
+          settlementRepository.settle(write.auctionId());
+        }
+      }
+      return journaled ? Set.of() : skipped;
+    });
+  }
+
+  private static OffsetDateTime utc(Instant instant) {
+    return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize top bids", e);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.TopBid;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary form of an {@link AuctionWrite} in the {@link BidJournal}. Fixed field order, no field
+ * names; nullable fields are preceded by a presence byte. Changing the layout needs a new journal
+ * directory (or an empty journal).
+ */
+final class JournalCodec {
+  private static final AuctionStatus[] STATUSES = AuctionStatus.values();
+
+  private JournalCodec() {}
+
+  /** @throws java.nio.BufferOverflowException if {@code out} is too small */
+  static void encode(AuctionWrite write, ByteBuffer out) {
+    putUuid(out, write.itemId());
+    putUuid(out, write.auctionId());
+    out.put((byte) write.status().ordinal());
+    putInstant(out, write.endTime());
+    putDecimal(out, write.currentPrice());
+    putNullableUuid(out, write.currentWinnerUserId());
+    putNullableInstant(out, write.closedAt());
+    out.putShort((short) write.topBids().size());
+    for (TopBid bid : write.topBids()) {
+      putUuid(out, bid.bidId());
+      putUuid(out, bid.bidderUserId());
+      putDecimal(out, bid.amount());
+      putInstant(out, bid.createdAt());
+    }
+    out.putInt(write.bidCount());
+    out.putInt(write.bidderCount());
+    out.putLong(write.version());
+    AuctionWrite.NewBid bid = write.bid();
+    out.put((byte) (bid == null ? 0 : 1));
+    if (bid != null) {
+      putUuid(out, bid.id());
+      putUuid(out, bid.bidderUserId());
+      putDecimal(out, bid.amount());
+      putInstant(out, bid.createdAt());
+      out.put((byte) (bid.newBidder() ? 1 : 0));
+    }
+  }
+
+  static AuctionWrite decode(ByteBuffer in) {
+    UUID itemId = getUuid(in);
+    UUID auctionId = getUuid(in);
+    AuctionStatus status = STATUSES[in.get()];
+    Instant endTime = getInstant(in);
+    BigDecimal currentPrice = getDecimal(in);
+    UUID currentWinnerUserId = getNullableUuid(in);
+    Instant closedAt = getNullableInstant(in);
+    int topBidCount = in.getShort();
+    List<TopBid> topBids = new ArrayList<>(topBidCount);
+    for (int i = 0; i < topBidCount; i++) {
+      topBids.add(new TopBid(getUuid(in), getUuid(in), getDecimal(in), getInstant(in)));
+    }
+    int bidCount = in.getInt();
+    int bidderCount = in.getInt();
+    long version = in.getLong();
+    AuctionWrite.NewBid bid = in.get() == 0
+        ? null
+        : new AuctionWrite.NewBid(getUuid(in), getUuid(in), getDecimal(in), getInstant(in), in.get() != 0);
+    return new AuctionWrite(
+        itemId, auctionId, status, endTime, currentPrice, currentWinnerUserId, closedAt, topBids, bidCount, bidderCount, bid, version, 0);
+  }
+
+  private static void putUuid(ByteBuffer out, UUID value) {
+    out.putLong(value.getMostSignificantBits());
+    out.putLong(value.getLeastSignificantBits());
+  }
+
+  private static UUID getUuid(ByteBuffer in) {
+    return new UUID(in.getLong(), in.getLong());
+  }
+
+  private static void putNullableUuid(ByteBuffer out, UUID value) {
+    out.put((byte) (value == null ? 0 : 1));
+    if (value != null) {
+      putUuid(out, value);
+    }
+  }
+
+  private static UUID getNullableUuid(ByteBuffer in) {
+    return in.get() == 0 ? null : getUuid(in);
+  }
+
+  private static void putInstant(ByteBuffer out, Instant value) {
+    out.putLong(value.getEpochSecond());
+    out.putInt(value.getNano());
+  }
+
+  private static Instant getInstant(ByteBuffer in) {
+    return Instant.ofEpochSecond(in.getLong(), in.getInt());
+  }
+
+  private static void putNullableInstant(ByteBuffer out, Instant value) {
+    out.put((byte) (value == null ? 0 : 1));
+    if (value != null) {
+      putInstant(out, value);
+    }
+  }
+
+  private static Instant getNullableInstant(ByteBuffer in) {
+    return in.get() == 0 ? null : getInstant(in);
+  }
+
+  private static void putDecimal(ByteBuffer out, BigDecimal value) {
+    byte[] unscaled = value.unscaledValue().toByteArray();
+    out.putInt(value.scale());
+    out.put((byte) unscaled.length);
+    out.put(unscaled);
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer in) {
+    int scale = in.getInt();
+    byte[] unscaled = new byte[in.get() & 0xFF];
+    in.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
@@ -0,0 +1,118 @@
+package com.grepr.takehome.auction.engine;
+
+import com.grepr.takehome.auction.engine.BidJournal.JournalRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies {@link BidJournal} records into {@code bids}/{@code auctions} in the background, through
+ * {@link JdbcBidSink}, and checkpoints how far it got after every batch.
+ *
+ * <p>On startup it first projects whatever the last run left unprojected, before the application
+ * takes traffic; if the database is unreachable then, startup fails rather than serving auctions
+ * whose latest bids only exist in the journal. A record can be projected twice (a crash between the
+ * commit and the checkpoint), which the sink's writes tolerate.
+ */
+@Component
+@ConditionalOnProperty(name = "auction.engine.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "auction.engine.journal.enabled", havingValue = "true")
+public class JournalProjector {
+  private static final Logger log = LoggerFactory.getLogger(JournalProjector.class);
+
+  private final BidJournal journal;
+  private final JdbcBidSink database;
+  private final int batchSize;
+  private final long idleMs;
+  private final long retryDelayMs;
+  // Read but not projected yet; kept across a failed attempt so it is retried as is.
+  private final List<JournalRecord> batch = new ArrayList<>();
+  private BidJournal.Cursor cursor;
+  private Thread thread;
+
+  public JournalProjector(
+      BidJournal journal,
+      JdbcBidSink database,
+      @Value("${auction.engine.journal.projector.batch-size:500}") int batchSize,
+      @Value("${auction.engine.journal.projector.idle-ms:100}") long idleMs,
+      @Value("${auction.engine.journal.projector.retry-delay-ms:1000}") long retryDelayMs
+  ) {
+    this.journal = journal;
+    this.database = database;
+    this.batchSize = batchSize;
+    this.idleMs = idleMs;
+    this.retryDelayMs = retryDelayMs;
+  }
+
+  /** Projects what the last run left unprojected, then starts following the journal. */
+  @PostConstruct
+  void start() {
+    cursor = journal.cursor(journal.projectedSequence());
+    int recovered = 0;
+    for (int projected; (projected = projectBatch()) > 0; ) {
+      recovered += projected;
+    }
+    if (recovered > 0) {
+      log.info("Projected {} journal records left over from the last run", recovered);
+    }
+    thread = Thread.ofPlatform().name("auction-journal-projector").daemon().start(this::run);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    thread.interrupt();
+    thread.join(retryDelayMs);
+  }
+
+  private void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        if (projectBatch() == 0) {
+          journal.awaitRecords(cursor.lastSequence(), idleMs);
+        }
+      } catch (InterruptedException e) {
+        break;
+      } catch (RuntimeException e) {
+        log.warn("Failed to project {} journal records, retrying", batch.size(), e);
+        try {
+          Thread.sleep(retryDelayMs);
+        } catch (InterruptedException interrupted) {
+          break;
+        }
+      }
+    }
+  }
+
+  private int projectBatch() {
+    JournalRecord next;
+    while (batch.size() < batchSize && (next = cursor.next()) != null) {
+      batch.add(next);
+    }
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    List<CompletableFuture<Void>> written = new ArrayList<>(batch.size());
+    Map<UUID, Long> items = new HashMap<>();
+    for (JournalRecord record : batch) {
+      written.add(database.submit(record.write()));
+      items.put(record.write().itemId(), record.sequence());
+    }
+    CompletableFuture.allOf(written.toArray(CompletableFuture[]::new)).join();
+    journal.markProjected(batch.getLast().sequence(), items);
+
+    int projected = batch.size();
+    batch.clear();
+    return projected;
+  }
+}
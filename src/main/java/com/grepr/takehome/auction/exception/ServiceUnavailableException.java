@@ -0,0 +1,19 @@
+package com.grepr.takehome.auction.exception;
+
+import java.time.Duration;
+
+/** The request may or may not have taken effect; its {@code reason} is {@value #OUTCOME_UNKNOWN}. */
+public class ServiceUnavailableException extends RuntimeException {
+  public static final String OUTCOME_UNKNOWN = "outcome_unknown";
+
+  private final Duration retryAfter;
+
+  public ServiceUnavailableException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,35 @@
+package com.grepr.takehome.auction.exception;
+
+import java.time.Duration;
+
+/**
+ * A bid turned away for now. {@code reason} tells clients why without parsing the message:
+ * {@value #OVERLOADED} (load shedding, the default), {@value #RATE_LIMITED} or
+ * {@value #IN_PROGRESS} (an earlier request with the same idempotency key is still running).
+ */
+public class TooManyRequestsException extends RuntimeException {
+  public static final String OVERLOADED = "overloaded";
+  public static final String RATE_LIMITED = "rate_limited";
+  public static final String IN_PROGRESS = "in_progress";
+
+  private final Duration retryAfter;
+  private final String reason;
+
+  public TooManyRequestsException(String message, Duration retryAfter) {
+    this(message, retryAfter, OVERLOADED);
+  }
+
+  public TooManyRequestsException(String message, Duration retryAfter, String reason) {
+    super(message);
+    this.retryAfter = retryAfter;
+    this.reason = reason;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+}
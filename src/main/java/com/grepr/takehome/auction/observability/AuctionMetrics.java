@@ -1,25 +1,54 @@
 package com.grepr.takehome.auction.observability;
 
+import com.grepr.takehome.auction.realtime.AuctionEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Component;
 
 /**
- * Centralized metric names and labels for the Auction API.
+ * Centralized metric names, labels and meters for the Auction API.
  *
  * <p>Keep metric names stable: changing them breaks dashboards/alerts.
+ *
+ * <p>Meters with a fixed tag set are registered once at startup and looked up from enum maps, so
+ * the hot path never goes through {@code registry.counter(...)}'s name/tag resolution.
  */
-public final class AuctionMetrics {
-  private AuctionMetrics() {}
-
+@Component
+public class AuctionMetrics {
   public static final String BID_ACCEPTED_COUNTER = "auction.bids.accepted";
   public static final String BID_REJECTED_COUNTER = "auction.bids.rejected";
+  public static final String BID_DEDUPLICATED_COUNTER = "auction.bids.deduplicated";
+  public static final String BID_PHASE_TIMER = "auction.bids.phase";
+  public static final String EVENT_FANOUT_TIMER = "auction.events.fanout";
+  public static final String SUBSCRIBERS_GAUGE = "auction.subscribers";
+  public static final String REPLICA_LAG_GAUGE = "auction.datasource.replica.lag";
+  public static final String JOURNAL_LAG_GAUGE = "auction.engine.journal.lag";
+  public static final String WEBSOCKET_SESSIONS_GAUGE = "auction.websocket.sessions";
+  public static final String WEBSOCKET_MEMORY_GAUGE = "auction.websocket.memory";
+  public static final String WEBSOCKET_EVICTED_COUNTER = "auction.websocket.evicted";
+  public static final String ACTIVE_AUCTIONS_GAUGE = "auction.index.active";
 
   public static final String REASON_TAG = "reason";
+  public static final String PHASE_TAG = "phase";
+  public static final String EVENT_TYPE_TAG = "type";
+  public static final String ITEM_TAG = "item";
+  public static final String SOURCE_TAG = "source";
 
   public enum BidRejectedReason {
     INVALID_AMOUNT("invalid_amount"),
     UNKNOWN_USER("unknown_user"),
     AUCTION_NOT_OPEN("auction_not_open"),
-    BID_TOO_LOW("bid_too_low");
+    BID_TOO_LOW("bid_too_low"),
+    OVERLOADED("overloaded"),
+    RATE_LIMITED("rate_limited");
 
     private final String tagValue;
 
@@ -32,12 +61,148 @@ public final class AuctionMetrics {
     }
   }
 
-  public static void incrementBidAccepted(MeterRegistry registry) {
-    registry.counter(BID_ACCEPTED_COUNTER).increment();
+  /** Where a retried bid submission was answered from. */
+  public enum DeduplicationSource {
+    MEMORY("memory"),
+    DATABASE("database");
+
+    private final String tagValue;
+
+    DeduplicationSource(String tagValue) {
+      this.tagValue = tagValue;
+    }
+
+    public String tagValue() {
+      return tagValue;
+    }
   }
 
-  public static void incrementBidRejected(MeterRegistry registry, BidRejectedReason reason) {
-    registry.counter(BID_REJECTED_COUNTER, REASON_TAG, reason.tagValue()).increment();
+  /** Phases of {@code AuctionService.placeBid}, in execution order. */
+  public enum BidPhase {
+    VALIDATION("validation"),
+    LOCK_ACQUISITION("lock_acquisition"),
+    PERSISTENCE("persistence"),
+    COMMIT("commit"),
+    PUBLISH("publish");
+
+    private final String tagValue;
+
+    BidPhase(String tagValue) {
+      this.tagValue = tagValue;
+    }
+
+    public String tagValue() {
+      return tagValue;
+    }
+  }
+
+  private final MeterRegistry registry;
+  private final Counter bidAccepted;
+  private final Map<BidRejectedReason, Counter> bidRejected = new EnumMap<>(BidRejectedReason.class);
+  private final Map<DeduplicationSource, Counter> bidDeduplicated = new EnumMap<>(DeduplicationSource.class);
+  private final Map<BidPhase, Timer> bidPhases = new EnumMap<>(BidPhase.class);
+  private final Map<AuctionEventType, Timer> eventFanOut = new EnumMap<>(AuctionEventType.class);
+  private final Counter webSocketEvicted;
+
+  public AuctionMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.bidAccepted = registry.counter(BID_ACCEPTED_COUNTER);
+    this.webSocketEvicted = Counter.builder(WEBSOCKET_EVICTED_COUNTER)
+        .description("WebSocket sessions closed for sending nothing, not even a pong, within the idle timeout")
+        .register(registry);
+    for (BidRejectedReason reason : BidRejectedReason.values()) {
+      bidRejected.put(reason, registry.counter(BID_REJECTED_COUNTER, REASON_TAG, reason.tagValue()));
+    }
+    for (DeduplicationSource source : DeduplicationSource.values()) {
+      bidDeduplicated.put(source, registry.counter(BID_DEDUPLICATED_COUNTER, SOURCE_TAG, source.tagValue()));
+    }
+    for (BidPhase phase : BidPhase.values()) {
+      bidPhases.put(phase, Timer.builder(BID_PHASE_TIMER)
+          .description("Time spent in each phase of placing a bid")
+          .tag(PHASE_TAG, phase.tagValue())
+          .publishPercentileHistogram()
+          .register(registry));
+    }
+    for (AuctionEventType type : AuctionEventType.values()) {
+      eventFanOut.put(type, Timer.builder(EVENT_FANOUT_TIMER)
+          .description("Time to serialize an auction event and send it to every subscriber of the item")
+          .tag(EVENT_TYPE_TAG, type.name())
+          .publishPercentileHistogram()
+          .register(registry));
+    }
+  }
+
+  public void incrementBidAccepted() {
+    bidAccepted.increment();
+  }
+
+  public void incrementBidRejected(BidRejectedReason reason) {
+    bidRejected.get(reason).increment();
+  }
+
+  public void incrementBidDeduplicated(DeduplicationSource source) {
+    bidDeduplicated.get(source).increment();
+  }
+
+  public void recordBidPhase(BidPhase phase, long nanos) {
+    bidPhases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordFanOut(AuctionEventType type, long nanos) {
+    eventFanOut.get(type).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Registers a gauge over an item's live subscribers. Per-item meters are only kept while the item
+   * has subscribers; pass the returned meter to {@link #remove(Meter)} when the last one leaves.
+   */
+  public <T> Meter registerSubscriberGauge(UUID itemId, T subscribers, ToDoubleFunction<T> count) {
+    return Gauge.builder(SUBSCRIBERS_GAUGE, subscribers, count)
+        .description("Live event subscribers per item")
+        .tag(ITEM_TAG, itemId.toString())
+        .strongReference(true)
+        .register(registry);
+  }
+
+  public <T> void registerReplicaLagGauge(T monitor, ToDoubleFunction<T> lagMillis) {
+    Gauge.builder(REPLICA_LAG_GAUGE, monitor, lagMillis)
+        .description("Read replica replay lag in milliseconds, -1 when the replica is unreachable")
+        .baseUnit("milliseconds")
+        .strongReference(true)
+        .register(registry);
+  }
+
+  public <T> void registerJournalLagGauge(T journal, ToDoubleFunction<T> records) {
+    Gauge.builder(JOURNAL_LAG_GAUGE, journal, records)
+        .description("Journal records acknowledged but not projected into the database yet")
+        .strongReference(true)
+        .register(registry);
+  }
+
+  public <T> void registerWebSocketGauges(T sessions, ToDoubleFunction<T> count, ToDoubleFunction<T> memoryBytes) {
+    Gauge.builder(WEBSOCKET_SESSIONS_GAUGE, sessions, count)
+        .description("Open /ws sessions")
+        .strongReference(true)
+        .register(registry);
+    Gauge.builder(WEBSOCKET_MEMORY_GAUGE, sessions, memoryBytes)
+        .description("Estimated memory held by /ws sessions: inbound message buffers plus queued outbound messages")
+        .baseUnit("bytes")
+        .strongReference(true)
+        .register(registry);
   }
-}
 
+  public <T> void registerActiveAuctionsGauge(T index, ToDoubleFunction<T> count) {
+    Gauge.builder(ACTIVE_AUCTIONS_GAUGE, index, count)
+        .description("SCHEDULED and OPEN auctions in the in-memory listing index")
+        .strongReference(true)
+        .register(registry);
+  }
+
+  public void incrementWebSocketEvicted(int sessions) {
+    webSocketEvicted.increment(sessions);
+  }
+
+  public void remove(Meter meter) {
+    registry.remove(meter);
+  }
+}
@@ -0,0 +1,114 @@
+package com.grepr.takehome.auction.observability;
+
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
+import com.grepr.takehome.auction.service.AuctionActivityTracker;
+import com.grepr.takehome.auction.service.AuctionActivityTracker.ItemWindow;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/hotauctions}: the top-N items by bid rate, lock wait, rejection ratio or
+ * subscriber count over the activity tracker's sliding window.
+ *
+ * <p>Everything is served from in-memory counters, so it is safe to poll while an auction is hot.
+ */
+@Component
+@Endpoint(id = "hotauctions")
+public class HotAuctionsEndpoint {
+  private static final int DEFAULT_LIMIT = 10;
+
+  private final Clock clock;
+  private final AuctionActivityTracker activityTracker;
+  private final AuctionEventPublisher publisher;
+
+  public HotAuctionsEndpoint(Clock clock, AuctionActivityTracker activityTracker, AuctionEventPublisher publisher) {
+    this.clock = clock;
+    this.activityTracker = activityTracker;
+    this.publisher = publisher;
+  }
+
+  public enum SortBy {
+    BID_RATE(Comparator.comparingDouble(HotAuction::bidsPerSecond)),
+    LOCK_WAIT(Comparator.comparingDouble(HotAuction::avgLockWaitMs)),
+    REJECTION_RATIO(Comparator.comparingDouble(HotAuction::rejectionRatio)),
+    SUBSCRIBERS(Comparator.comparingInt(HotAuction::subscribers));
+
+    private final Comparator<HotAuction> order;
+
+    SortBy(Comparator<HotAuction> order) {
+      this.order = order;
+    }
+  }
+
+  public record HotAuctionsReport(Instant generatedAt, int windowSeconds, SortBy sortBy, List<HotAuction> items) {}
+
+  public record HotAuction(
+      UUID itemId,
+      double bidsPerSecond,
+      long acceptedBids,
+      long rejectedBids,
+      double rejectionRatio,
+      double avgLockWaitMs,
+      double maxLockWaitMs,
+      int subscribers
+  ) {}
+
+  @ReadOperation
+  public HotAuctionsReport hotAuctions(@Nullable Integer limit, @Nullable String sortBy) {
+    SortBy order = parseSortBy(sortBy);
+    int windowSeconds = activityTracker.windowSeconds();
+    Map<UUID, ItemWindow> windows = activityTracker.snapshot();
+
+    Set<UUID> itemIds = new HashSet<>(windows.keySet());
+    itemIds.addAll(publisher.subscribedItemIds());
+
+    List<HotAuction> items = itemIds.stream()
+        .map(itemId -> toHotAuction(itemId, windows.get(itemId), windowSeconds))
+        .sorted(order.order.reversed())
+        .limit(limit == null ? DEFAULT_LIMIT : Math.max(0, limit))
+        .toList();
+    return new HotAuctionsReport(Instant.now(clock), windowSeconds, order, items);
+  }
+
+  private static SortBy parseSortBy(String sortBy) {
+    if (sortBy == null) {
+      return SortBy.BID_RATE;
+    }
+    try {
+      return SortBy.valueOf(sortBy.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      String message = "sortBy must be one of " + List.of(SortBy.values());
+      throw new InvalidEndpointRequestException(message, message);
+    }
+  }
+
+  private HotAuction toHotAuction(UUID itemId, ItemWindow window, int windowSeconds) {
+    int subscribers = publisher.subscriberCount(itemId);
+    if (window == null) {
+      return new HotAuction(itemId, 0, 0, 0, 0, 0, 0, subscribers);
+    }
+    long bids = window.accepted() + window.rejected();
+    return new HotAuction(
+        itemId,
+        (double) bids / windowSeconds,
+        window.accepted(),
+        window.rejected(),
+        bids == 0 ? 0 : (double) window.rejected() / bids,
+        window.lockSamples() == 0 ? 0 : window.lockWaitNanos() / 1e6 / window.lockSamples(),
+        window.maxLockWaitNanos() / 1e6,
+        subscribers
+    );
+  }
+}
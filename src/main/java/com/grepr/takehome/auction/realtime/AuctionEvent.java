@@ -1,8 +1,11 @@
 package com.grepr.takehome.auction.realtime;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.TopBid;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public record AuctionEvent(
@@ -10,8 +13,17 @@ public record AuctionEvent(
     Instant timestamp,
     UUID itemId,
     AuctionPayload auction,
-    BidPayload bid
+    BidPayload bid,
+    // Only set on SNAPSHOTs for subscribers that asked for it.
+    @JsonInclude(JsonInclude.Include.NON_NULL) LeaderboardPayload leaderboard,
+    // Set by the publisher; on a SNAPSHOT, the last event it already covers. It increases within an
+    // item but has gaps, so it orders events and cannot tell a client that it missed one.
+    @JsonInclude(JsonInclude.Include.NON_NULL) Long sequence
 ) {
+  public AuctionEvent withSequence(long sequence) {
+    return new AuctionEvent(type, timestamp, itemId, auction, bid, leaderboard, sequence);
+  }
+
   public record AuctionPayload(
       UUID id,
       AuctionStatus status,
@@ -31,5 +43,9 @@ public record AuctionEvent(
       BigDecimal amount,
       Instant createdAt
   ) {}
-}
 
+  public record LeaderboardPayload(
+      int bidderCount,
+      List<TopBid> topBids
+  ) {}
+}
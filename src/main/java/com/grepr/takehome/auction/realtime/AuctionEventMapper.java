@@ -16,11 +16,19 @@ public class AuctionEventMapper {
   }
 
   public AuctionEvent snapshot(UUID itemId, Auction auction, Instant now) {
+    return snapshot(itemId, auction, now, false);
+  }
+
+  public AuctionEvent snapshot(UUID itemId, Auction auction, Instant now, boolean includeLeaderboard) {
     return new AuctionEvent(
         AuctionEventType.SNAPSHOT,
         Instant.now(clock),
         itemId,
         toAuctionPayload(auction, now),
+        null,
+        includeLeaderboard && auction != null
+            ? new AuctionEvent.LeaderboardPayload(auction.getBidderCount(), auction.getTopBids())
+            : null,
         null
     );
   }
@@ -31,6 +39,8 @@ public class AuctionEventMapper {
         Instant.now(clock),
         itemId,
         toAuctionPayload(auction, now),
+        null,
+        null,
         null
     );
   }
@@ -47,7 +57,9 @@ public class AuctionEventMapper {
             bid.getBidderUserId(),
             bid.getAmount(),
             bid.getCreatedAt()
-        )
+        ),
+        null,
+        null
     );
   }
 
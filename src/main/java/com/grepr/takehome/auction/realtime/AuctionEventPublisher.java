@@ -2,65 +2,384 @@ package com.grepr.takehome.auction.realtime;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import io.micrometer.core.instrument.Meter;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.socket.WebSocketSession;
 
+/**
+ * Fans auction events out to the subscribers of each item, over WebSocket ({@code /ws}) or SSE
+ * ({@code /api/items/{itemId}/events}). Each event is serialized once and shared by all of them.
+ *
+ * <p>Events get an id and the last {@code auction.events.replay-size} per item are kept while the
+ * item has subscribers, so a reconnecting SSE client can be sent exactly what it missed. Ids are
+ * qualified by this instance ({@code <stream>-<sequence>}): an id from another node or an earlier
+ * run never matches, and that client gets a fresh snapshot instead.
+ *
+ * <p>Each item has a delivery lane. A writer reserves a {@link Ticket} while it still holds the
+ * item exclusively (the auction row lock, or the engine loop), so tickets are in the order the
+ * changes commit, and fills it in once the change is durable. The lane delivers tickets strictly in
+ * that order, one at a time, on {@code auction.events.delivery-threads} threads shared by all
+ * items; a ticket that is still open holds back the ones behind it. So a subscriber never sees a
+ * {@code BID_PLACED} after the {@code AUCTION_CLOSED} that followed it, and prices only go up. The
+ * event id goes out as {@code sequence}, increasing within an item in delivery order. It is not
+ * contiguous: ids are shared by all items and only taken by events that have subscribers.
+ *
+ * <p>{@link #observe Observers} see every event in the same order, subscribers or not.
+ */
 @Component
 public class AuctionEventPublisher {
+  private static final Logger log = LoggerFactory.getLogger(AuctionEventPublisher.class);
+  // Tickets one lane delivers before giving its delivery thread to other lanes.
+  private static final int MAX_DRAIN = 64;
+
   private final ObjectMapper objectMapper;
-  private final ConcurrentHashMap<UUID, CopyOnWriteArraySet<WebSocketSession>> sessionsByItemId = new ConcurrentHashMap<>();
+  private final AuctionMetrics metrics;
+  private final int replaySize;
+  // Null to deliver on the thread that fills in the ticket at the head of the lane.
+  private final ExecutorService delivery;
+  private final String streamId = Long.toString(System.currentTimeMillis(), 36)
+      + Integer.toString(UUID.randomUUID().hashCode() & 0xffff, 36);
+  private final AtomicLong lastEventId = new AtomicLong();
+  private final ConcurrentHashMap<UUID, Subscribers> subscribersByItemId = new ConcurrentHashMap<>();
+  // Only items with open or undelivered tickets have a lane.
+  private final ConcurrentHashMap<UUID, Lane> lanes = new ConcurrentHashMap<>();
+  private final List<Consumer<AuctionEvent>> observers = new CopyOnWriteArrayList<>();
+
+  /** The subscribers watching one item, their recent events, and the gauge reporting their count. */
+  private static final class Subscribers {
+    private final SubscriberSet<EventSubscriber> members = new SubscriberSet<>();
+    // Oldest first. This and coveredAfter are guarded by the Subscribers instance.
+    private final ArrayDeque<OutboundEvent> recent = new ArrayDeque<>();
+    // Every event of the item with a greater id is in recent.
+    private long coveredAfter;
+    private Meter gauge;
+
+    private Subscribers(long coveredAfter) {
+      this.coveredAfter = coveredAfter;
+    }
+  }
+
+  /** An item's tickets, oldest first; this and draining are guarded by the Lane instance. */
+  private static final class Lane {
+    private final UUID itemId;
+    private final ArrayDeque<Ticket> tickets = new ArrayDeque<>();
+    private boolean draining;
+
+    private Lane(UUID itemId) {
+      this.itemId = itemId;
+    }
+  }
+
+  /**
+   * A place in an item's event order, from {@link #reserve}. Exactly one of {@link #publish} or
+   * {@link #cancel} must follow, or the item's later events are never delivered; reserved inside a
+   * transaction, a rollback cancels it.
+   */
+  public final class Ticket {
+    private final Lane lane;
+    private List<AuctionEvent> events;
+    private boolean done;
+
+    private Ticket(Lane lane) {
+      this.lane = lane;
+    }
+
+    public void publish(AuctionEvent event) {
+      publish(List.of(event));
+    }
 
-  public AuctionEventPublisher(ObjectMapper objectMapper) {
+    /** Delivers {@code events}, in order, once every earlier ticket of the item is done. */
+    public void publish(List<AuctionEvent> events) {
+      complete(events);
+    }
+
+    /** Gives the place up: nothing is delivered for it. */
+    public void cancel() {
+      complete(List.of());
+    }
+
+    private void complete(List<AuctionEvent> completed) {
+      synchronized (lane) {
+        if (done) {
+          return;
+        }
+        events = completed;
+        done = true;
+        if (lane.draining || lane.tickets.peekFirst() != this) {
+          return;
+        }
+        lane.draining = true;
+      }
+      scheduleDrain(lane);
+    }
+  }
+
+  /**
+   * What a new subscriber starts from. Its initial state must be current as of
+   * {@code snapshotSequence} (sent to the client as {@code snapshotEventId});
+   * {@code replay} holds the events it missed after a resume ({@code null} if they are not all
+   * known any more, in which case it needs a snapshot).
+   */
+  public record Subscription(long snapshotSequence, String snapshotEventId, List<OutboundEvent> replay) {}
+
+  public AuctionEventPublisher(
+      ObjectMapper objectMapper,
+      AuctionMetrics metrics,
+      @Value("${auction.events.replay-size:256}") int replaySize,
+      @Value("${auction.events.delivery-threads:4}") int deliveryThreads
+  ) {
     this.objectMapper = objectMapper;
+    this.metrics = metrics;
+    this.replaySize = replaySize;
+    this.delivery = deliveryThreads > 0
+        ? Executors.newFixedThreadPool(deliveryThreads, Thread.ofPlatform().name("auction-events-", 0).daemon().factory())
+        : null;
   }
 
-  public void publish(UUID itemId, AuctionEvent event) {
-    CopyOnWriteArraySet<WebSocketSession> sessions = sessionsByItemId.get(itemId);
-    if (sessions == null || sessions.isEmpty()) {
-      return;
+  @PreDestroy
+  public void stop() {
+    if (delivery != null) {
+      delivery.shutdown();
     }
+  }
+
+  /**
+   * Takes the item's next place in its event order. Call it while nothing else can change the
+   * auction, and before the change commits.
+   */
+  public Ticket reserve(UUID itemId) {
+    Ticket[] ticket = new Ticket[1];
+    // compute() keeps this atomic with the lane being dropped once it has drained.
+    lanes.compute(itemId, (id, lane) -> {
+      if (lane == null) {
+        lane = new Lane(id);
+      }
+      ticket[0] = new Ticket(lane);
+      synchronized (lane) {
+        lane.tickets.addLast(ticket[0]);
+      }
+      return lane;
+    });
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status != STATUS_COMMITTED) {
+            ticket[0].cancel();
+          }
+        }
+      });
+    }
+    return ticket[0];
+  }
 
-    String json;
+  /**
+   * Reserves the item's next place now and publishes {@code events} there once the current
+   * transaction commits (nothing, if it rolls back).
+   */
+  public void publishAfterCommit(UUID itemId, List<AuctionEvent> events) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("No transaction to publish after");
+    }
+    Ticket ticket = reserve(itemId);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        ticket.publish(events);
+      }
+    });
+  }
+
+  /**
+   * Has {@code observer} called with every event published from now on, in each item's delivery
+   * order, on the delivery thread and before the event goes to subscribers; it must be quick.
+   */
+  public void observe(Consumer<AuctionEvent> observer) {
+    observers.add(observer);
+  }
+
+  private void scheduleDrain(Lane lane) {
+    if (delivery == null) {
+      drain(lane);
+      return;
+    }
     try {
-      json = objectMapper.writeValueAsString(event);
-    } catch (JsonProcessingException e) {
-      throw new IllegalStateException("Failed to serialize auction event", e);
+      delivery.execute(() -> drain(lane));
+    } catch (RejectedExecutionException e) {
+      // Shutting down; nobody is left to deliver to.
+      synchronized (lane) {
+        lane.draining = false;
+      }
     }
-    TextMessage message = new TextMessage(json);
-    for (WebSocketSession session : sessions) {
-      try {
-        if (session.isOpen()) {
-          session.sendMessage(message);
-        } else {
-          remove(itemId, session);
+  }
+
+  private void drain(Lane lane) {
+    for (int delivered = 0; ; delivered++) {
+      Ticket head;
+      synchronized (lane) {
+        head = lane.tickets.peekFirst();
+        if (head == null || !head.done) {
+          lane.draining = false;
+          break;
+        }
+        if (delivered == MAX_DRAIN && delivery != null) {
+          // Still draining: the lane keeps its turn, behind whatever else is queued.
+          scheduleDrain(lane);
+          return;
+        }
+        lane.tickets.removeFirst();
+      }
+      for (AuctionEvent event : head.events) {
+        for (Consumer<AuctionEvent> observer : observers) {
+          try {
+            observer.accept(event);
+          } catch (RuntimeException e) {
+            log.warn("Observer failed on {} event for item {}", event.type(), lane.itemId, e);
+          }
         }
-      } catch (Exception ex) {
-        remove(itemId, session);
+        try {
+          deliver(lane.itemId, event);
+        } catch (RuntimeException e) {
+          log.warn("Failed to deliver {} event for item {}", event.type(), lane.itemId, e);
+        }
+      }
+    }
+    lanes.computeIfPresent(lane.itemId, (id, current) -> {
+      synchronized (current) {
+        return current.tickets.isEmpty() && !current.draining ? null : current;
+      }
+    });
+  }
+
+  private void deliver(UUID itemId, AuctionEvent event) {
+    Subscribers subscribers = subscribersByItemId.get(itemId);
+    if (subscribers == null || subscribers.members.isEmpty()) {
+      return;
+    }
+
+    long started = System.nanoTime();
+    OutboundEvent outbound;
+    synchronized (subscribers) {
+      long id = lastEventId.incrementAndGet();
+      // Serialized under the lock, as the sequence is part of the JSON and ids must reach recent in order.
+      outbound = new OutboundEvent(id, eventId(id), event.type(), serialize(event.withSequence(id)));
+      subscribers.recent.addLast(outbound);
+      if (subscribers.recent.size() > replaySize) {
+        subscribers.coveredAfter = subscribers.recent.removeFirst().id();
       }
     }
+    subscribers.members.forEach(subscriber -> {
+      if (!subscriber.deliver(outbound)) {
+        remove(itemId, subscriber);
+      }
+    });
+    metrics.recordFanOut(event.type(), System.nanoTime() - started);
+  }
+
+  /**
+   * Registers {@code subscriber} for the item's events. With the {@code resumeAfter} event id of a previous
+   * stream, also returns what was published after it, if every such event is still known.
+   */
+  public Subscription subscribe(UUID itemId, EventSubscriber subscriber, String resumeAfter) {
+    Subscription[] subscription = new Subscription[1];
+    subscribersByItemId.compute(itemId, (id, subscribers) -> {
+      if (subscribers == null) {
+        subscribers = new Subscribers(lastEventId.get());
+        subscribers.gauge = metrics.registerSubscriberGauge(id, subscribers.members, SubscriberSet::size);
+      }
+      // Under the same lock publish() assigns ids with, so no event falls between the snapshot id
+      // and the replay.
+      synchronized (subscribers) {
+        subscribers.members.add(subscriber);
+        long snapshotSequence = lastEventId.get();
+        subscription[0] = new Subscription(snapshotSequence, eventId(snapshotSequence), replaySince(subscribers, resumeAfter));
+      }
+      return subscribers;
+    });
+    return subscription[0];
+  }
+
+  public void unsubscribe(UUID itemId, EventSubscriber subscriber) {
+    remove(itemId, subscriber);
   }
 
-  public void addSession(UUID itemId, WebSocketSession session) {
-    sessionsByItemId.computeIfAbsent(itemId, ignored -> new CopyOnWriteArraySet<>()).add(session);
+  public Subscription addSession(UUID itemId, WebSocketSession session) {
+    return addSession(itemId, session, false);
+  }
+
+  /** {@code compressed}: send events as shared DEFLATE binary messages, see {@link OutboundEvent#deflated()}. */
+  public Subscription addSession(UUID itemId, WebSocketSession session, boolean compressed) {
+    return subscribe(itemId, new WebSocketSubscriber(session, compressed), null);
   }
 
   public void removeSession(UUID itemId, WebSocketSession session) {
-    remove(itemId, session);
+    remove(itemId, new WebSocketSubscriber(session));
   }
 
-  private void remove(UUID itemId, WebSocketSession session) {
-    CopyOnWriteArraySet<WebSocketSession> sessions = sessionsByItemId.get(itemId);
-    if (sessions == null) {
-      return;
+  public int subscriberCount(UUID itemId) {
+    Subscribers subscribers = subscribersByItemId.get(itemId);
+    return subscribers == null ? 0 : subscribers.members.size();
+  }
+
+  public Set<UUID> subscribedItemIds() {
+    return Set.copyOf(subscribersByItemId.keySet());
+  }
+
+  private String serialize(AuctionEvent event) {
+    try {
+      return objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize auction event", e);
     }
-    sessions.remove(session);
-    if (sessions.isEmpty()) {
-      sessionsByItemId.remove(itemId, sessions);
+  }
+
+  private String eventId(long id) {
+    return streamId + "-" + id;
+  }
+
+  private List<OutboundEvent> replaySince(Subscribers subscribers, String resumeAfter) {
+    if (resumeAfter == null || !resumeAfter.startsWith(streamId + "-")) {
+      return null;
+    }
+    long after;
+    try {
+      after = Long.parseLong(resumeAfter.substring(streamId.length() + 1));
+    } catch (NumberFormatException e) {
+      return null;
     }
+    if (after < subscribers.coveredAfter || after > lastEventId.get()) {
+      return null;
+    }
+    return subscribers.recent.stream().filter(event -> event.id() > after).toList();
   }
-}
 
+  private void remove(UUID itemId, EventSubscriber subscriber) {
+    // compute() keeps the emptiness check and the map removal atomic with concurrent subscribe calls.
+    subscribersByItemId.computeIfPresent(itemId, (id, subscribers) -> {
+      subscribers.members.remove(subscriber);
+      if (!subscribers.members.isEmpty()) {
+        return subscribers;
+      }
+      metrics.remove(subscribers.gauge);
+      return null;
+    });
+  }
+}
@@ -5,6 +5,8 @@ public enum AuctionEventType {
   AUCTION_SCHEDULED,
   AUCTION_OPENED,
   AUCTION_CLOSED,
-  BID_PLACED
+  BID_PLACED,
+  /** A late bid pushed {@code endTime} out (soft close); sent right after that bid's BID_PLACED. */
+  AUCTION_EXTENDED
 }
 
@@ -0,0 +1,33 @@
+package com.grepr.takehome.auction.realtime;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Raw DEFLATE (RFC 1951, no zlib header or trailer), the encoding permessage-deflate uses for a
+ * message; browsers inflate it with {@code new DecompressionStream("deflate-raw")}. Every call
+ * compresses independently, so the output can be shared by any number of receivers.
+ */
+public final class Deflate {
+  // A deflater holds a few hundred KB of native state; one per thread that compresses, reused.
+  private static final ThreadLocal<Deflater> DEFLATER =
+      ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+  private Deflate() {}
+
+  public static byte[] compress(byte[] input) {
+    Deflater deflater = DEFLATER.get();
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 64);
+      byte[] chunk = new byte[Math.max(256, input.length)];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.reset();
+    }
+  }
+}
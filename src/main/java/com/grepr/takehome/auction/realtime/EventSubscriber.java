@@ -0,0 +1,12 @@
+package com.grepr.takehome.auction.realtime;
+
+/** Something registered with {@link AuctionEventPublisher} to receive an item's events. */
+public interface EventSubscriber {
+  /**
+   * Hands one event to the subscriber. Called on a delivery thread shared with other items, so
+   * implementations should not block for long.
+   *
+   * @return {@code false} if the subscriber is gone and should be unregistered
+   */
+  boolean deliver(OutboundEvent event);
+}
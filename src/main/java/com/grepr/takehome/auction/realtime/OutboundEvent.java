@@ -0,0 +1,88 @@
+package com.grepr.takehome.auction.realtime;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * An event as it goes out to subscribers: serialized once by {@link AuctionEventPublisher} and
+ * shared by every subscriber of the item, whatever the transport.
+ *
+ * <p>{@code id} is the publisher's sequence number, increasing across all items. {@code eventId} is
+ * the same number qualified by the publisher instance; it is what SSE clients see and send back as
+ * {@code Last-Event-ID} to resume.
+ *
+ * <p>The compressed form for {@code /ws} subscribers that asked for it is built the same way: once,
+ * by whichever delivery reaches it first, and then sent to every such subscriber as is.
+ */
+public final class OutboundEvent {
+  private static final byte[] NOT_SMALLER = new byte[0];
+
+  private final long id;
+  private final String eventId;
+  private final AuctionEventType type;
+  private final String json;
+  // Built on first use; a race only builds an equal value twice.
+  private TextMessage textMessage;
+  private String sseFrame;
+  private byte[] deflated;
+
+  public OutboundEvent(long id, String eventId, AuctionEventType type, String json) {
+    this.id = id;
+    this.eventId = eventId;
+    this.type = type;
+    this.json = json;
+  }
+
+  public long id() {
+    return id;
+  }
+
+  public String eventId() {
+    return eventId;
+  }
+
+  public AuctionEventType type() {
+    return type;
+  }
+
+  public String json() {
+    return json;
+  }
+
+  public TextMessage textMessage() {
+    TextMessage message = textMessage;
+    if (message == null) {
+      message = new TextMessage(json);
+      textMessage = message;
+    }
+    return message;
+  }
+
+  /**
+   * The JSON as raw {@link Deflate DEFLATE}, or {@code null} when that is no smaller than the JSON
+   * itself (short events), in which case it should go out as text.
+   */
+  public byte[] deflated() {
+    byte[] compressed = deflated;
+    if (compressed == null) {
+      byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+      compressed = Deflate.compress(utf8);
+      if (compressed.length >= utf8.length) {
+        compressed = NOT_SMALLER;
+      }
+      deflated = compressed;
+    }
+    return compressed == NOT_SMALLER ? null : compressed;
+  }
+
+  /** The complete {@code text/event-stream} frame, including the blank line that ends it. */
+  public String sseFrame() {
+    String frame = sseFrame;
+    if (frame == null) {
+      // Serialized JSON never contains a raw newline, so it fits on a single data line.
+      frame = "id:" + eventId + "\nevent:" + type.name() + "\ndata:" + json + "\n\n";
+      sseFrame = frame;
+    }
+    return frame;
+  }
+}
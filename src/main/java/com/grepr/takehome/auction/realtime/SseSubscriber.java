@@ -0,0 +1,107 @@
+package com.grepr.takehome.auction.realtime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * An SSE stream ({@code GET /api/items/{itemId}/events}).
+ *
+ * <p>{@link #deliver} only queues the event, so a slow client never holds up the publishing thread.
+ * Each stream has its own virtual thread writing pre-rendered frames, several per flush when they
+ * pile up, and a comment line when idle so proxies keep the connection open. A client that falls
+ * {@code queueCapacity} events behind is disconnected; it reconnects with {@code Last-Event-ID}.
+ */
+public final class SseSubscriber implements EventSubscriber {
+  private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+  private static final String HEARTBEAT = ":\n\n";
+
+  private final SseEmitter emitter;
+  private final BlockingQueue<OutboundEvent> queue;
+  private final long heartbeatNanos;
+  private volatile boolean closed;
+  private volatile Thread writer;
+
+  public SseSubscriber(SseEmitter emitter, int queueCapacity, Duration heartbeat) {
+    this.emitter = emitter;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.heartbeatNanos = heartbeat.toNanos();
+  }
+
+  @Override
+  public boolean deliver(OutboundEvent event) {
+    if (closed) {
+      return false;
+    }
+    if (!queue.offer(event)) {
+      close();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Starts writing: {@code initialFrames} first, then queued events with an id above
+   * {@code skipThrough} (older ones are already covered by the initial frames).
+   */
+  public void start(String name, List<String> initialFrames, long skipThrough) {
+    writer = Thread.ofVirtual().name(name).start(() -> run(initialFrames, skipThrough));
+    if (closed) {
+      writer.interrupt();
+    }
+  }
+
+  public void close() {
+    closed = true;
+    Thread thread = writer;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void run(List<String> initialFrames, long skipThrough) {
+    List<OutboundEvent> batch = new ArrayList<>();
+    try {
+      write(String.join("", initialFrames));
+      while (!closed) {
+        OutboundEvent first = queue.poll(heartbeatNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          write(HEARTBEAT);
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch);
+        StringBuilder frames = new StringBuilder();
+        for (OutboundEvent event : batch) {
+          if (event.id() > skipThrough) {
+            frames.append(event.sseFrame());
+          }
+        }
+        batch.clear();
+        write(frames.toString());
+      }
+    } catch (InterruptedException e) {
+      // close()
+    } catch (IOException | IllegalStateException e) {
+      // Client went away, or the emitter already completed (timeout).
+    } finally {
+      closed = true;
+      emitter.complete();
+    }
+  }
+
+  private void write(String frames) throws IOException {
+    if (!frames.isEmpty()) {
+      emitter.send(Set.of(new DataWithMediaType(frames, TEXT_UTF8)));
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.grepr.takehome.auction.realtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The subscribers of one item: an append-only array with tombstones plus an index from subscriber to
+ * slot.
+ *
+ * <p>{@link #add} and {@link #remove} are O(1) (amortized: the array is compacted into a new one
+ * once tombstones outnumber live entries), where a {@code CopyOnWriteArraySet} copies the whole set
+ * on every change. {@link #forEach} takes no lock: slots never move within an array, so a fan-out
+ * running during a change still reaches every subscriber that was there throughout.
+ *
+ * <p>Writers synchronize on the set; readers rely on {@code slots} being published before
+ * {@code end}.
+ */
+public final class SubscriberSet<T> {
+  private static final int INITIAL_CAPACITY = 8;
+  private static final int MIN_TOMBSTONES_TO_COMPACT = 32;
+
+  private final Map<T, Integer> index = new HashMap<>();
+  private volatile Object[] slots = new Object[INITIAL_CAPACITY];
+  // Slots at or past end have never been used in the current array.
+  private volatile int end;
+  private volatile int size;
+
+  public synchronized boolean add(T subscriber) {
+    if (index.containsKey(subscriber)) {
+      return false;
+    }
+    Object[] current = slots;
+    int next = end;
+    if (next == current.length) {
+      int capacity = size >= current.length / 2 ? current.length * 2 : current.length;
+      current = compact(capacity);
+      next = end;
+    }
+    current[next] = subscriber;
+    index.put(subscriber, next);
+    end = next + 1;
+    size = size + 1;
+    return true;
+  }
+
+  public synchronized boolean remove(T subscriber) {
+    Integer slot = index.remove(subscriber);
+    if (slot == null) {
+      return false;
+    }
+    slots[slot] = null;
+    size = size - 1;
+    int tombstones = end - size;
+    if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > size) {
+      compact(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, size)) * 2));
+    }
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(Consumer<? super T> action) {
+    // end before slots: whichever array we then see is at least as new as that end.
+    int limit = end;
+    Object[] current = slots;
+    limit = Math.min(limit, current.length);
+    for (int i = 0; i < limit; i++) {
+      Object subscriber = current[i];
+      if (subscriber != null) {
+        action.accept((T) subscriber);
+      }
+    }
+  }
+
+  /**
+   * Moves the live entries to the front of a new array. A new one, never the current one: readers
+   * may still be iterating it.
+   */
+  @SuppressWarnings("unchecked")
+  private Object[] compact(int capacity) {
+    Object[] current = slots;
+    Object[] compacted = new Object[capacity];
+    int next = 0;
+    for (int i = 0, limit = end; i < limit; i++) {
+      Object subscriber = current[i];
+      if (subscriber != null) {
+        compacted[next] = subscriber;
+        index.put((T) subscriber, next);
+        next++;
+      }
+    }
+    slots = compacted;
+    end = next;
+    return compacted;
+  }
+}
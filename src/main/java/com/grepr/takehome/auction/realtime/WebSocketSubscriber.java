@@ -0,0 +1,42 @@
+package com.grepr.takehome.auction.realtime;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * A {@code /ws} session. Sends on the delivery thread, as the WebSocket path always has; equal per
+ * session, so the same session can be added and removed by value.
+ *
+ * <p>A {@code compressed} subscriber gets each event as a binary message holding the event's shared
+ * {@link OutboundEvent#deflated() DEFLATE bytes}, or as text when compressing did not pay off.
+ */
+record WebSocketSubscriber(WebSocketSession session, boolean compressed) implements EventSubscriber {
+  WebSocketSubscriber(WebSocketSession session) {
+    this(session, false);
+  }
+
+  @Override
+  public boolean deliver(OutboundEvent event) {
+    if (!session.isOpen()) {
+      return false;
+    }
+    try {
+      byte[] deflated = compressed ? event.deflated() : null;
+      // A fresh message per send: the payload buffer's position is consumed by sending it.
+      session.sendMessage(deflated != null ? new BinaryMessage(deflated) : event.textMessage());
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof WebSocketSubscriber that && session.equals(that.session);
+  }
+
+  @Override
+  public int hashCode() {
+    return session.hashCode();
+  }
+}
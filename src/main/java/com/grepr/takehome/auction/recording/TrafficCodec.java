@@ -0,0 +1,156 @@
+package com.grepr.takehome.auction.recording;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.repo.AuctionListing;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary form of a {@link TrafficRecorder} file; {@code loadgen}'s {@code TrafficLog} reads it.
+ * Big-endian, fixed field order, no field names. Numbers marked varint are unsigned LEB128.
+ *
+ * <pre>
+ * header    int magic 'ATRF', byte version, long start (epoch micros)
+ * record    byte type, varint offset (micros since start), then by type:
+ *   AUCTION   uuid itemId, byte status (0 scheduled, 1 open), long startTime, long endTime
+ *             (epoch micros), decimal currentPrice, decimal minIncrement
+ *   SUBSCRIBE varint session, uuid itemId
+ *   BID       byte channel (0 HTTP, 1 WebSocket), [varint session if WebSocket], uuid itemId,
+ *             uuid bidderUserId, decimal amount, byte outcome, varint latency (micros),
+ *             byte hasKey, [UTF idempotencyKey if hasKey]
+ *   CLOSE     varint session
+ * decimal   varint zigzag(scale), byte length, unscaled two's-complement bytes
+ * </pre>
+ *
+ * Records are written as calls complete, so offsets are only roughly increasing. Changing the
+ * layout needs a new version.
+ */
+final class TrafficCodec {
+  static final int MAGIC = 0x41545246;
+  static final byte VERSION = 1;
+
+  static final byte AUCTION = 1;
+  static final byte SUBSCRIBE = 2;
+  static final byte BID = 3;
+  static final byte CLOSE = 4;
+
+  static final byte HTTP = 0;
+  static final byte WEBSOCKET = 1;
+
+  private TrafficCodec() {}
+
+  static byte[] header(Instant start) {
+    return encode(out -> {
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeLong(micros(start));
+    });
+  }
+
+  static byte[] auction(long offsetMicros, AuctionListing listing) {
+    return encode(out -> {
+      out.writeByte(AUCTION);
+      putVarLong(out, offsetMicros);
+      putUuid(out, listing.itemId());
+      out.writeByte(listing.status() == AuctionStatus.OPEN ? 1 : 0);
+      out.writeLong(micros(listing.startTime()));
+      out.writeLong(micros(listing.endTime()));
+      putDecimal(out, listing.currentPrice());
+      putDecimal(out, listing.minIncrement());
+    });
+  }
+
+  static byte[] subscribe(long offsetMicros, int session, UUID itemId) {
+    return encode(out -> {
+      out.writeByte(SUBSCRIBE);
+      putVarLong(out, offsetMicros);
+      putVarLong(out, session);
+      putUuid(out, itemId);
+    });
+  }
+
+  /** {@code session} is negative for HTTP. */
+  static byte[] bid(
+      long offsetMicros,
+      int session,
+      UUID itemId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      String idempotencyKey,
+      TrafficRecorder.Outcome outcome,
+      long latencyMicros
+  ) {
+    return encode(out -> {
+      out.writeByte(BID);
+      putVarLong(out, offsetMicros);
+      out.writeByte(session < 0 ? HTTP : WEBSOCKET);
+      if (session >= 0) {
+        putVarLong(out, session);
+      }
+      putUuid(out, itemId);
+      putUuid(out, bidderUserId);
+      putDecimal(out, amount);
+      out.writeByte(outcome.ordinal());
+      putVarLong(out, latencyMicros);
+      out.writeByte(idempotencyKey == null ? 0 : 1);
+      if (idempotencyKey != null) {
+        out.writeUTF(idempotencyKey);
+      }
+    });
+  }
+
+  static byte[] close(long offsetMicros, int session) {
+    return encode(out -> {
+      out.writeByte(CLOSE);
+      putVarLong(out, offsetMicros);
+      putVarLong(out, session);
+    });
+  }
+
+  private interface Body {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  private static byte[] encode(Body body) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      body.write(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static long micros(Instant value) {
+    return Math.addExact(Math.multiplyExact(value.getEpochSecond(), 1_000_000L), value.getNano() / 1_000);
+  }
+
+  private static void putVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static void putUuid(DataOutputStream out, UUID value) throws IOException {
+    out.writeLong(value.getMostSignificantBits());
+    out.writeLong(value.getLeastSignificantBits());
+  }
+
+  /** @throws IllegalArgumentException if the unscaled value is over 255 bytes */
+  private static void putDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    byte[] unscaled = value.unscaledValue().toByteArray();
+    if (unscaled.length > 0xFF) {
+      throw new IllegalArgumentException("Decimal too large to record");
+    }
+    putVarLong(out, Integer.toUnsignedLong((value.scale() << 1) ^ (value.scale() >> 31)));
+    out.writeByte(unscaled.length);
+    out.write(unscaled);
+  }
+}
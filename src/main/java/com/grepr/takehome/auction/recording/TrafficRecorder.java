@@ -0,0 +1,247 @@
+package com.grepr.takehome.auction.recording;
+
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.exception.ConflictException;
+import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.repo.AuctionListing;
+import com.grepr.takehome.auction.service.ActiveAuctionIndex;
+import com.grepr.takehome.auction.service.BidReceipt;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the bid traffic this node receives, for {@code loadgen}'s replay: every
+ * {@code placeBid} from {@code POST /api/items/{itemId}/bids} and {@code PLACE_BID} on
+ * {@code /ws}, with its outcome and latency, and every {@code SUBSCRIBE} and {@code /ws} close.
+ * The first time an item shows up, its auction as {@link ActiveAuctionIndex} has it is recorded
+ * too, so a replay can recreate it. The layout is in {@link TrafficCodec}.
+ *
+ * <p>Off unless {@code auction.recording.enabled}. Callers only encode a record and offer it to a
+ * queue of {@code queue-size}; one thread writes the file, {@code traffic-<time>.rec} under
+ * {@code dir}. A record that does not fit the queue is dropped and counted rather than slowing the
+ * bid down. Recording stops once the file reaches {@code max-bytes}.
+ *
+ * <p>WebSocket sessions are numbered in the order they are first seen; their ids are not recorded.
+ * Bidder and item ids are, as is any idempotency key.
+ */
+@Component
+public class TrafficRecorder {
+  private static final Logger log = LoggerFactory.getLogger(TrafficRecorder.class);
+  private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  /** What a recorded bid got; the order is the file's. */
+  public enum Outcome { ACCEPTED, REPLAYED, REJECTED, THROTTLED, FAILED }
+
+  private final boolean enabled;
+  private final ActiveAuctionIndex activeAuctions;
+  private final long maxBytes;
+  private final long startNanos = System.nanoTime();
+  private final ArrayBlockingQueue<byte[]> queue;
+  private final Set<UUID> describedItems = ConcurrentHashMap.newKeySet();
+  private final ConcurrentHashMap<String, Integer> sessionNumbers = new ConcurrentHashMap<>();
+  private final AtomicInteger nextSession = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Path file;
+  private final OutputStream out;
+  private Thread writer;
+  private volatile boolean recording;
+
+  public TrafficRecorder(
+      Clock clock,
+      ActiveAuctionIndex activeAuctions,
+      @Value("${auction.recording.enabled:false}") boolean enabled,
+      @Value("${auction.recording.dir:data/recordings}") Path dir,
+      @Value("${auction.recording.queue-size:65536}") int queueSize,
+      @Value("${auction.recording.max-bytes:1073741824}") long maxBytes
+  ) throws IOException {
+    this.enabled = enabled;
+    this.activeAuctions = activeAuctions;
+    this.maxBytes = maxBytes;
+    if (!enabled) {
+      this.queue = null;
+      this.file = null;
+      this.out = null;
+      return;
+    }
+
+    Instant start = Instant.now(clock);
+    Files.createDirectories(dir);
+    this.file = dir.resolve("traffic-" + FILE_TIME.format(start) + ".rec");
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+    out.write(TrafficCodec.header(start));
+  }
+
+  /** Starts the writer; nothing is recorded before then. */
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    recording = true;
+    writer = Thread.ofPlatform().name("auction-traffic-recorder").daemon().start(this::write);
+    log.info("Recording bid traffic to {}", file.toAbsolutePath());
+  }
+
+  /**
+   * Runs {@code placeBid} and records it with its outcome; exceptions are rethrown as they are.
+   * {@code sessionId} is the {@code /ws} session, {@code null} for HTTP.
+   */
+  public BidReceipt bid(
+      String sessionId,
+      UUID itemId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      String idempotencyKey,
+      Supplier<BidReceipt> placeBid
+  ) {
+    if (!recording) {
+      return placeBid.get();
+    }
+    // Before the bid, so a first bid does not move the recorded starting price.
+    describe(itemId);
+    long started = System.nanoTime();
+    Outcome outcome = Outcome.FAILED;
+    try {
+      BidReceipt receipt = placeBid.get();
+      outcome = receipt.replayed() ? Outcome.REPLAYED : Outcome.ACCEPTED;
+      return receipt;
+    } catch (BadRequestException | NotFoundException | ConflictException e) {
+      outcome = Outcome.REJECTED;
+      throw e;
+    } catch (TooManyRequestsException e) {
+      outcome = Outcome.THROTTLED;
+      throw e;
+    } finally {
+      int session = sessionId == null ? -1 : sessionNumber(sessionId);
+      long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+      Outcome recorded = outcome;
+      offer(() -> TrafficCodec.bid(
+          offset(started), session, itemId, bidderUserId, amount, idempotencyKey, recorded, latencyMicros));
+    }
+  }
+
+  public void subscribe(String sessionId, UUID itemId) {
+    if (!recording) {
+      return;
+    }
+    long offset = offset(System.nanoTime());
+    describe(itemId);
+    int session = sessionNumber(sessionId);
+    offer(() -> TrafficCodec.subscribe(offset, session, itemId));
+  }
+
+  public void closed(String sessionId) {
+    if (!recording) {
+      return;
+    }
+    Integer session = sessionNumbers.remove(sessionId);
+    if (session != null) {
+      long offset = offset(System.nanoTime());
+      offer(() -> TrafficCodec.close(offset, session));
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (!enabled) {
+      return;
+    }
+    recording = false;
+    writer.interrupt();
+    writer.join(TimeUnit.SECONDS.toMillis(5));
+    if (dropped.get() > 0) {
+      log.warn("Dropped {} traffic records that did not fit the queue", dropped.get());
+    }
+  }
+
+  private void describe(UUID itemId) {
+    if (describedItems.contains(itemId)) {
+      return;
+    }
+    // Not described until it is active: an item bid on before it is scheduled gets its record later.
+    AuctionListing listing = activeAuctions.get(itemId);
+    if (listing != null && describedItems.add(itemId)) {
+      long offset = offset(System.nanoTime());
+      offer(() -> TrafficCodec.auction(offset, listing));
+    }
+  }
+
+  private int sessionNumber(String sessionId) {
+    return sessionNumbers.computeIfAbsent(sessionId, id -> nextSession.getAndIncrement());
+  }
+
+  private long offset(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos - startNanos);
+  }
+
+  private void offer(Supplier<byte[]> record) {
+    byte[] encoded;
+    try {
+      encoded = record.get();
+    } catch (RuntimeException e) {
+      // An amount or idempotency key too large for the format.
+      dropped.incrementAndGet();
+      return;
+    }
+    if (!queue.offer(encoded)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private void write() {
+    long written = 0;
+    try (out) {
+      while (true) {
+        byte[] record = queue.poll();
+        if (record == null) {
+          out.flush();
+          if (!recording && queue.isEmpty()) {
+            break;
+          }
+          try {
+            record = queue.take();
+          } catch (InterruptedException e) {
+            // Stopping: write out what is queued, then close.
+            recording = false;
+            continue;
+          }
+        }
+        out.write(record);
+        written += record.length;
+        if (written >= maxBytes) {
+          recording = false;
+          queue.clear();
+          log.warn("Traffic recording reached {} bytes, stopped", written);
+          break;
+        }
+      }
+    } catch (IOException e) {
+      recording = false;
+      log.error("Traffic recording to {} failed, stopped", file, e);
+    }
+  }
+}
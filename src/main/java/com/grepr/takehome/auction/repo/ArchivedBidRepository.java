@@ -0,0 +1,18 @@
+package com.grepr.takehome.auction.repo;
+
+import com.grepr.takehome.auction.domain.ArchivedBid;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ArchivedBidRepository extends JpaRepository<ArchivedBid, UUID> {
+  @Query("""
+      select new com.grepr.takehome.auction.repo.BidView(b.id, b.auctionId, b.bidderUserId, b.amount, b.createdAt)
+      from ArchivedBid b
+      where b.auctionId = :auctionId
+      order by b.createdAt desc
+      """)
+  List<BidView> findHistory(@Param("auctionId") UUID auctionId);
+}
@@ -0,0 +1,19 @@
+package com.grepr.takehome.auction.repo;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/** An active auction as the storefront lists it: the auction's live state plus its item's name. */
+public record AuctionListing(
+    UUID itemId,
+    String itemName,
+    UUID auctionId,
+    AuctionStatus status,
+    Instant startTime,
+    Instant endTime,
+    BigDecimal currentPrice,
+    BigDecimal minIncrement,
+    UUID currentWinnerUserId
+) {}
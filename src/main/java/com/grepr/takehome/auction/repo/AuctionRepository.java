@@ -3,19 +3,30 @@ package com.grepr.takehome.auction.repo;
 import com.grepr.takehome.auction.domain.Auction;
 import com.grepr.takehome.auction.domain.AuctionStatus;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
 
 public interface AuctionRepository extends JpaRepository<Auction, UUID> {
   Optional<Auction> findByItem_Id(UUID itemId);
 
+  @Query("""
+      select new com.grepr.takehome.auction.repo.BidHistoryScope(a.id, a.startTime, a.endTime, a.bidsArchivedAt)
+      from Auction a
+      where a.item.id = :itemId
+      """)
+  Optional<BidHistoryScope> findBidHistoryScope(@Param("itemId") UUID itemId);
+
   @Lock(LockModeType.PESSIMISTIC_WRITE)
   @Query("select a from Auction a where a.item.id = :itemId")
   Optional<Auction> findByItemIdForUpdate(@Param("itemId") UUID itemId);
@@ -25,5 +36,53 @@ public interface AuctionRepository extends JpaRepository<Auction, UUID> {
 
   @Query("select a from Auction a where a.status = :status and a.endTime <= :now")
   List<Auction> findOpenToClose(@Param("status") AuctionStatus status, @Param("now") Instant now);
-}
 
+  @Query("select a from Auction a where a.status = :open or (a.status = :scheduled and a.startTime <= :startsBefore) order by a.startTime")
+  List<Auction> findOpenOrStartingBefore(
+      @Param("open") AuctionStatus open,
+      @Param("scheduled") AuctionStatus scheduled,
+      @Param("startsBefore") Instant startsBefore,
+      Limit limit
+  );
+
+  @Query("""
+      select new com.grepr.takehome.auction.repo.AuctionListing(
+        a.item.id, a.item.name, a.id, a.status, a.startTime, a.endTime, a.currentPrice, a.minIncrement,
+        a.currentWinnerUserId)
+      from Auction a
+      where a.status in :statuses
+      """)
+  List<AuctionListing> findListings(@Param("statuses") Collection<AuctionStatus> statuses);
+
+  /**
+   * Status transition guarded by the version the caller read: returns 0, and changes nothing, if the
+   * auction was written since (e.g. a late bid extended it).
+   */
+  @Modifying
+  @Transactional
+  @Query("""
+      update Auction a set a.status = :status, a.closedAt = :closedAt, a.version = a.version + 1
+      where a.id = :id and a.version = :version
+      """)
+  int updateStatusIfUnchanged(
+      @Param("id") UUID id,
+      @Param("version") long version,
+      @Param("status") AuctionStatus status,
+      @Param("closedAt") Instant closedAt
+  );
+
+  @Query("select a from Auction a where a.status = :status and a.closedAt <= :closedBefore and a.bidsArchivedAt is null order by a.closedAt")
+  List<Auction> findClosedUnarchived(@Param("status") AuctionStatus status, @Param("closedBefore") Instant closedBefore, Limit limit);
+
+  @Modifying
+  @Query(value = "update auctions set bids_archived_at = :archivedAt where id = :id", nativeQuery = true)
+  int markBidsArchived(@Param("id") UUID id, @Param("archivedAt") Instant archivedAt);
+
+  @Query(value = "select bidder_user_id from auction_bidders where auction_id = :auctionId", nativeQuery = true)
+  List<UUID> findBidderIds(@Param("auctionId") UUID auctionId);
+
+  /** Records {@code bidderUserId} as a bidder of the auction; returns 0 if they already were one. */
+  @Modifying
+  @Query(value = "insert into auction_bidders (auction_id, bidder_user_id) values (:auctionId, :bidderUserId) on conflict do nothing", nativeQuery = true)
+  int addBidder(@Param("auctionId") UUID auctionId, @Param("bidderUserId") UUID bidderUserId);
+}
@@ -0,0 +1,12 @@
+package com.grepr.takehome.auction.repo;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** The auction columns a bid history read needs: where the bids live and which partitions to scan. */
+public record BidHistoryScope(
+    UUID auctionId,
+    Instant startTime,
+    Instant endTime,
+    Instant bidsArchivedAt
+) {}
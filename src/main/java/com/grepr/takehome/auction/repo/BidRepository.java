@@ -1,11 +1,42 @@
 package com.grepr.takehome.auction.repo;
 
 import com.grepr.takehome.auction.domain.Bid;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface BidRepository extends JpaRepository<Bid, UUID> {
-  List<Bid> findByAuction_IdOrderByCreatedAtDesc(UUID auctionId);
-}
+  /** A single bid by its full primary key, so only the partition holding it is read. */
+  Optional<Bid> findByIdAndCreatedAt(UUID id, Instant createdAt);
+
+  /**
+   * Bids of an auction, newest first. {@code from}/{@code to} should be the auction's open window:
+   * every bid was created inside it, and bounding {@code created_at} lets Postgres skip the daily
+   * partitions outside it.
+   */
+  @Query("""
+      select new com.grepr.takehome.auction.repo.BidView(b.id, b.auction.id, b.bidderUserId, b.amount, b.createdAt)
+      from Bid b
+      where b.auction.id = :auctionId and b.createdAt >= :from and b.createdAt <= :to
+      order by b.createdAt desc
+      """)
+  List<BidView> findHistory(@Param("auctionId") UUID auctionId, @Param("from") Instant from, @Param("to") Instant to);
 
+  /** Moves an auction's bids into {@code bids_archive}; same partition bounds as {@link #findHistory}. */
+  @Modifying
+  @Query(value = """
+      with moved as (
+        delete from bids
+        where auction_id = :auctionId and created_at >= :from and created_at <= :to
+        returning id, auction_id, bidder_user_id, amount, created_at
+      )
+      insert into bids_archive (id, auction_id, bidder_user_id, amount, created_at)
+      select id, auction_id, bidder_user_id, amount, created_at from moved
+      """, nativeQuery = true)
+  int archive(@Param("auctionId") UUID auctionId, @Param("from") Instant from, @Param("to") Instant to);
+}
@@ -0,0 +1,16 @@
+package com.grepr.takehome.auction.repo;
+
+import com.grepr.takehome.auction.domain.BidRequest;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface BidRequestRepository extends JpaRepository<BidRequest, BidRequest.Key> {
+  @Modifying
+  @Transactional
+  @Query("delete from BidRequest r where r.createdAt < :cutoff")
+  int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
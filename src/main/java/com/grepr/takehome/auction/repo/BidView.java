@@ -0,0 +1,14 @@
+package com.grepr.takehome.auction.repo;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Read-only projection of a bid from either {@code bids} or {@code bids_archive}. */
+public record BidView(
+    UUID id,
+    UUID auctionId,
+    UUID bidderUserId,
+    BigDecimal amount,
+    Instant createdAt
+) {}
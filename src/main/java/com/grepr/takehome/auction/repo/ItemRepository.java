@@ -1,8 +1,31 @@
 package com.grepr.takehome.auction.repo;
 
 import com.grepr.takehome.auction.domain.Item;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ItemRepository extends JpaRepository<Item, UUID> {}
+public interface ItemRepository extends JpaRepository<Item, UUID> {
+  @Query("""
+      select new com.grepr.takehome.auction.repo.ItemView(
+        i.id, i.name, i.description, i.createdAt,
+        a.id, a.status, a.startTime, a.endTime, a.startingPrice, a.minIncrement, a.currentPrice,
+        a.currentWinnerUserId, a.closedAt)
+      from Item i left join Auction a on a.item = i
+      order by i.createdAt desc
+      """)
+  List<ItemView> findAllViews();
 
+  @Query("""
+      select new com.grepr.takehome.auction.repo.ItemView(
+        i.id, i.name, i.description, i.createdAt,
+        a.id, a.status, a.startTime, a.endTime, a.startingPrice, a.minIncrement, a.currentPrice,
+        a.currentWinnerUserId, a.closedAt)
+      from Item i left join Auction a on a.item = i
+      where i.id = :itemId
+      """)
+  Optional<ItemView> findViewById(@Param("itemId") UUID itemId);
+}
@@ -0,0 +1,30 @@
+package com.grepr.takehome.auction.repo;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only projection of an item joined with its auction, mapped straight from a JPQL constructor
+ * expression. The auction columns are all {@code null} when the item has no auction.
+ */
+public record ItemView(
+    UUID id,
+    String name,
+    String description,
+    Instant createdAt,
+    UUID auctionId,
+    AuctionStatus auctionStatus,
+    Instant startTime,
+    Instant endTime,
+    BigDecimal startingPrice,
+    BigDecimal minIncrement,
+    BigDecimal currentPrice,
+    UUID currentWinnerUserId,
+    Instant closedAt
+) {
+  public boolean hasAuction() {
+    return auctionId != null;
+  }
+}
@@ -0,0 +1,33 @@
+package com.grepr.takehome.auction.repo;
+
+import com.grepr.takehome.auction.domain.Settlement;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SettlementRepository extends JpaRepository<Settlement, Long> {
+  List<Settlement> findBySequenceGreaterThanOrderBySequence(long after, Limit limit);
+
+  /**
+   * Settles a CLOSED auction from its row as this transaction sees it; returns 0 if it is not
+   * closed or already settled. Must run in the transaction that closed it.
+   *
+   * <p>Takes a transaction-scoped advisory lock (key 7453656, not used anywhere else) before the
+   * sequence is drawn, so settlements commit
+   * in sequence order and a reader paging by sequence can never skip one that commits late.
+   */
+  @Modifying
+  @Query(value = """
+      with ordered as (select pg_advisory_xact_lock(7453656))
+      insert into auction_settlements (auction_id, item_id, winner_user_id, final_price, bid_count, bidder_count, closed_at)
+      select a.id, a.item_id, a.current_winner_user_id, a.current_price, a.bid_count, a.bidder_count, a.closed_at
+      from auctions a cross join ordered
+      where a.id = :auctionId and a.status = 'CLOSED'
+      on conflict (auction_id) do nothing
+      """, nativeQuery = true)
+  int settle(@Param("auctionId") UUID auctionId);
+}
@@ -2,58 +2,115 @@ package com.grepr.takehome.auction.scheduler;
 
 import com.grepr.takehome.auction.domain.Auction;
 import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.engine.AuctionEngine;
 import com.grepr.takehome.auction.realtime.AuctionEventMapper;
 import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
 import com.grepr.takehome.auction.realtime.AuctionEventType;
 import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.repo.SettlementRepository;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Opens and closes auctions whose start/end time has passed.
+ *
+ * <p>Each transition is a single update guarded by the version read here, so it never overwrites a
+ * concurrent bid: if a late bid extended the auction (soft close) in between, the close simply
+ * doesn't happen. Every tick queries the due auctions afresh, so the extended one is not picked up
+ * again before its new end time. Transitions are applied
+ * {@code auction.scheduler.batch-size} per transaction; a close writes the auction's settlement in
+ * the same transaction. Events are published once it has committed.
+ *
+ * <p>With the {@link AuctionEngine} enabled, each transition is handed to the item's engine loop
+ * instead, which applies it to the in-memory state if it holds the item and batches the rest the
+ * same way.
+ */
 @Component
 public class AuctionStateScheduler {
   private final Clock clock;
   private final AuctionRepository auctionRepository;
+  private final SettlementRepository settlementRepository;
   private final AuctionEventPublisher eventPublisher;
   private final AuctionEventMapper eventMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final AuctionEngine engine;
+  private final int batchSize;
 
   public AuctionStateScheduler(
       Clock clock,
       AuctionRepository auctionRepository,
+      SettlementRepository settlementRepository,
       AuctionEventPublisher eventPublisher,
-      AuctionEventMapper eventMapper
+      AuctionEventMapper eventMapper,
+      TransactionTemplate transactionTemplate,
+      ObjectProvider<AuctionEngine> engine,
+      @Value("${auction.scheduler.batch-size:100}") int batchSize
   ) {
     this.clock = clock;
     this.auctionRepository = auctionRepository;
+    this.settlementRepository = settlementRepository;
     this.eventPublisher = eventPublisher;
     this.eventMapper = eventMapper;
+    this.transactionTemplate = transactionTemplate;
+    this.engine = engine.getIfAvailable();
+    this.batchSize = batchSize;
   }
 
   @Scheduled(fixedDelayString = "${auction.scheduler.delay-ms:1000}")
-  @Transactional
   public void refreshAuctionStates() {
     Instant now = Instant.now(clock);
 
-    List<Auction> toOpen = auctionRepository.findScheduledToOpen(AuctionStatus.SCHEDULED, now);
-    for (Auction auction : toOpen) {
-      boolean changed = auction.refreshStatus(now);
-      Auction saved = auctionRepository.save(auction);
-      if (changed && saved.getStatus() == AuctionStatus.OPEN) {
-        eventPublisher.publish(saved.getItem().getId(), eventMapper.auctionEvent(AuctionEventType.AUCTION_OPENED, saved.getItem().getId(), saved, now));
-      }
+    // Read-write transaction so this reads the primary, not a possibly stale replica.
+    List<Auction> due = transactionTemplate.execute(status -> {
+      List<Auction> auctions = new ArrayList<>(auctionRepository.findScheduledToOpen(AuctionStatus.SCHEDULED, now));
+      auctions.addAll(auctionRepository.findOpenToClose(AuctionStatus.OPEN, now));
+      return auctions;
+    });
+
+    if (engine == null) {
+      transitionInBatches(due, now);
+      return;
     }
+    // Waits, so a slow tick is not queued again on the loops by the next one.
+    engine.refreshStatuses(due, unloaded -> transitionInBatches(unloaded, now)).join();
+  }
 
-    List<Auction> toClose = auctionRepository.findOpenToClose(AuctionStatus.OPEN, now);
-    for (Auction auction : toClose) {
-      boolean changed = auction.refreshStatus(now);
-      Auction saved = auctionRepository.save(auction);
-      if (changed && saved.getStatus() == AuctionStatus.CLOSED) {
-        eventPublisher.publish(saved.getItem().getId(), eventMapper.auctionEvent(AuctionEventType.AUCTION_CLOSED, saved.getItem().getId(), saved, now));
-      }
+  private void transitionInBatches(List<Auction> auctions, Instant now) {
+    for (int from = 0; from < auctions.size(); from += batchSize) {
+      transition(auctions.subList(from, Math.min(auctions.size(), from + batchSize)), now);
     }
   }
-}
 
+  private void transition(List<Auction> auctions, Instant now) {
+    transactionTemplate.executeWithoutResult(status -> {
+      for (Auction auction : auctions) {
+        long readVersion = auction.getVersion();
+        // Detached: the transition is applied in memory for the event payload and written below.
+        if (!auction.refreshStatus(now)) {
+          continue;
+        }
+        int updated = auctionRepository.updateStatusIfUnchanged(
+            auction.getId(), readVersion, auction.getStatus(), auction.getClosedAt());
+        if (updated == 0) {
+          continue;
+        }
+        AuctionEventType type = AuctionEventType.AUCTION_OPENED;
+        if (auction.getStatus() == AuctionStatus.CLOSED) {
+          settlementRepository.settle(auction.getId());
+          type = AuctionEventType.AUCTION_CLOSED;
+        }
+        // The update holds the row lock, so this is ordered with the item's bids.
+        UUID itemId = auction.getItem().getId();
+        eventPublisher.publishAfterCommit(itemId, List.of(eventMapper.auctionEvent(type, itemId, auction, now)));
+      }
+    });
+  }
+}
@@ -0,0 +1,66 @@
+package com.grepr.takehome.auction.scheduler;
+
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.repo.BidRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves the bids of auctions closed for longer than {@code auction.bids.archive.after-closed-days}
+ * from the partitioned {@code bids} table into {@code bids_archive}.
+ *
+ * <p>Each auction is moved in its own transaction together with setting
+ * {@code auctions.bids_archived_at}, so history reads see the bids in exactly one of the two tables.
+ */
+@Component
+public class BidArchiver {
+  private final Clock clock;
+  private final AuctionRepository auctionRepository;
+  private final BidRepository bidRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final Duration archiveAfter;
+  private final int batchSize;
+
+  public BidArchiver(
+      Clock clock,
+      AuctionRepository auctionRepository,
+      BidRepository bidRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${auction.bids.archive.enabled:true}") boolean enabled,
+      @Value("${auction.bids.archive.after-closed-days:7}") int afterClosedDays,
+      @Value("${auction.bids.archive.batch-size:100}") int batchSize
+  ) {
+    this.clock = clock;
+    this.auctionRepository = auctionRepository;
+    this.bidRepository = bidRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+    this.archiveAfter = Duration.ofDays(afterClosedDays);
+    this.batchSize = batchSize;
+  }
+
+  @Scheduled(fixedDelayString = "${auction.bids.archive.delay-ms:60000}")
+  public void archiveClosedAuctions() {
+    if (!enabled) {
+      return;
+    }
+    Instant now = Instant.now(clock);
+    List<Auction> auctions = auctionRepository.findClosedUnarchived(AuctionStatus.CLOSED, now.minus(archiveAfter), Limit.of(batchSize));
+    for (Auction auction : auctions) {
+      transactionTemplate.executeWithoutResult(status -> {
+        bidRepository.archive(auction.getId(), auction.getStartTime(), auction.getEndTime());
+        auctionRepository.markBidsArchived(auction.getId(), now);
+      });
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.grepr.takehome.auction.scheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the daily partitions of {@code bids} (see {@code V2__partition_bids.sql}) rolling.
+ *
+ * <p>Creates partitions a few days ahead so inserts never fall into {@code bids_default}, and drops
+ * old daily partitions once the archival job has emptied them. Non-empty partitions are left alone,
+ * so a long-running auction only delays the drop.
+ */
+@Component
+public class BidPartitionMaintainer {
+  private static final Logger log = LoggerFactory.getLogger(BidPartitionMaintainer.class);
+  private static final String PARTITION_PREFIX = "bids_p";
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+  private final Clock clock;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int daysAhead;
+  private final int retentionDays;
+
+  public BidPartitionMaintainer(
+      Clock clock,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      @Value("${auction.bids.partitions.days-ahead:3}") int daysAhead,
+      @Value("${auction.bids.partitions.retention-days:14}") int retentionDays
+  ) {
+    this.clock = clock;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.daysAhead = daysAhead;
+    this.retentionDays = retentionDays;
+  }
+
+  @Scheduled(fixedDelayString = "${auction.bids.partitions.maintenance-delay-ms:3600000}")
+  public void maintainPartitions() {
+    LocalDate today = LocalDate.ofInstant(Instant.now(clock), ZoneOffset.UTC);
+    for (int i = 0; i <= daysAhead; i++) {
+      createPartition(today.plusDays(i));
+    }
+    dropEmptyPartitionsBefore(today.minusDays(retentionDays));
+  }
+
+  private void createPartition(LocalDate day) {
+    String sql = "create table if not exists %s partition of bids for values from ('%s') to ('%s')".formatted(
+        partitionName(day), day.atStartOfDay(ZoneOffset.UTC).toInstant(), day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+    try {
+      jdbcTemplate.execute(sql);
+    } catch (DataAccessException e) {
+      // Typically bids_default already holds rows for this day; they have to be moved by hand.
+      log.warn("Could not create bid partition for {}", day, e);
+    }
+  }
+
+  private void dropEmptyPartitionsBefore(LocalDate cutoff) {
+    List<String> partitions = jdbcTemplate.queryForList("""
+        select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'bids'::regclass and c.relname like 'bids\\_p%'
+        """, String.class);
+    for (String partition : partitions) {
+      LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+      if (!day.isBefore(cutoff)) {
+        continue;
+      }
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          // Dropping a partition locks the parent table; give up rather than queue behind bids.
+          jdbcTemplate.execute("set local lock_timeout = '2s'");
+          Boolean empty = jdbcTemplate.queryForObject("select not exists (select 1 from " + partition + ")", Boolean.class);
+          if (Boolean.TRUE.equals(empty)) {
+            jdbcTemplate.execute("drop table " + partition);
+          }
+        });
+      } catch (DataAccessException e) {
+        log.warn("Could not drop bid partition {}", partition, e);
+      }
+    }
+  }
+
+  private static String partitionName(LocalDate day) {
+    return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+  }
+}
@@ -0,0 +1,35 @@
+package com.grepr.takehome.auction.scheduler;
+
+import com.grepr.takehome.auction.repo.BidRequestRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes {@code bid_requests} rows older than {@code auction.bids.idempotency.retention-hours}.
+ * They only have to outlive client retries; after that a reused key simply places a new bid.
+ */
+@Component
+public class BidRequestPurger {
+  private final Clock clock;
+  private final BidRequestRepository bidRequestRepository;
+  private final Duration retention;
+
+  public BidRequestPurger(
+      Clock clock,
+      BidRequestRepository bidRequestRepository,
+      @Value("${auction.bids.idempotency.retention-hours:24}") long retentionHours
+  ) {
+    this.clock = clock;
+    this.bidRequestRepository = bidRequestRepository;
+    this.retention = Duration.ofHours(retentionHours);
+  }
+
+  @Scheduled(fixedDelayString = "${auction.bids.idempotency.purge-delay-ms:600000}")
+  public void purgeExpired() {
+    bidRequestRepository.deleteCreatedBefore(Instant.now(clock).minus(retention));
+  }
+}
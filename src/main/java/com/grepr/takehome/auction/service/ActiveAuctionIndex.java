@@ -0,0 +1,318 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
+import com.grepr.takehome.auction.realtime.AuctionEventType;
+import com.grepr.takehome.auction.repo.AuctionListing;
+import com.grepr.takehome.auction.repo.AuctionRepository;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * SCHEDULED and OPEN auctions kept in memory, sorted by start time and by end time, so the
+ * storefront's "starting next" and "ending soon" lists are a skip-list seek plus one page, with no
+ * query.
+ *
+ * <p>It is loaded from the database at startup. Auctions join it as they are scheduled, one at a
+ * time ({@link #add}, once the schedule commits) or by catalog import. From then on it follows each
+ * item's events as {@link AuctionEventPublisher} delivers them, in commit order: a bid moves the
+ * price, a soft-close extension the end time, opening moves the auction to the live list and
+ * closing drops it. The events only carry this node's writes, so every {@code reconcile-ms} it also
+ * re-reads the active auctions and catches up with what other nodes did: auctions they scheduled,
+ * opened, extended or closed.
+ *
+ * <p>It starts observing before the load, and holds the events delivered meanwhile until the load
+ * is in. An auction only moves forward (status, then price, then end time), so an event is applied
+ * only if it is ahead of the listing: one the loaded row already reflects changes nothing. A
+ * reconcile's rows are applied the same way, and an auction missing from them is dropped only if it
+ * was indexed before the query started. One closed here is not added back from a row read before
+ * the close was written.
+ *
+ * <p>An auction that changes while a page is being read can be missing from it or show up on two
+ * pages; a listing is always one consistent state of its auction.
+ */
+@Component
+public class ActiveAuctionIndex {
+  private static final Logger log = LoggerFactory.getLogger(ActiveAuctionIndex.class);
+  private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+  private final Clock clock;
+  private final AuctionRepository auctionRepository;
+  private final AuctionEventPublisher publisher;
+  private final AuctionMetrics metrics;
+  private final int maxPageSize;
+  // Updates for an item go through compute() on its entry here, so its place in the lists is
+  // changed by one thread at a time.
+  private final ConcurrentHashMap<UUID, AuctionListing> byItemId = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Position, AuctionListing> scheduledByStart = new ConcurrentSkipListMap<>();
+  private final ConcurrentSkipListMap<Position, AuctionListing> openByEnd = new ConcurrentSkipListMap<>();
+  // When each item was dropped by one of its events, so a reconcile does not add it back from a row
+  // read before the close was written (in engine mode, possibly well after the event). Kept until a
+  // reconcile that started after the drop no longer reads the item as active.
+  private final ConcurrentHashMap<UUID, Long> droppedNanos = new ConcurrentHashMap<>();
+  // Events delivered before the load is in, guarded by this; null after.
+  private List<AuctionEvent> earlyEvents = new ArrayList<>();
+  private volatile boolean loaded;
+
+  /** A listing's place in one of the lists, and the cursor a page ends at. */
+  public record Position(Instant time, UUID itemId) implements Comparable<Position> {
+    @Override
+    public int compareTo(Position other) {
+      int byTime = time.compareTo(other.time);
+      return byTime != 0 ? byTime : itemId.compareTo(other.itemId);
+    }
+
+    /** {@code <instant>_<itemId>}. */
+    public String cursor() {
+      return time + "_" + itemId;
+    }
+
+    static Position parse(String cursor) {
+      int separator = cursor.indexOf('_');
+      try {
+        if (separator > 0) {
+          return new Position(Instant.parse(cursor.substring(0, separator)), UUID.fromString(cursor.substring(separator + 1)));
+        }
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        // Reported below.
+      }
+      throw new BadRequestException("Invalid cursor: " + cursor);
+    }
+  }
+
+  /** {@code next} is {@code null} once there is nothing further. */
+  public record Page(List<AuctionListing> listings, Position next) {}
+
+  public ActiveAuctionIndex(
+      Clock clock,
+      AuctionRepository auctionRepository,
+      AuctionEventPublisher publisher,
+      AuctionMetrics metrics,
+      @Value("${auction.index.max-page-size:200}") int maxPageSize
+  ) {
+    this.clock = clock;
+    this.auctionRepository = auctionRepository;
+    this.publisher = publisher;
+    this.metrics = metrics;
+    this.maxPageSize = maxPageSize;
+  }
+
+  @PostConstruct
+  void load() {
+    // Observing first, so no event committed after the query below is missed.
+    publisher.observe(this::apply);
+
+    long started = System.nanoTime();
+    List<AuctionListing> active = auctionRepository.findListings(List.of(AuctionStatus.SCHEDULED, AuctionStatus.OPEN));
+    active.forEach(this::add);
+    synchronized (this) {
+      earlyEvents.forEach(this::update);
+      earlyEvents = null;
+      loaded = true;
+    }
+    log.info("Indexed {} active auctions in {} ms",
+        active.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    metrics.registerActiveAuctionsGauge(this, ActiveAuctionIndex::size);
+  }
+
+  /** Adds a newly scheduled auction, unless the index already has its item. Call it after the commit. */
+  public void add(AuctionListing listing) {
+    byItemId.computeIfAbsent(listing.itemId(), id -> {
+      place(listing);
+      return listing;
+    });
+  }
+
+  /** The item's auction if it is SCHEDULED or OPEN, else {@code null}. */
+  public AuctionListing get(UUID itemId) {
+    return byItemId.get(itemId);
+  }
+
+  /** OPEN auctions that have not ended yet, the soonest to end first. */
+  public Page endingSoon(String cursor, int limit) {
+    return page(openByEnd, cursor, limit);
+  }
+
+  /** SCHEDULED auctions that have not started yet, the soonest to start first. */
+  public Page startingNext(String cursor, int limit) {
+    return page(scheduledByStart, cursor, limit);
+  }
+
+  public int size() {
+    return byItemId.size();
+  }
+
+  /** Catches up with the auctions other nodes scheduled, opened, extended or closed. */
+  @Scheduled(
+      initialDelayString = "${auction.index.reconcile-ms:30000}",
+      fixedDelayString = "${auction.index.reconcile-ms:30000}")
+  public void reconcile() {
+    if (!loaded) {
+      return;
+    }
+    long started = System.nanoTime();
+    Set<UUID> indexed = new HashSet<>(byItemId.keySet());
+    List<AuctionListing> active = auctionRepository.findListings(List.of(AuctionStatus.SCHEDULED, AuctionStatus.OPEN));
+
+    int changed = 0;
+    Set<UUID> stillActive = new HashSet<>();
+    for (AuctionListing listing : active) {
+      indexed.remove(listing.itemId());
+      stillActive.add(listing.itemId());
+      if (reconcile(listing)) {
+        changed++;
+      }
+    }
+    // Left are the auctions indexed before the query that it no longer returned: closed elsewhere.
+    int[] removed = {0};
+    for (UUID itemId : indexed) {
+      byItemId.computeIfPresent(itemId, (id, current) -> {
+        unplace(current);
+        removed[0]++;
+        return null;
+      });
+    }
+    changed += removed[0];
+    // A query that started after the drop and saw the item closed: so will every later one.
+    droppedNanos.entrySet().removeIf(entry -> entry.getValue() - started < 0 && !stillActive.contains(entry.getKey()));
+    if (changed > 0) {
+      log.info("Reconciled {} of {} active auctions in {} ms",
+          changed, active.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+  }
+
+  private Page page(ConcurrentSkipListMap<Position, AuctionListing> list, String cursor, int limit) {
+    if (limit < 1 || limit > maxPageSize) {
+      throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+    }
+    // Auctions the scheduler has not opened or closed yet are skipped by starting at now.
+    Position from = new Position(Instant.now(clock), MIN_UUID);
+    if (cursor != null) {
+      Position after = Position.parse(cursor);
+      if (after.compareTo(from) > 0) {
+        from = after;
+      }
+    }
+
+    List<AuctionListing> listings = new ArrayList<>(Math.min(limit, 64));
+    Position last = null;
+    for (Map.Entry<Position, AuctionListing> entry : list.tailMap(from, false).entrySet()) {
+      listings.add(entry.getValue());
+      last = entry.getKey();
+      if (listings.size() == limit) {
+        break;
+      }
+    }
+    return new Page(listings, listings.size() == limit ? last : null);
+  }
+
+  private void apply(AuctionEvent event) {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          earlyEvents.add(event);
+          return;
+        }
+      }
+    }
+    update(event);
+  }
+
+  /** Adds the listing, or applies it if it is ahead of the indexed one; returns whether either happened. */
+  private boolean reconcile(AuctionListing listing) {
+    boolean[] changed = {false};
+    byItemId.compute(listing.itemId(), (itemId, current) -> {
+      if (current == null && droppedNanos.containsKey(itemId)) {
+        return null;
+      }
+      if (current != null && !isAhead(listing.status(), listing.currentPrice(), listing.endTime(), current)) {
+        return current;
+      }
+      if (current != null) {
+        unplace(current);
+      }
+      place(listing);
+      changed[0] = true;
+      return listing;
+    });
+    return changed[0];
+  }
+
+  private void update(AuctionEvent event) {
+    AuctionEvent.AuctionPayload auction = event.auction();
+    if (auction == null || event.type() == AuctionEventType.SNAPSHOT) {
+      return;
+    }
+    byItemId.computeIfPresent(event.itemId(), (itemId, current) -> {
+      if (!isAhead(auction.status(), auction.currentPrice(), auction.endTime(), current)) {
+        return current;
+      }
+      unplace(current);
+      if (auction.status() != AuctionStatus.SCHEDULED && auction.status() != AuctionStatus.OPEN) {
+        droppedNanos.put(itemId, System.nanoTime());
+        return null;
+      }
+      AuctionListing updated = new AuctionListing(
+          itemId,
+          current.itemName(),
+          auction.id(),
+          auction.status(),
+          auction.startTime(),
+          auction.endTime(),
+          auction.currentPrice(),
+          auction.minIncrement(),
+          auction.currentWinnerUserId()
+      );
+      place(updated);
+      return updated;
+    });
+  }
+
+  private static boolean isAhead(AuctionStatus status, BigDecimal currentPrice, Instant endTime, AuctionListing listing) {
+    int byStatus = status.compareTo(listing.status());
+    if (byStatus != 0) {
+      return byStatus > 0;
+    }
+    int byPrice = currentPrice.compareTo(listing.currentPrice());
+    if (byPrice != 0) {
+      return byPrice > 0;
+    }
+    return endTime.isAfter(listing.endTime());
+  }
+
+  private void place(AuctionListing listing) {
+    if (listing.status() == AuctionStatus.OPEN) {
+      openByEnd.put(new Position(listing.endTime(), listing.itemId()), listing);
+    } else {
+      scheduledByStart.put(new Position(listing.startTime(), listing.itemId()), listing);
+    }
+  }
+
+  private void unplace(AuctionListing listing) {
+    if (listing.status() == AuctionStatus.OPEN) {
+      openByEnd.remove(new Position(listing.endTime(), listing.itemId()));
+    } else {
+      scheduledByStart.remove(new Position(listing.startTime(), listing.itemId()));
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.grepr.takehome.auction.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding-window bid activity per item, used to spot hot auctions without querying {@code bids}.
+ *
+ * <p>Each item keeps a ring of one-second buckets covering the window. Recording touches one
+ * bucket under the item's monitor, which is uncontended in practice because bids for an item are
+ * already serialized by its auction lock. Items with no activity in the window are evicted; an
+ * evicted ring takes no more samples, so a recorder racing the eviction starts a new one. At most
+ * {@code max-items} items are tracked; past that, new items are not until eviction makes room.
+ */
+@Component
+public class AuctionActivityTracker {
+  private final int windowSeconds;
+  private final int maxItems;
+  private final ConcurrentHashMap<UUID, ItemActivity> activityByItemId = new ConcurrentHashMap<>();
+
+  public AuctionActivityTracker(
+      @Value("${auction.diagnostics.window-seconds:60}") int windowSeconds,
+      @Value("${auction.diagnostics.max-items:10000}") int maxItems
+  ) {
+    this.windowSeconds = windowSeconds;
+    this.maxItems = maxItems;
+  }
+
+  /** Totals for one item over the window. */
+  public record ItemWindow(long accepted, long rejected, long lockWaitNanos, long lockSamples, long maxLockWaitNanos) {}
+
+  public int windowSeconds() {
+    return windowSeconds;
+  }
+
+  public void recordAccepted(UUID itemId) {
+    record(itemId, 1, 0, 0);
+  }
+
+  public void recordRejected(UUID itemId) {
+    record(itemId, 0, 1, 0);
+  }
+
+  public void recordLockWait(UUID itemId, long nanos) {
+    record(itemId, 0, 0, nanos);
+  }
+
+  public Map<UUID, ItemWindow> snapshot() {
+    long now = currentSecond();
+    Map<UUID, ItemWindow> result = new HashMap<>();
+    activityByItemId.forEach((itemId, activity) -> result.put(itemId, activity.window(now)));
+    return result;
+  }
+
+  @Scheduled(fixedDelayString = "${auction.diagnostics.eviction-delay-ms:60000}")
+  public void evictIdle() {
+    long now = currentSecond();
+    activityByItemId.forEach((itemId, activity) -> {
+      if (activity.evictIfIdle(now)) {
+        activityByItemId.remove(itemId, activity);
+      }
+    });
+  }
+
+  private void record(UUID itemId, long acceptedDelta, long rejectedDelta, long lockWait) {
+    long second = currentSecond();
+    while (true) {
+      ItemActivity activity = activityByItemId.get(itemId);
+      if (activity == null) {
+        if (activityByItemId.size() >= maxItems) {
+          return;
+        }
+        activity = activityByItemId.computeIfAbsent(itemId, ignored -> new ItemActivity(windowSeconds));
+      }
+      if (activity.add(second, acceptedDelta, rejectedDelta, lockWait)) {
+        return;
+      }
+      // Evicted after we looked it up; make sure it is gone and start a new one.
+      activityByItemId.remove(itemId, activity);
+    }
+  }
+
+  private static long currentSecond() {
+    return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+  }
+
+  private static final class ItemActivity {
+    private final long[] bucketSecond;
+    private final long[] accepted;
+    private final long[] rejected;
+    private final long[] lockWaitNanos;
+    private final long[] lockSamples;
+    private final long[] maxLockWaitNanos;
+    private long lastSecond;
+    private boolean evicted;
+
+    private ItemActivity(int windowSeconds) {
+      bucketSecond = new long[windowSeconds];
+      Arrays.fill(bucketSecond, -1);
+      accepted = new long[windowSeconds];
+      rejected = new long[windowSeconds];
+      lockWaitNanos = new long[windowSeconds];
+      lockSamples = new long[windowSeconds];
+      maxLockWaitNanos = new long[windowSeconds];
+    }
+
+    /** {@code false} if the ring was evicted and the sample not taken. */
+    private synchronized boolean add(long second, long acceptedDelta, long rejectedDelta, long lockWait) {
+      if (evicted) {
+        return false;
+      }
+      int slot = (int) (second % bucketSecond.length);
+      if (bucketSecond[slot] != second) {
+        bucketSecond[slot] = second;
+        accepted[slot] = 0;
+        rejected[slot] = 0;
+        lockWaitNanos[slot] = 0;
+        lockSamples[slot] = 0;
+        maxLockWaitNanos[slot] = 0;
+      }
+      accepted[slot] += acceptedDelta;
+      rejected[slot] += rejectedDelta;
+      if (lockWait > 0) {
+        lockWaitNanos[slot] += lockWait;
+        lockSamples[slot]++;
+        maxLockWaitNanos[slot] = Math.max(maxLockWaitNanos[slot], lockWait);
+      }
+      lastSecond = second;
+      return true;
+    }
+
+    private synchronized ItemWindow window(long now) {
+      long acceptedSum = 0;
+      long rejectedSum = 0;
+      long lockWaitSum = 0;
+      long lockSampleSum = 0;
+      long lockWaitMax = 0;
+      for (int slot = 0; slot < bucketSecond.length; slot++) {
+        if (now - bucketSecond[slot] >= bucketSecond.length) {
+          continue;
+        }
+        acceptedSum += accepted[slot];
+        rejectedSum += rejected[slot];
+        lockWaitSum += lockWaitNanos[slot];
+        lockSampleSum += lockSamples[slot];
+        lockWaitMax = Math.max(lockWaitMax, maxLockWaitNanos[slot]);
+      }
+      return new ItemWindow(acceptedSum, rejectedSum, lockWaitSum, lockSampleSum, lockWaitMax);
+    }
+
+    private synchronized boolean evictIfIdle(long now) {
+      evicted = now - lastSecond >= bucketSecond.length;
+      return evicted;
+    }
+  }
+}
@@ -3,28 +3,47 @@ package com.grepr.takehome.auction.service;
 import com.grepr.takehome.auction.domain.Auction;
 import com.grepr.takehome.auction.domain.AuctionStatus;
 import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.domain.BidRequest;
 import com.grepr.takehome.auction.domain.Item;
+import com.grepr.takehome.auction.domain.TopBid;
+import com.grepr.takehome.auction.engine.AuctionEngine;
 import com.grepr.takehome.auction.exception.BadRequestException;
 import com.grepr.takehome.auction.exception.ConflictException;
 import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
 import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.observability.AuctionMetrics.BidPhase;
 import com.grepr.takehome.auction.observability.AuctionMetrics.BidRejectedReason;
+import com.grepr.takehome.auction.observability.AuctionMetrics.DeduplicationSource;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
 import com.grepr.takehome.auction.realtime.AuctionEventMapper;
 import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
 import com.grepr.takehome.auction.realtime.AuctionEventType;
+import com.grepr.takehome.auction.repo.ArchivedBidRepository;
+import com.grepr.takehome.auction.repo.AuctionListing;
 import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.repo.BidHistoryScope;
 import com.grepr.takehome.auction.repo.BidRepository;
+import com.grepr.takehome.auction.repo.BidRequestRepository;
+import com.grepr.takehome.auction.repo.BidView;
 import com.grepr.takehome.auction.repo.ItemRepository;
 import com.grepr.takehome.auction.repo.UserRepository;
 import com.grepr.takehome.auction.util.DecimalUtils;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.grepr.takehome.auction.util.UuidUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -33,29 +52,65 @@ public class AuctionService {
     private final ItemRepository itemRepository;
     private final AuctionRepository auctionRepository;
     private final BidRepository bidRepository;
+    private final ArchivedBidRepository archivedBidRepository;
+    private final BidRequestRepository bidRequestRepository;
     private final UserRepository userRepository;
-    private final MeterRegistry meterRegistry;
+    private final AuctionMetrics metrics;
     private final AuctionEventPublisher eventPublisher;
     private final AuctionEventMapper eventMapper;
+    private final BidAdmissionControl admissionControl;
+    private final BidDeduplicator deduplicator;
+    private final AuctionActivityTracker activityTracker;
+    private final ActiveAuctionIndex activeAuctions;
+    private final TransactionTemplate transactionTemplate;
+    private final AuctionEngine engine;
+    private final int leaderboardSize;
+    private final boolean softCloseEnabled;
+    private final Duration softCloseWindow;
+    private final Duration softCloseExtension;
 
     public AuctionService(
             Clock clock,
             ItemRepository itemRepository,
             AuctionRepository auctionRepository,
             BidRepository bidRepository,
+            ArchivedBidRepository archivedBidRepository,
+            BidRequestRepository bidRequestRepository,
             UserRepository userRepository,
-            MeterRegistry meterRegistry,
+            AuctionMetrics metrics,
             AuctionEventPublisher eventPublisher,
-            AuctionEventMapper eventMapper
+            AuctionEventMapper eventMapper,
+            BidAdmissionControl admissionControl,
+            BidDeduplicator deduplicator,
+            AuctionActivityTracker activityTracker,
+            ActiveAuctionIndex activeAuctions,
+            TransactionTemplate transactionTemplate,
+            ObjectProvider<AuctionEngine> engine,
+            @Value("${auction.leaderboard.size:10}") int leaderboardSize,
+            @Value("${auction.soft-close.enabled:false}") boolean softCloseEnabled,
+            @Value("${auction.soft-close.window-seconds:10}") long softCloseWindowSeconds,
+            @Value("${auction.soft-close.extension-seconds:10}") long softCloseExtensionSeconds
     ) {
         this.clock = clock;
         this.itemRepository = itemRepository;
         this.auctionRepository = auctionRepository;
         this.bidRepository = bidRepository;
+        this.archivedBidRepository = archivedBidRepository;
+        this.bidRequestRepository = bidRequestRepository;
         this.userRepository = userRepository;
-        this.meterRegistry = meterRegistry;
+        this.metrics = metrics;
         this.eventPublisher = eventPublisher;
         this.eventMapper = eventMapper;
+        this.admissionControl = admissionControl;
+        this.deduplicator = deduplicator;
+        this.activityTracker = activityTracker;
+        this.activeAuctions = activeAuctions;
+        this.transactionTemplate = transactionTemplate;
+        this.engine = engine.getIfAvailable();
+        this.leaderboardSize = leaderboardSize;
+        this.softCloseEnabled = softCloseEnabled;
+        this.softCloseWindow = Duration.ofSeconds(softCloseWindowSeconds);
+        this.softCloseExtension = Duration.ofSeconds(softCloseExtensionSeconds);
     }
 
     @Transactional
@@ -67,17 +122,9 @@ public class AuctionService {
             BigDecimal minIncrement
     ) {
         Instant now = Instant.now(clock);
-        if (!startTime.isAfter(now)) {
-            throw new BadRequestException("startTime must be in the future");
-        }
-        if (!endTime.isAfter(startTime)) {
-            throw new BadRequestException("endTime must be after startTime");
-        }
-        if (DecimalUtils.isNegative(startingPrice)) {
-            throw new BadRequestException("startingPrice must be >= 0");
-        }
-        if (DecimalUtils.isNonPositive(minIncrement)) {
-            throw new BadRequestException("minIncrement must be > 0");
+        String invalid = ScheduleValidator.check(now, startTime, endTime, startingPrice, minIncrement);
+        if (invalid != null) {
+            throw new BadRequestException(invalid);
         }
 
         Item item = itemRepository.findById(itemId)
@@ -88,7 +135,7 @@ public class AuctionService {
         }
 
         Auction auction = new Auction(
-                UUID.randomUUID(),
+                UuidUtils.timeOrdered(),
                 item,
                 AuctionStatus.SCHEDULED,
                 startTime,
@@ -101,7 +148,18 @@ public class AuctionService {
         );
 
         Auction saved = auctionRepository.save(auction);
-        eventPublisher.publish(itemId, eventMapper.auctionEvent(AuctionEventType.AUCTION_SCHEDULED, itemId, saved, now));
+        AuctionListing listing = new AuctionListing(
+                itemId, item.getName(), saved.getId(), AuctionStatus.SCHEDULED, startTime, endTime,
+                startingPrice, minIncrement, null);
+        // Registered before the event is published, so the index has the auction before any of its events.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                activeAuctions.add(listing);
+            }
+        });
+        eventPublisher.publishAfterCommit(
+                itemId, List.of(eventMapper.auctionEvent(AuctionEventType.AUCTION_SCHEDULED, itemId, saved, now)));
         return saved;
     }
 
@@ -113,53 +171,213 @@ public class AuctionService {
                 .orElseThrow(() -> new NotFoundException("Auction not found for item: " + itemId));
     }
 
+    /**
+     * The item's current state as a {@code SNAPSHOT} event. Not read-only on purpose: a subscriber
+     * takes it as covering every event up to its subscription, so it must not come from a lagging
+     * replica.
+     */
     @Transactional
-    public Bid placeBid(UUID itemId, UUID bidderUserId, BigDecimal amount) {
+    public AuctionEvent snapshot(UUID itemId, boolean includeLeaderboard) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Item not found: " + itemId);
+        }
+        Auction auction = auctionRepository.findByItem_Id(itemId).orElse(null);
+        return eventMapper.snapshot(itemId, auction, Instant.now(clock), includeLeaderboard);
+    }
+
+    /**
+     * Places a bid. Not transactional on purpose: admission control runs before a DB connection is
+     * taken, so a bid storm on one item queues (or is shed) here instead of draining the pool.
+     * <p>
+     * Each phase is timed separately ({@link BidPhase}), and the {@code BID_PLACED} event is only
+     * published once the transaction has committed, so subscribers never see a bid that rolls back.
+     * <p>
+     * With an {@code idempotencyKey}, a retry of the same request returns the original bid as a
+     * replay: from {@link BidDeduplicator} while it remembers the key, otherwise from
+     * {@code bid_requests}. Reusing a key for a different item or amount is a conflict.
+     * <p>
+     * Rejections are counted against the item ({@link AuctionActivityTracker}) only once the item is
+     * known to exist: where the bid paths reject it after finding it, or, for a rejection made before
+     * the lookup, if it is in the {@link ActiveAuctionIndex}. Bids on unknown items are never counted.
+     */
+    public BidReceipt placeBid(UUID itemId, UUID bidderUserId, BigDecimal amount, String idempotencyKey) {
         if (DecimalUtils.isNonPositive(amount)) {
-            AuctionMetrics.incrementBidRejected(meterRegistry, BidRejectedReason.INVALID_AMOUNT);
+            metrics.incrementBidRejected(BidRejectedReason.INVALID_AMOUNT);
+            recordRejectedIfListed(itemId);
             throw new BadRequestException("amount must be > 0");
         }
+        if (DecimalUtils.exceedsPrecision(amount, 19, 2)) {
+            metrics.incrementBidRejected(BidRejectedReason.INVALID_AMOUNT);
+            recordRejectedIfListed(itemId);
+            throw new BadRequestException("amount is too large");
+        }
+        try {
+            BidDeduplicator.checkKey(idempotencyKey);
+        } catch (BadRequestException ex) {
+            recordRejectedIfListed(itemId);
+            throw ex;
+        }
+
+        try {
+            return deduplicator.execute(itemId, bidderUserId, amount, idempotencyKey,
+                    () -> admitAndPlaceBid(itemId, bidderUserId, amount, idempotencyKey));
+        } catch (ConflictException | TooManyRequestsException ex) {
+            // Key conflicts and shedding; neither bid path counts these itself.
+            recordRejectedIfListed(itemId);
+            throw ex;
+        }
+    }
+
+    private void recordRejectedIfListed(UUID itemId) {
+        if (activeAuctions.get(itemId) != null) {
+            activityTracker.recordRejected(itemId);
+        }
+    }
+
+    private BidReceipt admitAndPlaceBid(UUID itemId, UUID bidderUserId, BigDecimal amount, String idempotencyKey) {
+        if (engine != null) {
+            // The engine's shard queues do the admission control; keys are only remembered in memory.
+            return engine.placeBid(itemId, bidderUserId, amount);
+        }
+        return admissionControl.execute(itemId, () -> {
+            PlacedBid placed = transactionTemplate.execute(
+                    status -> placeBidInTransaction(itemId, bidderUserId, amount, idempotencyKey));
+            long committed = System.nanoTime();
+            if (placed.replayed()) {
+                metrics.incrementBidDeduplicated(DeduplicationSource.DATABASE);
+                return BidReceipt.of(placed.bid(), true);
+            }
+            // The bid is committed: its ticket must be published whatever happens next, or the
+            // item's later events wait behind it.
+            try {
+                metrics.recordBidPhase(BidPhase.COMMIT, committed - placed.completedNanos());
+                metrics.incrementBidAccepted();
+                activityTracker.recordAccepted(itemId);
+            } finally {
+                placed.ticket().publish(placed.extendedEvent() == null
+                        ? List.of(placed.event())
+                        : List.of(placed.event(), placed.extendedEvent()));
+            }
+            metrics.recordBidPhase(BidPhase.PUBLISH, System.nanoTime() - committed);
+            return BidReceipt.of(placed.bid(), false);
+        });
+    }
 
+    /**
+     * {@code event} and {@code ticket} are null for a replay: nothing was written, so there is
+     * nothing to publish.
+     */
+    private record PlacedBid(
+            Bid bid, AuctionEvent event, AuctionEvent extendedEvent, AuctionEventPublisher.Ticket ticket, long completedNanos) {
+        boolean replayed() {
+            return event == null;
+        }
+    }
+
+    private PlacedBid placeBidInTransaction(UUID itemId, UUID bidderUserId, BigDecimal amount, String idempotencyKey) {
+        long started = System.nanoTime();
         itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Item not found: " + itemId));
 
         if (!userRepository.existsById(bidderUserId)) {
-            AuctionMetrics.incrementBidRejected(meterRegistry, BidRejectedReason.UNKNOWN_USER);
+            metrics.incrementBidRejected(BidRejectedReason.UNKNOWN_USER);
+            activityTracker.recordRejected(itemId);
             throw new BadRequestException("Unknown user: " + bidderUserId);
         }
+        long validationNanos = System.nanoTime() - started;
 
+        long lockRequested = System.nanoTime();
         Auction auction = auctionRepository.findByItemIdForUpdate(itemId)
                 .orElseThrow(() -> new NotFoundException("Auction not found for item: " + itemId));
+        long locked = System.nanoTime();
+        metrics.recordBidPhase(BidPhase.LOCK_ACQUISITION, locked - lockRequested);
+        activityTracker.recordLockWait(itemId, locked - lockRequested);
+
+        // Looked up under the auction row lock, so a concurrent retry for the same item waits for the
+        // first attempt to commit and then finds its row.
+        BidRequest.Key requestKey = idempotencyKey == null ? null : new BidRequest.Key(bidderUserId, idempotencyKey);
+        if (requestKey != null) {
+            Optional<BidRequest> previous = bidRequestRepository.findById(requestKey);
+            if (previous.isPresent()) {
+                return replay(previous.get(), itemId, amount);
+            }
+        }
 
         Instant now = Instant.now(clock);
         auction.refreshStatus(now);
 
-        if (auction.getStatus() != AuctionStatus.OPEN) {
-            AuctionMetrics.incrementBidRejected(meterRegistry, BidRejectedReason.AUCTION_NOT_OPEN);
-            throw new BadRequestException("Auction is not open (status=" + auction.getStatus() + ")");
+        BidValidator.Rejection rejection = BidValidator.check(
+                auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), amount);
+        long validated = System.nanoTime();
+        metrics.recordBidPhase(BidPhase.VALIDATION, validationNanos + (validated - locked));
+        if (rejection != null) {
+            metrics.incrementBidRejected(rejection.reason());
+            activityTracker.recordRejected(itemId);
+            throw new BadRequestException(rejection.message());
         }
 
-        BigDecimal minAllowed = auction.getCurrentPrice().add(auction.getMinIncrement());
-        if (amount.compareTo(minAllowed) < 0) {
-            AuctionMetrics.incrementBidRejected(meterRegistry, BidRejectedReason.BID_TOO_LOW);
-            throw new BadRequestException("Bid too low. Minimum allowed is " + minAllowed);
-        }
+        // Under the row lock, so the item's events go out in the order the bids commit. A rollback
+        // gives the place up again.
+        AuctionEventPublisher.Ticket ticket = eventPublisher.reserve(itemId);
 
+        // Before touching the auction: this native insert makes Hibernate flush, and the auction
+        // should only be written once.
+        boolean newBidder = auctionRepository.addBidder(auction.getId(), bidderUserId) > 0;
+
+        Bid bid = new Bid(UuidUtils.timeOrdered(), auction, bidderUserId, amount, now);
         auction.applyWinningBid(bidderUserId, amount);
-        Bid bid = new Bid(UUID.randomUUID(), auction, bidderUserId, amount, now);
+        auction.recordTopBid(new TopBid(bid.getId(), bidderUserId, amount, now), leaderboardSize);
+        if (newBidder) {
+            auction.incrementBidderCount();
+        }
+        // Soft close, under the same row lock as the bid. The new end time is committed with it, so
+        // the state scheduler's guarded close cannot race past it.
+        boolean extended = softCloseEnabled && auction.extendForLateBid(now, softCloseWindow, softCloseExtension);
 
         auctionRepository.save(auction);
         bidRepository.save(bid);
+        if (requestKey != null) {
+            bidRequestRepository.save(new BidRequest(requestKey, itemId, amount, bid.getId(), now, now));
+        }
+        // Flush here rather than at commit so the persistence timer covers the actual SQL.
+        bidRepository.flush();
+        long persisted = System.nanoTime();
+        metrics.recordBidPhase(BidPhase.PERSISTENCE, persisted - validated);
+
+        return new PlacedBid(
+                bid,
+                eventMapper.bidPlaced(itemId, auction, bid, now),
+                extended ? eventMapper.auctionEvent(AuctionEventType.AUCTION_EXTENDED, itemId, auction, now) : null,
+                ticket,
+                persisted
+        );
+    }
 
-        AuctionMetrics.incrementBidAccepted(meterRegistry);
-        eventPublisher.publish(itemId, eventMapper.bidPlaced(itemId, auction, bid, now));
-        return bid;
+    private PlacedBid replay(BidRequest request, UUID itemId, BigDecimal amount) {
+        if (!request.matches(itemId, amount)) {
+            throw new ConflictException("Idempotency key was already used for a different bid");
+        }
+        Bid bid = bidRepository.findByIdAndCreatedAt(request.getBidId(), request.getBidCreatedAt())
+                .orElseThrow(() -> new ConflictException("Idempotency key refers to a bid that is no longer available"));
+        return new PlacedBid(bid, null, null, null, System.nanoTime());
     }
 
+    /**
+     * Bid history, newest first, as read-only projections. Archived auctions are served from
+     * {@code bids_archive}; otherwise the query is bounded by the auction's open window so only the
+     * daily partitions it spans are read.
+     */
     @Transactional(readOnly = true)
-    public List<Bid> listBidsForItem(UUID itemId) {
-        Auction auction = getAuctionForItem(itemId);
-        return bidRepository.findByAuction_IdOrderByCreatedAtDesc(auction.getId());
+    public List<BidView> listBidsForItem(UUID itemId) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Item not found: " + itemId);
+        }
+        BidHistoryScope scope = auctionRepository.findBidHistoryScope(itemId)
+                .orElseThrow(() -> new NotFoundException("Auction not found for item: " + itemId));
+        if (scope.bidsArchivedAt() != null) {
+            return archivedBidRepository.findHistory(scope.auctionId());
+        }
+        return bidRepository.findHistory(scope.auctionId(), scope.startTime(), scope.endTime());
     }
 }
 
@@ -0,0 +1,122 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.observability.AuctionMetrics.BidRejectedReason;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-item bulkhead in front of the bid transaction.
+ *
+ * <p>Bids for the same item serialize on the auction row lock anyway, so letting more than a few of
+ * them hold a DB connection at once only starves unrelated endpoints. Each item gets a small number
+ * of permits and a short bounded wait queue; anything beyond that is rejected immediately with a
+ * retry hint instead of timing out on the connection pool.
+ *
+ * <p>Bulkheads only exist while an item has bids in flight, so idle items cost nothing.
+ */
+@Component
+public class BidAdmissionControl {
+  private final boolean enabled;
+  private final int maxConcurrentPerItem;
+  private final int maxQueuedPerItem;
+  private final long maxWaitNanos;
+  private final Duration retryAfter;
+  private final AuctionMetrics metrics;
+  private final ConcurrentHashMap<UUID, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  public BidAdmissionControl(
+      @Value("${auction.bids.admission.enabled:true}") boolean enabled,
+      @Value("${auction.bids.admission.max-concurrent-per-item:4}") int maxConcurrentPerItem,
+      @Value("${auction.bids.admission.max-queued-per-item:16}") int maxQueuedPerItem,
+      @Value("${auction.bids.admission.max-wait-ms:50}") long maxWaitMs,
+      @Value("${auction.bids.admission.retry-after-ms:200}") long retryAfterMs,
+      AuctionMetrics metrics
+  ) {
+    this.enabled = enabled;
+    this.maxConcurrentPerItem = maxConcurrentPerItem;
+    this.maxQueuedPerItem = maxQueuedPerItem;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    this.retryAfter = Duration.ofMillis(retryAfterMs);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Runs {@code action} once a permit for {@code itemId} is available.
+   *
+   * @throws TooManyRequestsException if the item's wait queue is full or no permit frees up in time
+   */
+  public <T> T execute(UUID itemId, Supplier<T> action) {
+    if (!enabled) {
+      return action.get();
+    }
+
+    Bulkhead bulkhead = retain(itemId);
+    try {
+      if (!bulkhead.tryEnter(maxQueuedPerItem, maxWaitNanos)) {
+        metrics.incrementBidRejected(BidRejectedReason.OVERLOADED);
+        throw new TooManyRequestsException("Too many concurrent bids for item " + itemId + ", retry later", retryAfter);
+      }
+      try {
+        return action.get();
+      } finally {
+        bulkhead.exit();
+      }
+    } finally {
+      release(itemId);
+    }
+  }
+
+  private Bulkhead retain(UUID itemId) {
+    return bulkheads.compute(itemId, (id, existing) -> {
+      Bulkhead bulkhead = existing != null ? existing : new Bulkhead(maxConcurrentPerItem);
+      bulkhead.references++;
+      return bulkhead;
+    });
+  }
+
+  private void release(UUID itemId) {
+    bulkheads.computeIfPresent(itemId, (id, bulkhead) -> --bulkhead.references == 0 ? null : bulkhead);
+  }
+
+  private static final class Bulkhead {
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    // Only read/written inside ConcurrentHashMap.compute for this key.
+    private int references;
+
+    private Bulkhead(int permits) {
+      this.permits = new Semaphore(permits, true);
+    }
+
+    private boolean tryEnter(int maxQueued, long maxWaitNanos) {
+      if (permits.tryAcquire()) {
+        return true;
+      }
+      if (waiting.incrementAndGet() > maxQueued) {
+        waiting.decrementAndGet();
+        return false;
+      }
+      try {
+        return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } finally {
+        waiting.decrementAndGet();
+      }
+    }
+
+    private void exit() {
+      permits.release();
+    }
+  }
+}
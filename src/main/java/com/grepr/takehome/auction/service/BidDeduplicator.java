@@ -0,0 +1,175 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.exception.ConflictException;
+import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.observability.AuctionMetrics.DeduplicationSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory dedupe window for bid submissions that carry an idempotency key.
+ *
+ * <p>The first request for a {@code (bidderUserId, key)} pair runs; any retry arriving within
+ * {@code auction.bids.idempotency.ttl-seconds} waits for it (if still in flight) and gets the same
+ * outcome, without touching admission control or the database. A retry for a different item or
+ * amount is a conflict. Accepted bids and deterministic
+ * rejections (400/404/409) are remembered; anything else, such as being shed by admission control,
+ * is forgotten so the retry actually runs again.
+ *
+ * <p>The window is bounded by {@code max-entries}; the oldest entries are evicted first. Retries
+ * that miss it are still caught by {@code bid_requests} inside the bid transaction.
+ */
+@Component
+public class BidDeduplicator {
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final long maxWaitNanos;
+  private final Duration retryAfter;
+  private final AuctionMetrics metrics;
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  // Insertion order == expiry order, since every entry gets the same TTL.
+  private final ConcurrentLinkedQueue<Entry> expiryQueue = new ConcurrentLinkedQueue<>();
+
+  public BidDeduplicator(
+      @Value("${auction.bids.idempotency.enabled:true}") boolean enabled,
+      @Value("${auction.bids.idempotency.ttl-seconds:300}") long ttlSeconds,
+      @Value("${auction.bids.idempotency.max-entries:100000}") int maxEntries,
+      @Value("${auction.bids.idempotency.max-wait-ms:2000}") long maxWaitMs,
+      @Value("${auction.bids.admission.retry-after-ms:200}") long retryAfterMs,
+      AuctionMetrics metrics
+  ) {
+    this.enabled = enabled;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.maxEntries = maxEntries;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    this.retryAfter = Duration.ofMillis(retryAfterMs);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Validates an optional client-supplied key; {@code null} means the request is not idempotent.
+   *
+   * @throws BadRequestException if the key is blank or longer than {@link #MAX_KEY_LENGTH}
+   */
+  public static void checkKey(String idempotencyKey) {
+    if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)) {
+      throw new BadRequestException("Idempotency key must be 1-" + MAX_KEY_LENGTH + " non-blank characters");
+    }
+  }
+
+  /**
+   * Runs {@code action} unless an earlier request with the same key is remembered, in which case
+   * its receipt is returned as a replay (or its exception rethrown).
+   *
+   * @throws TooManyRequestsException if the earlier request is still running after {@code max-wait-ms}
+   */
+  public BidReceipt execute(
+      UUID itemId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      String idempotencyKey,
+      Supplier<BidReceipt> action
+  ) {
+    if (!enabled || idempotencyKey == null) {
+      return action.get();
+    }
+
+    Key key = new Key(bidderUserId, idempotencyKey);
+    long now = System.nanoTime();
+    Entry entry = new Entry(key, itemId, amount, now + ttlNanos);
+    Entry existing;
+    while ((existing = entries.putIfAbsent(key, entry)) != null) {
+      if (existing.expiresAtNanos - now > 0) {
+        if (!existing.matches(itemId, amount)) {
+          throw new ConflictException("Idempotency key was already used for a different bid");
+        }
+        metrics.incrementBidDeduplicated(DeduplicationSource.MEMORY);
+        return await(existing);
+      }
+      entries.remove(key, existing);
+    }
+    expiryQueue.add(entry);
+    evict(now);
+
+    try {
+      BidReceipt receipt = action.get();
+      entry.outcome.complete(receipt);
+      return receipt;
+    } catch (BadRequestException | NotFoundException | ConflictException e) {
+      // The same request would be rejected the same way, so the retry can be answered from here.
+      entry.outcome.completeExceptionally(e);
+      throw e;
+    } catch (RuntimeException e) {
+      entries.remove(key, entry);
+      entry.outcome.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private BidReceipt await(Entry entry) {
+    try {
+      return entry.outcome.get(maxWaitNanos, TimeUnit.NANOSECONDS).asReplay();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      throw new TooManyRequestsException(
+          "A bid with this idempotency key is still being processed", retryAfter, TooManyRequestsException.IN_PROGRESS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TooManyRequestsException(
+          "A bid with this idempotency key is still being processed", retryAfter, TooManyRequestsException.IN_PROGRESS);
+    }
+  }
+
+  private void evict(long now) {
+    Entry head;
+    while ((head = expiryQueue.peek()) != null
+        && (head.expiresAtNanos - now <= 0 || entries.size() > maxEntries)) {
+      // Another thread may have polled the head in between; whatever comes out is the oldest left.
+      Entry oldest = expiryQueue.poll();
+      if (oldest != null) {
+        entries.remove(oldest.key, oldest);
+      }
+    }
+  }
+
+  private record Key(UUID bidderUserId, String idempotencyKey) {}
+
+  private static final class Entry {
+    private final Key key;
+    private final UUID itemId;
+    private final BigDecimal amount;
+    private final long expiresAtNanos;
+    private final CompletableFuture<BidReceipt> outcome = new CompletableFuture<>();
+
+    private Entry(Key key, UUID itemId, BigDecimal amount, long expiresAtNanos) {
+      this.key = key;
+      this.itemId = itemId;
+      this.amount = amount;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    private boolean matches(UUID itemId, BigDecimal amount) {
+      return this.itemId.equals(itemId) && this.amount.compareTo(amount) == 0;
+    }
+  }
+}
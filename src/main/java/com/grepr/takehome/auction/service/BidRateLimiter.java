@@ -0,0 +1,179 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.observability.AuctionMetrics.BidRejectedReason;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token buckets for bid submissions, checked by the HTTP and WebSocket endpoints before the bid
+ * reaches {@link AuctionService#placeBid}: per bidder on each endpoint, and per {@code /ws} session.
+ * Each limit is a sustained {@code per-second} rate with a {@code burst} on top; a rate of 0 turns
+ * it off. The limiter as a whole is off unless {@code auction.bids.rate-limit.enabled} is set.
+ *
+ * <p>A bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA): a bid is
+ * allowed if, after adding one emission interval, that time is at most {@code burst} intervals
+ * ahead of now, and the new time is set with a compare-and-set. No locks, and a rejected bid
+ * changes nothing, so the rejection also says exactly when to retry. A {@code /ws} bid is checked
+ * against both of its buckets before it takes from either.
+ *
+ * <p>A bucket whose time has passed is the same as a fresh one, so those are dropped every
+ * {@code sweep-delay-ms}. The map holds at most {@code max-entries}; past that, new keys are not
+ * limited until a sweep makes room, and admission control still stands behind them.
+ */
+@Component
+public class BidRateLimiter {
+  private enum Scope { HTTP_USER, WEBSOCKET_USER, WEBSOCKET_SESSION }
+
+  private record Key(Scope scope, Object id) {}
+
+  private record Limit(long intervalNanos, long toleranceNanos) {
+    private static Limit of(double perSecond, int burst) {
+      if (perSecond <= 0) {
+        return null;
+      }
+      long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+      return new Limit(intervalNanos, intervalNanos * Math.max(1, burst));
+    }
+  }
+
+  private final boolean enabled;
+  private final int maxEntries;
+  private final AuctionMetrics metrics;
+  private final Limit[] limits = new Limit[Scope.values().length];
+  private final ConcurrentHashMap<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+  public BidRateLimiter(
+      @Value("${auction.bids.rate-limit.enabled:false}") boolean enabled,
+      @Value("${auction.bids.rate-limit.max-entries:100000}") int maxEntries,
+      @Value("${auction.bids.rate-limit.http.user-per-second:10}") double httpUserPerSecond,
+      @Value("${auction.bids.rate-limit.http.user-burst:20}") int httpUserBurst,
+      @Value("${auction.bids.rate-limit.websocket.user-per-second:10}") double webSocketUserPerSecond,
+      @Value("${auction.bids.rate-limit.websocket.user-burst:20}") int webSocketUserBurst,
+      @Value("${auction.bids.rate-limit.websocket.session-per-second:20}") double webSocketSessionPerSecond,
+      @Value("${auction.bids.rate-limit.websocket.session-burst:40}") int webSocketSessionBurst,
+      AuctionMetrics metrics
+  ) {
+    this.enabled = enabled;
+    this.maxEntries = maxEntries;
+    this.metrics = metrics;
+    limits[Scope.HTTP_USER.ordinal()] = Limit.of(httpUserPerSecond, httpUserBurst);
+    limits[Scope.WEBSOCKET_USER.ordinal()] = Limit.of(webSocketUserPerSecond, webSocketUserBurst);
+    limits[Scope.WEBSOCKET_SESSION.ordinal()] = Limit.of(webSocketSessionPerSecond, webSocketSessionBurst);
+  }
+
+  /**
+   * For {@code POST /api/items/{itemId}/bids}.
+   *
+   * @throws TooManyRequestsException if the bidder is over their rate
+   */
+  public void checkHttp(UUID bidderUserId) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    take(Scope.HTTP_USER, bucket(Scope.HTTP_USER, bidderUserId), now, "Too many bids from user " + bidderUserId);
+  }
+
+  /**
+   * For {@code PLACE_BID} on {@code /ws}: the session's limit and the bidder's. A bid either one
+   * turns away takes nothing from the other.
+   *
+   * @throws TooManyRequestsException if either is over its rate
+   */
+  public void checkWebSocket(String sessionId, UUID bidderUserId) {
+    if (!enabled) {
+      return;
+    }
+    AtomicLong session = bucket(Scope.WEBSOCKET_SESSION, sessionId);
+    AtomicLong user = bucket(Scope.WEBSOCKET_USER, bidderUserId);
+    String sessionMessage = "Too many bids on this connection";
+    String userMessage = "Too many bids from user " + bidderUserId;
+    long now = System.nanoTime();
+    // Both first, so the common rejection changes nothing; take() still covers a race in between.
+    rejectIfFull(Scope.WEBSOCKET_SESSION, session, now, sessionMessage);
+    rejectIfFull(Scope.WEBSOCKET_USER, user, now, userMessage);
+    take(Scope.WEBSOCKET_SESSION, session, now, sessionMessage);
+    try {
+      take(Scope.WEBSOCKET_USER, user, now, userMessage);
+    } catch (TooManyRequestsException e) {
+      giveBack(Scope.WEBSOCKET_SESSION, session);
+      throw e;
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${auction.bids.rate-limit.sweep-delay-ms:10000}")
+  public void sweep() {
+    long now = System.nanoTime();
+    buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+  }
+
+  /** Like {@link #take}, without taking anything. */
+  private void rejectIfFull(Scope scope, AtomicLong bucket, long now, String message) {
+    if (bucket == null) {
+      return;
+    }
+    Limit limit = limits[scope.ordinal()];
+    long ahead = Math.max(bucket.get(), now) + limit.intervalNanos() - now;
+    if (ahead > limit.toleranceNanos()) {
+      throw rejection(limit, ahead, message);
+    }
+  }
+
+  /** Takes one bid's room from {@code bucket}, which is null when there is no limit to apply. */
+  private void take(Scope scope, AtomicLong bucket, long now, String message) {
+    if (bucket == null) {
+      return;
+    }
+    Limit limit = limits[scope.ordinal()];
+    while (true) {
+      long arrival = bucket.get();
+      long next = Math.max(arrival, now) + limit.intervalNanos();
+      long ahead = next - now;
+      if (ahead > limit.toleranceNanos()) {
+        throw rejection(limit, ahead, message);
+      }
+      if (bucket.compareAndSet(arrival, next)) {
+        return;
+      }
+    }
+  }
+
+  /** Undoes a {@link #take}: the arrival time moves back by the interval it moved forward. */
+  private void giveBack(Scope scope, AtomicLong bucket) {
+    if (bucket != null) {
+      bucket.addAndGet(-limits[scope.ordinal()].intervalNanos());
+    }
+  }
+
+  private TooManyRequestsException rejection(Limit limit, long aheadNanos, String message) {
+    metrics.incrementBidRejected(BidRejectedReason.RATE_LIMITED);
+    long retryAfterMillis = TimeUnit.NANOSECONDS.toMillis(aheadNanos - limit.toleranceNanos()) + 1;
+    return new TooManyRequestsException(
+        message + ", retry later", Duration.ofMillis(retryAfterMillis), TooManyRequestsException.RATE_LIMITED);
+  }
+
+  /** {@code null} if the scope is not limited, or the map is full. */
+  private AtomicLong bucket(Scope scope, Object id) {
+    if (limits[scope.ordinal()] == null) {
+      return null;
+    }
+    Key key = new Key(scope, id);
+    AtomicLong bucket = buckets.get(key);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxEntries) {
+      return null;
+    }
+    // Starting in the past is the same as a full bucket.
+    return buckets.computeIfAbsent(key, ignored -> new AtomicLong(System.nanoTime() - TimeUnit.DAYS.toNanos(1)));
+  }
+}
@@ -0,0 +1,27 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.domain.Bid;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Result of {@link AuctionService#placeBid}. {@code replayed} is set when the bid was placed by an
+ * earlier request with the same idempotency key and nothing was written this time.
+ */
+public record BidReceipt(
+    UUID bidId,
+    UUID auctionId,
+    UUID bidderUserId,
+    BigDecimal amount,
+    Instant createdAt,
+    boolean replayed
+) {
+  public static BidReceipt of(Bid bid, boolean replayed) {
+    return new BidReceipt(bid.getId(), bid.getAuction().getId(), bid.getBidderUserId(), bid.getAmount(), bid.getCreatedAt(), replayed);
+  }
+
+  public BidReceipt asReplay() {
+    return replayed ? this : new BidReceipt(bidId, auctionId, bidderUserId, amount, createdAt, true);
+  }
+}
@@ -0,0 +1,30 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.observability.AuctionMetrics.BidRejectedReason;
+import java.math.BigDecimal;
+
+/**
+ * Pure bidding rules, kept free of repositories so they can run (and be benchmarked) on any copy of
+ * the auction state.
+ */
+public final class BidValidator {
+  private BidValidator() {}
+
+  public record Rejection(BidRejectedReason reason, String message) {}
+
+  /**
+   * @return the reason the bid must be rejected, or {@code null} if it is acceptable
+   */
+  public static Rejection check(AuctionStatus status, BigDecimal currentPrice, BigDecimal minIncrement, BigDecimal amount) {
+    if (status != AuctionStatus.OPEN) {
+      return new Rejection(BidRejectedReason.AUCTION_NOT_OPEN, "Auction is not open (status=" + status + ")");
+    }
+
+    BigDecimal minAllowed = currentPrice.add(minIncrement);
+    if (amount.compareTo(minAllowed) < 0) {
+      return new Rejection(BidRejectedReason.BID_TOO_LOW, "Bid too low. Minimum allowed is " + minAllowed);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,206 @@
+package com.grepr.takehome.auction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.repo.AuctionListing;
+import com.grepr.takehome.auction.util.UuidUtils;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk catalog import: creates items, and schedules their auctions, from an NDJSON or CSV upload.
+ *
+ * <p>Rows are read one at a time and checked in memory with the same rules as
+ * {@link ItemService#create} and {@link AuctionService#scheduleAuction}; every row creates a new
+ * item, so there is nothing to look up first. Valid rows are written {@code auction.import.batch-size}
+ * at a time as JDBC batches, one transaction per batch. The auctions go in as {@code SCHEDULED} rows,
+ * which is all the state scheduler needs to open and close them. No {@code AUCTION_SCHEDULED}
+ * events are published: nobody can be subscribed to an item that did not exist yet. Each committed
+ * batch's auctions are added to the {@link ActiveAuctionIndex}.
+ *
+ * <p>Invalid rows are reported and skipped. If a batch fails to write, its rows are reported as not
+ * imported and the import carries on with the next batch.
+ */
+@Service
+public class CatalogImportService {
+  private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+  private static final String INSERT_ITEM =
+      "insert into items (id, name, description, created_at) values (?, ?, ?, ?)";
+  private static final String INSERT_AUCTION = """
+      insert into auctions (id, item_id, status, start_time, end_time, starting_price, min_increment, current_price)
+      values (?, ?, 'SCHEDULED', ?, ?, ?, ?, ?)
+      """;
+
+  private final Clock clock;
+  private final ObjectMapper objectMapper;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ActiveAuctionIndex activeAuctions;
+  private final int batchSize;
+  private final int maxRows;
+  private final int maxReportedErrors;
+
+  public CatalogImportService(
+      Clock clock,
+      ObjectMapper objectMapper,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ActiveAuctionIndex activeAuctions,
+      @Value("${auction.import.batch-size:1000}") int batchSize,
+      @Value("${auction.import.max-rows:200000}") int maxRows,
+      @Value("${auction.import.max-reported-errors:1000}") int maxReportedErrors
+  ) {
+    this.clock = clock;
+    this.objectMapper = objectMapper;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.activeAuctions = activeAuctions;
+    this.batchSize = batchSize;
+    this.maxRows = maxRows;
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  public enum Format { NDJSON, CSV }
+
+  public record ImportedRow(int line, String ref, UUID itemId, UUID auctionId) {}
+
+  public record RowError(int line, String ref, String message) {}
+
+  /** {@code errors} holds the first {@code auction.import.max-reported-errors}; {@code failedRows} counts them all. */
+  public record ImportReport(
+      int rows,
+      int itemsCreated,
+      int auctionsScheduled,
+      int failedRows,
+      List<ImportedRow> imported,
+      List<RowError> errors
+  ) {}
+
+  private record Accepted(int line, CatalogRow row, UUID itemId, UUID auctionId) {}
+
+  private final class Progress {
+    private final List<ImportedRow> imported = new ArrayList<>();
+    private final List<RowError> errors = new ArrayList<>();
+    private int rows;
+    private int auctionsScheduled;
+    private int failedRows;
+
+    private void fail(int line, String ref, String message) {
+      failedRows++;
+      if (errors.size() < maxReportedErrors) {
+        errors.add(new RowError(line, ref, message));
+      }
+    }
+  }
+
+  public ImportReport importCatalog(Format format, Reader input) throws IOException {
+    long started = System.nanoTime();
+    Instant now = Instant.now(clock);
+    CatalogRowReader reader = format == Format.CSV
+        ? CatalogRowReader.csv(input)
+        : CatalogRowReader.ndjson(objectMapper, input);
+
+    Progress progress = new Progress();
+    List<Accepted> batch = new ArrayList<>(batchSize);
+    CatalogRowReader.Result result;
+    while ((result = reader.next()) != null) {
+      if (++progress.rows > maxRows) {
+        progress.rows--;
+        progress.fail(result.line(), null, "Row limit of " + maxRows + " reached, this row and the rest were not read");
+        break;
+      }
+      CatalogRow row = result.row();
+      String invalid = result.error() != null ? result.error() : check(row, now);
+      if (invalid != null) {
+        progress.fail(result.line(), row == null ? null : row.ref(), invalid);
+        continue;
+      }
+      batch.add(new Accepted(result.line(), row, UuidUtils.timeOrdered(), row.hasAuction() ? UuidUtils.timeOrdered() : null));
+      if (batch.size() == batchSize) {
+        write(batch, now, progress);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      write(batch, now, progress);
+    }
+
+    log.info("Catalog import of {} rows done in {} ms: {} items, {} auctions, {} failed rows",
+        progress.rows, (System.nanoTime() - started) / 1_000_000, progress.imported.size(),
+        progress.auctionsScheduled, progress.failedRows);
+    return new ImportReport(progress.rows, progress.imported.size(), progress.auctionsScheduled,
+        progress.failedRows, progress.imported, progress.errors);
+  }
+
+  private static String check(CatalogRow row, Instant now) {
+    if (row == null) {
+      return "Expected a JSON object";
+    }
+    if (StringUtils.isBlank(row.name())) {
+      return "name is required";
+    }
+    if (!row.hasAuction()) {
+      return null;
+    }
+    return ScheduleValidator.check(now, row.startTime(), row.endTime(), row.startingPrice(), row.minIncrement());
+  }
+
+  private void write(List<Accepted> batch, Instant now, Progress progress) {
+    OffsetDateTime createdAt = now.atOffset(ZoneOffset.UTC);
+    List<Object[]> items = new ArrayList<>(batch.size());
+    List<Object[]> auctions = new ArrayList<>(batch.size());
+    for (Accepted accepted : batch) {
+      CatalogRow row = accepted.row();
+      items.add(new Object[] {accepted.itemId(), StringUtils.trim(row.name()), row.description(), createdAt});
+      if (accepted.auctionId() != null) {
+        auctions.add(new Object[] {
+            accepted.auctionId(),
+            accepted.itemId(),
+            row.startTime().atOffset(ZoneOffset.UTC),
+            row.endTime().atOffset(ZoneOffset.UTC),
+            row.startingPrice(),
+            row.minIncrement(),
+            row.startingPrice()
+        });
+      }
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items);
+        if (!auctions.isEmpty()) {
+          jdbcTemplate.batchUpdate(INSERT_AUCTION, auctions);
+        }
+      });
+    } catch (DataAccessException e) {
+      log.warn("Failed to write a catalog import batch of {} rows", batch.size(), e);
+      batch.forEach(accepted -> progress.fail(accepted.line(), accepted.row().ref(), "Not imported: the database rejected this row's batch"));
+      return;
+    }
+    for (Accepted accepted : batch) {
+      progress.imported.add(new ImportedRow(accepted.line(), accepted.row().ref(), accepted.itemId(), accepted.auctionId()));
+      if (accepted.auctionId() != null) {
+        CatalogRow row = accepted.row();
+        activeAuctions.add(new AuctionListing(
+            accepted.itemId(), StringUtils.trim(row.name()), accepted.auctionId(), AuctionStatus.SCHEDULED,
+            row.startTime(), row.endTime(), row.startingPrice(), row.minIncrement(), null));
+      }
+    }
+    progress.auctionsScheduled += auctions.size();
+  }
+}
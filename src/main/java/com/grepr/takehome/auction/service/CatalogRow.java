@@ -0,0 +1,22 @@
+package com.grepr.takehome.auction.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One lot of a catalog import: an item, and optionally the auction to schedule for it. {@code ref}
+ * is the caller's own identifier (a lot number, say), echoed back in the report.
+ */
+public record CatalogRow(
+    String ref,
+    String name,
+    String description,
+    Instant startTime,
+    Instant endTime,
+    BigDecimal startingPrice,
+    BigDecimal minIncrement
+) {
+  boolean hasAuction() {
+    return startTime != null || endTime != null || startingPrice != null || minIncrement != null;
+  }
+}
@@ -0,0 +1,178 @@
+package com.grepr.takehome.auction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.grepr.takehome.auction.exception.BadRequestException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Reads {@link CatalogRow}s one at a time from an upload, so a malformed row only fails itself and
+ * the upload never has to fit in memory.
+ */
+abstract class CatalogRowReader {
+  static final List<String> CSV_COLUMNS =
+      List.of("ref", "name", "description", "startTime", "endTime", "startingPrice", "minIncrement");
+
+  /** A row, or why it could not be read; {@code line} is where it starts in the upload (1-based). */
+  record Result(int line, CatalogRow row, String error) {}
+
+  /** @return the next row, or {@code null} at the end of the upload */
+  abstract Result next() throws IOException;
+
+  /** One JSON object per line; blank lines are skipped. */
+  static CatalogRowReader ndjson(ObjectMapper objectMapper, Reader input) {
+    ObjectReader rowReader = objectMapper.readerFor(CatalogRow.class);
+    BufferedReader lines = new BufferedReader(input);
+    return new CatalogRowReader() {
+      private int line;
+
+      @Override
+      Result next() throws IOException {
+        String text;
+        while ((text = lines.readLine()) != null) {
+          line++;
+          if (StringUtils.isBlank(text)) {
+            continue;
+          }
+          try {
+            return new Result(line, rowReader.readValue(text), null);
+          } catch (JsonProcessingException e) {
+            return new Result(line, null, "Invalid JSON: " + e.getOriginalMessage());
+          }
+        }
+        return null;
+      }
+    };
+  }
+
+  /**
+   * RFC 4180 CSV with a header row naming some of {@link #CSV_COLUMNS} ({@code name} is required).
+   * Empty fields are null; quoted fields may contain commas, quotes ({@code ""}) and line breaks.
+   *
+   * @throws BadRequestException if the header is missing or names an unknown column
+   */
+  static CatalogRowReader csv(Reader input) throws IOException {
+    CsvRecords records = new CsvRecords(new BufferedReader(input));
+    List<String> header = records.next();
+    if (header == null || !header.contains("name")) {
+      throw new BadRequestException("CSV header row with a name column is required, columns: " + CSV_COLUMNS);
+    }
+    int[] columns = new int[header.size()];
+    for (int i = 0; i < header.size(); i++) {
+      columns[i] = CSV_COLUMNS.indexOf(header.get(i).trim());
+      if (columns[i] < 0) {
+        throw new BadRequestException("Unknown CSV column '" + header.get(i) + "', columns: " + CSV_COLUMNS);
+      }
+    }
+
+    return new CatalogRowReader() {
+      @Override
+      Result next() throws IOException {
+        List<String> fields;
+        do {
+          fields = records.next();
+          if (fields == null) {
+            return null;
+          }
+        } while (fields.size() == 1 && fields.getFirst().isEmpty());
+
+        int line = records.recordLine;
+        if (records.unterminatedQuote) {
+          return new Result(line, null, "Unterminated quoted field");
+        }
+        if (fields.size() != columns.length) {
+          return new Result(line, null, "Expected " + columns.length + " fields, found " + fields.size());
+        }
+        String[] values = new String[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+          values[columns[i]] = fields.get(i).isEmpty() ? null : fields.get(i);
+        }
+        try {
+          return new Result(line, new CatalogRow(
+              values[0],
+              values[1],
+              values[2],
+              values[3] == null ? null : Instant.parse(values[3]),
+              values[4] == null ? null : Instant.parse(values[4]),
+              values[5] == null ? null : new BigDecimal(values[5]),
+              values[6] == null ? null : new BigDecimal(values[6])
+          ), null);
+        } catch (DateTimeParseException e) {
+          return new Result(line, null, "Invalid timestamp '" + e.getParsedString() + "', expected ISO-8601 like 2030-01-01T10:00:00Z");
+        } catch (NumberFormatException e) {
+          return new Result(line, null, "Invalid price, expected a decimal number");
+        }
+      }
+    };
+  }
+
+  private static final class CsvRecords {
+    private final BufferedReader input;
+    private int line = 1;
+    private int recordLine;
+    private boolean unterminatedQuote;
+
+    private CsvRecords(BufferedReader input) {
+      this.input = input;
+    }
+
+    /** @return the fields of the next record, or {@code null} at the end of the input */
+    private List<String> next() throws IOException {
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      boolean read = false;
+      recordLine = line;
+      int c;
+      while ((c = input.read()) != -1) {
+        read = true;
+        if (quoted) {
+          if (c == '"') {
+            input.mark(1);
+            int following = input.read();
+            if (following == '"') {
+              field.append('"');
+              continue;
+            }
+            quoted = false;
+            if (following != -1) {
+              input.reset();
+            }
+          } else {
+            if (c == '\n') {
+              line++;
+            }
+            field.append((char) c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else if (c == '\n') {
+          line++;
+          fields.add(field.toString());
+          unterminatedQuote = false;
+          return fields;
+        } else if (c != '\r') {
+          field.append((char) c);
+        }
+      }
+      if (!read) {
+        return null;
+      }
+      fields.add(field.toString());
+      unterminatedQuote = quoted;
+      return fields;
+    }
+  }
+}
@@ -4,8 +4,11 @@ import com.grepr.takehome.auction.domain.Item;
 import com.grepr.takehome.auction.exception.BadRequestException;
 import com.grepr.takehome.auction.exception.NotFoundException;
 import com.grepr.takehome.auction.repo.ItemRepository;
+import com.grepr.takehome.auction.repo.ItemView;
+import com.grepr.takehome.auction.util.UuidUtils;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
@@ -26,7 +29,7 @@ public class ItemService {
     if (StringUtils.isBlank(name)) {
       throw new BadRequestException("name is required");
     }
-    Item item = new Item(UUID.randomUUID(), StringUtils.trim(name), description, Instant.now(clock));
+    Item item = new Item(UuidUtils.timeOrdered(), StringUtils.trim(name), description, Instant.now(clock));
     return itemRepository.save(item);
   }
 
@@ -35,5 +38,16 @@ public class ItemService {
     return itemRepository.findById(itemId)
         .orElseThrow(() -> new NotFoundException("Item not found: " + itemId));
   }
-}
 
+  /** All items with their auctions, newest first, in one query and without managed entities. */
+  @Transactional(readOnly = true)
+  public List<ItemView> list() {
+    return itemRepository.findAllViews();
+  }
+
+  @Transactional(readOnly = true)
+  public ItemView getView(UUID itemId) {
+    return itemRepository.findViewById(itemId)
+        .orElseThrow(() -> new NotFoundException("Item not found: " + itemId));
+  }
+}
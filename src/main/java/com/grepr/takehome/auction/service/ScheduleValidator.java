@@ -0,0 +1,38 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.util.DecimalUtils;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Rules for scheduling an auction, shared by {@link AuctionService#scheduleAuction} and the bulk
+ * {@link CatalogImportService}.
+ */
+public final class ScheduleValidator {
+  private ScheduleValidator() {}
+
+  /**
+   * @return why the auction cannot be scheduled, or {@code null} if it can
+   */
+  public static String check(Instant now, Instant startTime, Instant endTime, BigDecimal startingPrice, BigDecimal minIncrement) {
+    if (startTime == null || endTime == null || startingPrice == null || minIncrement == null) {
+      return "startTime, endTime, startingPrice and minIncrement are required";
+    }
+    if (!startTime.isAfter(now)) {
+      return "startTime must be in the future";
+    }
+    if (!endTime.isAfter(startTime)) {
+      return "endTime must be after startTime";
+    }
+    if (DecimalUtils.isNegative(startingPrice)) {
+      return "startingPrice must be >= 0";
+    }
+    if (DecimalUtils.isNonPositive(minIncrement)) {
+      return "minIncrement must be > 0";
+    }
+    if (DecimalUtils.exceedsPrecision(startingPrice, 19, 2) || DecimalUtils.exceedsPrecision(minIncrement, 19, 2)) {
+      return "startingPrice and minIncrement must fit numeric(19, 2)";
+    }
+    return null;
+  }
+}
@@ -0,0 +1,40 @@
+package com.grepr.takehome.auction.service;
+
+import com.grepr.takehome.auction.domain.Settlement;
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.repo.SettlementRepository;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class SettlementService {
+  private final SettlementRepository settlementRepository;
+  private final int maxPageSize;
+
+  public SettlementService(
+      SettlementRepository settlementRepository,
+      @Value("${auction.settlements.max-page-size:1000}") int maxPageSize
+  ) {
+    this.settlementRepository = settlementRepository;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * Settlements after the {@code after} cursor (a settlement sequence, 0 for the beginning), oldest
+   * first. Sequences are assigned in commit order, so paging on with the last one seen never misses
+   * a settlement, including from a replica.
+   */
+  @Transactional(readOnly = true)
+  public List<Settlement> since(long after, int limit) {
+    if (after < 0) {
+      throw new BadRequestException("after must be >= 0");
+    }
+    if (limit < 1 || limit > maxPageSize) {
+      throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+    }
+    return settlementRepository.findBySequenceGreaterThanOrderBySequence(after, Limit.of(limit));
+  }
+}
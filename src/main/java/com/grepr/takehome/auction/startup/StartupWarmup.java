@@ -0,0 +1,138 @@
+package com.grepr.takehome.auction.startup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.domain.Auction;
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.Bid;
+import com.grepr.takehome.auction.domain.Item;
+import com.grepr.takehome.auction.realtime.AuctionEventMapper;
+import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.service.AuctionService;
+import com.grepr.takehome.auction.service.BidValidator;
+import com.grepr.takehome.auction.service.ItemService;
+import com.grepr.takehome.auction.websocket.InboundMessage;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms a fresh node up before it takes traffic.
+ *
+ * <p>Runs as an {@link ApplicationRunner}, and Spring Boot only reports readiness
+ * ({@code /actuator/health/readiness}) once runners have returned, so the load balancer keeps
+ * traffic away until this is done. It:
+ * <ul>
+ *   <li>reads every OPEN auction and every SCHEDULED one starting within the lookahead through the
+ *       same service calls clients use, warming the DB cache, Hibernate query plans and pooled
+ *       prepared statements for those rows;</li>
+ *   <li>loops over frame parsing, bid validation and event mapping/serialization on synthetic data
+ *       so those paths are JIT-compiled before the first real bid.</li>
+ * </ul>
+ * Bounded by {@code auction.warmup.max-duration-ms}; whatever is left when it runs out is skipped.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+  private final Clock clock;
+  private final AuctionRepository auctionRepository;
+  private final AuctionService auctionService;
+  private final ItemService itemService;
+  private final AuctionEventMapper eventMapper;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final Duration lookahead;
+  private final int maxAuctions;
+  private final int iterations;
+  private final long maxDurationNanos;
+
+  public StartupWarmup(
+      Clock clock,
+      AuctionRepository auctionRepository,
+      AuctionService auctionService,
+      ItemService itemService,
+      AuctionEventMapper eventMapper,
+      ObjectMapper objectMapper,
+      @Value("${auction.warmup.enabled:true}") boolean enabled,
+      @Value("${auction.warmup.lookahead-ms:600000}") long lookaheadMs,
+      @Value("${auction.warmup.max-auctions:1000}") int maxAuctions,
+      @Value("${auction.warmup.iterations:10000}") int iterations,
+      @Value("${auction.warmup.max-duration-ms:30000}") long maxDurationMs
+  ) {
+    this.clock = clock;
+    this.auctionRepository = auctionRepository;
+    this.auctionService = auctionService;
+    this.itemService = itemService;
+    this.eventMapper = eventMapper;
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.lookahead = Duration.ofMillis(lookaheadMs);
+    this.maxAuctions = maxAuctions;
+    this.iterations = iterations;
+    this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws JsonProcessingException {
+    if (!enabled) {
+      return;
+    }
+    long started = System.nanoTime();
+    long deadline = started + maxDurationNanos;
+    int auctions = preloadActiveAuctions(deadline);
+    int primed = primeHotPaths(deadline);
+    log.info("Warm-up done in {} ms: {} active auctions preloaded, hot paths primed {} times",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), auctions, primed);
+  }
+
+  private int preloadActiveAuctions(long deadline) throws JsonProcessingException {
+    Instant now = Instant.now(clock);
+    List<Auction> auctions = auctionRepository.findOpenOrStartingBefore(
+        AuctionStatus.OPEN, AuctionStatus.SCHEDULED, now.plus(lookahead), Limit.of(maxAuctions));
+    int preloaded = 0;
+    for (Auction auction : auctions) {
+      if (System.nanoTime() > deadline) {
+        break;
+      }
+      UUID itemId = auction.getItem().getId();
+      itemService.getView(itemId);
+      Auction current = auctionService.getAuctionForItem(itemId);
+      objectMapper.writeValueAsString(eventMapper.snapshot(itemId, current, now, true));
+      preloaded++;
+    }
+    return preloaded;
+  }
+
+  private int primeHotPaths(long deadline) throws JsonProcessingException {
+    Instant now = Instant.now(clock);
+    Item item = new Item(UUID.randomUUID(), "warm-up", null, now);
+    Auction auction = new Auction(
+        UUID.randomUUID(), item, AuctionStatus.OPEN, now, now.plus(Duration.ofHours(1)),
+        BigDecimal.ONE, BigDecimal.ONE, new BigDecimal("100.00"), null, null);
+    String placeBidFrame = """
+        {"type":"PLACE_BID","itemId":"%s","bidderUserId":"%s","amount":101.50}
+        """.formatted(item.getId(), UUID.randomUUID());
+
+    int i = 0;
+    for (; i < iterations && System.nanoTime() < deadline; i++) {
+      InboundMessage inbound = InboundMessage.parse(objectMapper, placeBidFrame);
+      BidValidator.check(auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), inbound.amount());
+      BidValidator.check(auction.getStatus(), auction.getCurrentPrice(), auction.getMinIncrement(), BigDecimal.ONE);
+      Bid bid = new Bid(UUID.randomUUID(), auction, inbound.bidderUserId(), inbound.amount(), now);
+      objectMapper.writeValueAsString(eventMapper.bidPlaced(item.getId(), auction, bid, now));
+    }
+    return i;
+  }
+}
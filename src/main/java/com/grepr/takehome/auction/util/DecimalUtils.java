@@ -1,6 +1,7 @@
 package com.grepr.takehome.auction.util;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * Small helpers for {@link BigDecimal} validation.
@@ -25,5 +26,12 @@ public final class DecimalUtils {
     public static boolean isNegative(BigDecimal value) {
         return value == null || value.signum() < 0;
     }
-}
 
+    /**
+     * @return true if value would not fit a {@code numeric(precision, scale)} column once rounded to
+     * {@code scale} decimal places
+     */
+    public static boolean exceedsPrecision(BigDecimal value, int precision, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).precision() > precision;
+    }
+}
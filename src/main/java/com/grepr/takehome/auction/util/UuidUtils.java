@@ -0,0 +1,31 @@
+package com.grepr.takehome.auction.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered UUIDs (version 7, RFC 9562) for primary keys.
+ *
+ * <p>The first 48 bits are the Unix epoch millisecond, so ids generated close together sort close
+ * together and new rows append to the right edge of the primary key index instead of splitting
+ * random pages the way {@link UUID#randomUUID()} does.
+ */
+public final class UuidUtils {
+    private UuidUtils() {
+    }
+
+    /**
+     * @return a version 7 UUID for the current time; ids within the same millisecond are random
+     *     relative to each other
+     */
+    public static UUID timeOrdered() {
+        return timeOrdered(System.currentTimeMillis());
+    }
+
+    private static UUID timeOrdered(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (epochMillis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -1,12 +1,17 @@
 package com.grepr.takehome.auction.web;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.grepr.takehome.auction.exception.BadRequestException;
 import com.grepr.takehome.auction.exception.ConflictException;
 import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.ServiceUnavailableException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.stream.Collectors;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -14,17 +19,22 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice(assignableTypes = {
+    AuctionsController.class,
     ItemsController.class,
+    ItemEventsController.class,
+    SettlementsController.class,
     UsersController.class
 })
 public class ApiExceptionHandler {
 
+  /** {@code reason} is only set on 429 and 503 answers, see {@link TooManyRequestsException}. */
   public record ApiError(
       Instant timestamp,
       int status,
       String error,
       String message,
-      String path
+      String path,
+      @JsonInclude(JsonInclude.Include.NON_NULL) String reason
   ) {}
 
   @ExceptionHandler(NotFoundException.class)
@@ -37,6 +47,17 @@ public class ApiExceptionHandler {
     return error(HttpStatus.CONFLICT, ex.getMessage(), request);
   }
 
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ApiError> handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest request) {
+    return retryLater(HttpStatus.TOO_MANY_REQUESTS, ex.getRetryAfter(), ex.getMessage(), ex.getReason(), request);
+  }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ApiError> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+    return retryLater(HttpStatus.SERVICE_UNAVAILABLE, ex.getRetryAfter(), ex.getMessage(),
+        ServiceUnavailableException.OUTCOME_UNKNOWN, request);
+  }
+
   @ExceptionHandler({BadRequestException.class, MethodArgumentNotValidException.class})
   public ResponseEntity<ApiError> handleBadRequest(Exception ex, HttpServletRequest request) {
     String message = ex instanceof MethodArgumentNotValidException manv
@@ -58,14 +79,28 @@ public class ApiExceptionHandler {
     return error(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error", request);
   }
 
+  private ResponseEntity<ApiError> retryLater(
+      HttpStatus status, Duration retryAfter, String message, String reason, HttpServletRequest request) {
+    // Retry-After is whole seconds; round up so clients never retry before the hint.
+    long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+        .body(apiError(status, message, reason, request));
+  }
+
   private ResponseEntity<ApiError> error(HttpStatus status, String message, HttpServletRequest request) {
-    return ResponseEntity.status(status).body(new ApiError(
+    return ResponseEntity.status(status).body(apiError(status, message, null, request));
+  }
+
+  private ApiError apiError(HttpStatus status, String message, String reason, HttpServletRequest request) {
+    return new ApiError(
         Instant.now(),
         status.value(),
         status.getReasonPhrase(),
         message,
-        request.getRequestURI()
-    ));
+        request.getRequestURI(),
+        reason
+    );
   }
 }
 
@@ -0,0 +1,62 @@
+package com.grepr.takehome.auction.web;
+
+import com.grepr.takehome.auction.repo.AuctionListing;
+import com.grepr.takehome.auction.service.ActiveAuctionIndex;
+import com.grepr.takehome.auction.web.dto.AuctionDtos.AuctionListingPageResponse;
+import com.grepr.takehome.auction.web.dto.AuctionDtos.AuctionListingResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/** Storefront lists of active auctions, served from {@link ActiveAuctionIndex} and paged by cursor. */
+@RestController
+@RequestMapping("/api/auctions")
+public class AuctionsController {
+  private final ActiveAuctionIndex activeAuctions;
+
+  public AuctionsController(ActiveAuctionIndex activeAuctions) {
+    this.activeAuctions = activeAuctions;
+  }
+
+  /** Live auctions, the soonest to end first. */
+  @GetMapping("/ending-soon")
+  public AuctionListingPageResponse endingSoon(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit
+  ) {
+    return toResponse(activeAuctions.endingSoon(cursor, limit));
+  }
+
+  /** Scheduled auctions, the soonest to start first. */
+  @GetMapping("/starting-next")
+  public AuctionListingPageResponse startingNext(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit
+  ) {
+    return toResponse(activeAuctions.startingNext(cursor, limit));
+  }
+
+  private static AuctionListingPageResponse toResponse(ActiveAuctionIndex.Page page) {
+    return new AuctionListingPageResponse(
+        page.listings().stream()
+            .map(AuctionsController::toResponse)
+            .toList(),
+        page.next() == null ? null : page.next().cursor()
+    );
+  }
+
+  private static AuctionListingResponse toResponse(AuctionListing listing) {
+    return new AuctionListingResponse(
+        listing.itemId(),
+        listing.itemName(),
+        listing.auctionId(),
+        listing.status(),
+        listing.startTime(),
+        listing.endTime(),
+        listing.currentPrice(),
+        listing.minIncrement(),
+        listing.currentWinnerUserId()
+    );
+  }
+}
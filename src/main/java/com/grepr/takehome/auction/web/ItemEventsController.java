@@ -0,0 +1,106 @@
+package com.grepr.takehome.auction.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grepr.takehome.auction.realtime.AuctionEvent;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher.Subscription;
+import com.grepr.takehome.auction.realtime.OutboundEvent;
+import com.grepr.takehome.auction.realtime.SseSubscriber;
+import com.grepr.takehome.auction.service.AuctionService;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events for clients that only watch an item: the same events as a {@code /ws}
+ * subscription, over plain HTTP, without a WebSocket session to hold per viewer.
+ *
+ * <p>The stream starts with a {@code SNAPSHOT}. A client reconnecting with {@code Last-Event-ID}
+ * gets only the events it missed instead, as long as the publisher still has all of them.
+ */
+@RestController
+@RequestMapping("/api/items")
+public class ItemEventsController {
+  private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+  private final AuctionService auctionService;
+  private final AuctionEventPublisher publisher;
+  private final ObjectMapper objectMapper;
+  private final long timeoutMs;
+  private final Duration heartbeat;
+  private final int queueCapacity;
+
+  public ItemEventsController(
+      AuctionService auctionService,
+      AuctionEventPublisher publisher,
+      ObjectMapper objectMapper,
+      @Value("${auction.sse.timeout-ms:1800000}") long timeoutMs,
+      @Value("${auction.sse.heartbeat-ms:15000}") long heartbeatMs,
+      @Value("${auction.sse.queue-capacity:256}") int queueCapacity
+  ) {
+    this.auctionService = auctionService;
+    this.publisher = publisher;
+    this.objectMapper = objectMapper;
+    this.timeoutMs = timeoutMs;
+    this.heartbeat = Duration.ofMillis(heartbeatMs);
+    this.queueCapacity = queueCapacity;
+  }
+
+  @GetMapping(path = "/{itemId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> events(
+      @PathVariable UUID itemId,
+      @RequestHeader(name = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+      @RequestParam(defaultValue = "false") boolean includeLeaderboard
+  ) throws JsonProcessingException {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    SseSubscriber subscriber = new SseSubscriber(emitter, queueCapacity, heartbeat);
+    Runnable unsubscribe = () -> {
+      subscriber.close();
+      publisher.unsubscribe(itemId, subscriber);
+    };
+    emitter.onCompletion(unsubscribe);
+    emitter.onTimeout(unsubscribe);
+    emitter.onError(e -> unsubscribe.run());
+
+    // Subscribe before reading the snapshot, so nothing published in between is lost.
+    Subscription subscription = publisher.subscribe(itemId, subscriber, lastEventId);
+    List<String> initialFrames;
+    try {
+      initialFrames = subscription.replay() != null
+          ? subscription.replay().stream().map(OutboundEvent::sseFrame).toList()
+          : List.of(snapshotFrame(itemId, includeLeaderboard, subscription));
+    } catch (RuntimeException | JsonProcessingException e) {
+      unsubscribe.run();
+      throw e;
+    }
+    subscriber.start("sse-" + itemId, initialFrames, subscription.snapshotSequence());
+
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        // Keeps nginx-style proxies from buffering the stream.
+        .header("X-Accel-Buffering", "no")
+        .body(emitter);
+  }
+
+  private String snapshotFrame(UUID itemId, boolean includeLeaderboard, Subscription subscription) throws JsonProcessingException {
+    AuctionEvent snapshot = auctionService.snapshot(itemId, includeLeaderboard);
+    return new OutboundEvent(
+        subscription.snapshotSequence(),
+        subscription.snapshotEventId(),
+        snapshot.type(),
+        objectMapper.writeValueAsString(snapshot.withSequence(subscription.snapshotSequence()))
+    ).sseFrame();
+  }
+}
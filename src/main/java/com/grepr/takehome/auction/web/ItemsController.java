@@ -1,32 +1,45 @@
 package com.grepr.takehome.auction.web;
 
 import com.grepr.takehome.auction.domain.Auction;
-import com.grepr.takehome.auction.domain.Bid;
 import com.grepr.takehome.auction.domain.Item;
-import com.grepr.takehome.auction.repo.AuctionRepository;
-import com.grepr.takehome.auction.repo.ItemRepository;
+import com.grepr.takehome.auction.recording.TrafficRecorder;
+import com.grepr.takehome.auction.repo.BidView;
+import com.grepr.takehome.auction.repo.ItemView;
 import com.grepr.takehome.auction.service.AuctionService;
+import com.grepr.takehome.auction.service.BidRateLimiter;
+import com.grepr.takehome.auction.service.BidReceipt;
+import com.grepr.takehome.auction.service.CatalogImportService;
+import com.grepr.takehome.auction.service.CatalogImportService.ImportReport;
 import com.grepr.takehome.auction.service.ItemService;
 import com.grepr.takehome.auction.web.dto.ItemDtos.AuctionResponse;
 import com.grepr.takehome.auction.web.dto.ItemDtos.BidResponse;
+import com.grepr.takehome.auction.web.dto.ItemDtos.CatalogImportResponse;
 import com.grepr.takehome.auction.web.dto.ItemDtos.CreateItemRequest;
+import com.grepr.takehome.auction.web.dto.ItemDtos.ImportErrorResponse;
+import com.grepr.takehome.auction.web.dto.ItemDtos.ImportedLotResponse;
 import com.grepr.takehome.auction.web.dto.ItemDtos.ItemResponse;
+import com.grepr.takehome.auction.web.dto.ItemDtos.LeaderboardResponse;
 import com.grepr.takehome.auction.web.dto.ItemDtos.PlaceBidRequest;
 import com.grepr.takehome.auction.web.dto.ItemDtos.ScheduleAuctionRequest;
+import com.grepr.takehome.auction.web.dto.ItemDtos.TopBidResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,44 +47,43 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/api/items")
 public class ItemsController {
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
   private final Clock clock;
   private final ItemService itemService;
   private final AuctionService auctionService;
-  private final ItemRepository itemRepository;
-  private final AuctionRepository auctionRepository;
+  private final CatalogImportService catalogImportService;
+  private final BidRateLimiter rateLimiter;
+  private final TrafficRecorder recorder;
 
   public ItemsController(
       Clock clock,
       ItemService itemService,
       AuctionService auctionService,
-      ItemRepository itemRepository,
-      AuctionRepository auctionRepository
+      CatalogImportService catalogImportService,
+      BidRateLimiter rateLimiter,
+      TrafficRecorder recorder
   ) {
     this.clock = clock;
     this.itemService = itemService;
     this.auctionService = auctionService;
-    this.itemRepository = itemRepository;
-    this.auctionRepository = auctionRepository;
+    this.catalogImportService = catalogImportService;
+    this.rateLimiter = rateLimiter;
+    this.recorder = recorder;
   }
 
   @GetMapping
   public List<ItemResponse> list() {
     Instant now = Instant.now(clock);
-    Map<UUID, Auction> auctionsByItemId = auctionRepository.findAll().stream()
-        .collect(Collectors.toMap(a -> a.getItem().getId(), Function.identity()));
-
-    return itemRepository.findAll().stream()
-        .sorted(Comparator.comparing(Item::getCreatedAt).reversed())
-        .map(item -> toResponse(item, auctionsByItemId.get(item.getId()), now))
+    return itemService.list().stream()
+        .map(view -> toResponse(view, now))
         .toList();
   }
 
   @GetMapping("/{itemId}")
   public ItemResponse get(@PathVariable UUID itemId) {
-    Instant now = Instant.now(clock);
-    Item item = itemService.get(itemId);
-    Auction auction = auctionRepository.findByItem_Id(itemId).orElse(null);
-    return toResponse(item, auction, now);
+    return toResponse(itemService.getView(itemId), Instant.now(clock));
   }
 
   @PostMapping
@@ -82,6 +94,35 @@ public class ItemsController {
     return toResponse(item, null, now);
   }
 
+  /**
+   * Bulk import of items with optional auctions, from NDJSON ({@code application/x-ndjson}) or CSV
+   * ({@code text/csv}) rows. Bad rows are reported by line and skipped; the rest are imported.
+   */
+  @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+  public CatalogImportResponse importCatalog(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      InputStream body
+  ) throws IOException {
+    CatalogImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+        ? CatalogImportService.Format.NDJSON
+        : CatalogImportService.Format.CSV;
+    InputStreamReader reader = new InputStreamReader(
+        body, contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset());
+    ImportReport report = catalogImportService.importCatalog(format, reader);
+    return new CatalogImportResponse(
+        report.rows(),
+        report.itemsCreated(),
+        report.auctionsScheduled(),
+        report.failedRows(),
+        report.imported().stream()
+            .map(row -> new ImportedLotResponse(row.line(), row.ref(), row.itemId(), row.auctionId()))
+            .toList(),
+        report.errors().stream()
+            .map(error -> new ImportErrorResponse(error.line(), error.ref(), error.message()))
+            .toList()
+    );
+  }
+
   @PostMapping("/{itemId}/auction")
   @ResponseStatus(HttpStatus.CREATED)
   public AuctionResponse scheduleAuction(
@@ -99,21 +140,47 @@ public class ItemsController {
     return toAuctionResponse(auction, now);
   }
 
+  /**
+   * With an {@code Idempotency-Key} header, retries of the same bid get the original response back
+   * (marked {@code Idempotent-Replayed: true}) instead of placing or rejecting it again. A bidder
+   * over their rate gets {@code 429} before anything else is looked at.
+   */
   @PostMapping("/{itemId}/bids")
-  @ResponseStatus(HttpStatus.CREATED)
-  public BidResponse placeBid(@PathVariable UUID itemId, @Valid @RequestBody PlaceBidRequest request) {
-    Bid bid = auctionService.placeBid(itemId, request.bidderUserId(), request.amount());
-    return new BidResponse(bid.getId(), bid.getAuction().getId(), bid.getBidderUserId(), bid.getAmount(), bid.getCreatedAt());
+  public ResponseEntity<BidResponse> placeBid(
+      @PathVariable UUID itemId,
+      @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @Valid @RequestBody PlaceBidRequest request
+  ) {
+    BidReceipt receipt = recorder.bid(null, itemId, request.bidderUserId(), request.amount(), idempotencyKey, () -> {
+      rateLimiter.checkHttp(request.bidderUserId());
+      return auctionService.placeBid(itemId, request.bidderUserId(), request.amount(), idempotencyKey);
+    });
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .header(IDEMPOTENT_REPLAYED_HEADER, Boolean.toString(receipt.replayed()))
+        .body(new BidResponse(receipt.bidId(), receipt.auctionId(), receipt.bidderUserId(), receipt.amount(), receipt.createdAt()));
   }
 
   @GetMapping("/{itemId}/bids")
   public List<BidResponse> listBids(@PathVariable UUID itemId) {
-    List<Bid> bids = auctionService.listBidsForItem(itemId);
+    List<BidView> bids = auctionService.listBidsForItem(itemId);
     return bids.stream()
-        .map(b -> new BidResponse(b.getId(), b.getAuction().getId(), b.getBidderUserId(), b.getAmount(), b.getCreatedAt()))
+        .map(b -> new BidResponse(b.id(), b.auctionId(), b.bidderUserId(), b.amount(), b.createdAt()))
         .toList();
   }
 
+  /** Top bids and distinct bidder count, read from the auction row regardless of history size. */
+  @GetMapping("/{itemId}/leaderboard")
+  public LeaderboardResponse leaderboard(@PathVariable UUID itemId) {
+    Auction auction = auctionService.getAuctionForItem(itemId);
+    return new LeaderboardResponse(
+        auction.getId(),
+        auction.getBidderCount(),
+        auction.getTopBids().stream()
+            .map(b -> new TopBidResponse(b.bidId(), b.bidderUserId(), b.amount(), b.createdAt()))
+            .toList()
+    );
+  }
+
   private ItemResponse toResponse(Item item, Auction auction, Instant now) {
     return new ItemResponse(
         item.getId(),
@@ -124,6 +191,21 @@ public class ItemsController {
     );
   }
 
+  private ItemResponse toResponse(ItemView view, Instant now) {
+    AuctionResponse auction = !view.hasAuction() ? null : new AuctionResponse(
+        view.auctionId(),
+        Auction.effectiveStatus(view.auctionStatus(), view.startTime(), view.endTime(), now),
+        view.startTime(),
+        view.endTime(),
+        view.startingPrice(),
+        view.minIncrement(),
+        view.currentPrice(),
+        view.currentWinnerUserId(),
+        view.closedAt()
+    );
+    return new ItemResponse(view.id(), view.name(), view.description(), view.createdAt(), auction);
+  }
+
   private AuctionResponse toAuctionResponse(Auction auction, Instant now) {
     return new AuctionResponse(
         auction.getId(),
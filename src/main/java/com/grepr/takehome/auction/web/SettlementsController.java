@@ -0,0 +1,45 @@
+package com.grepr.takehome.auction.web;
+
+import com.grepr.takehome.auction.domain.Settlement;
+import com.grepr.takehome.auction.service.SettlementService;
+import com.grepr.takehome.auction.web.dto.SettlementDtos.SettlementPageResponse;
+import com.grepr.takehome.auction.web.dto.SettlementDtos.SettlementResponse;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/settlements")
+public class SettlementsController {
+  private final SettlementService settlementService;
+
+  public SettlementsController(SettlementService settlementService) {
+    this.settlementService = settlementService;
+  }
+
+  /** Results of closed auctions in closing order, paged by cursor. */
+  @GetMapping
+  public SettlementPageResponse since(
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(defaultValue = "100") int limit
+  ) {
+    List<Settlement> settlements = settlementService.since(after, limit);
+    return new SettlementPageResponse(
+        settlements.stream()
+            .map(s -> new SettlementResponse(
+                s.getSequence(),
+                s.getAuctionId(),
+                s.getItemId(),
+                s.getWinnerUserId(),
+                s.getFinalPrice(),
+                s.getBidCount(),
+                s.getBidderCount(),
+                s.getClosedAt(),
+                s.getSettledAt()))
+            .toList(),
+        settlements.isEmpty() ? after : settlements.getLast().getSequence()
+    );
+  }
+}
@@ -0,0 +1,29 @@
+package com.grepr.takehome.auction.web.dto;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public final class AuctionDtos {
+  private AuctionDtos() {}
+
+  public record AuctionListingResponse(
+      UUID itemId,
+      String itemName,
+      UUID auctionId,
+      AuctionStatus status,
+      Instant startTime,
+      Instant endTime,
+      BigDecimal currentPrice,
+      BigDecimal minIncrement,
+      UUID currentWinnerUserId
+  ) {}
+
+  /** Pass {@code nextCursor} back as {@code cursor} for the following page; {@code null} on the last one. */
+  public record AuctionListingPageResponse(
+      List<AuctionListingResponse> auctions,
+      String nextCursor
+  ) {}
+}
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public final class ItemDtos {
@@ -52,5 +53,30 @@ public final class ItemDtos {
       BigDecimal amount,
       Instant createdAt
   ) {}
-}
 
+  public record LeaderboardResponse(
+      UUID auctionId,
+      int bidderCount,
+      List<TopBidResponse> topBids
+  ) {}
+
+  public record TopBidResponse(
+      UUID bidId,
+      UUID bidderUserId,
+      BigDecimal amount,
+      Instant createdAt
+  ) {}
+
+  public record CatalogImportResponse(
+      int rows,
+      int itemsCreated,
+      int auctionsScheduled,
+      int failedRows,
+      List<ImportedLotResponse> imported,
+      List<ImportErrorResponse> errors
+  ) {}
+
+  public record ImportedLotResponse(int line, String ref, UUID itemId, UUID auctionId) {}
+
+  public record ImportErrorResponse(int line, String ref, String message) {}
+}
@@ -0,0 +1,25 @@
+package com.grepr.takehome.auction.web.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public final class SettlementDtos {
+  private SettlementDtos() {}
+
+  public record SettlementResponse(
+      long sequence,
+      UUID auctionId,
+      UUID itemId,
+      UUID winnerUserId,
+      BigDecimal finalPrice,
+      int bidCount,
+      int bidderCount,
+      Instant closedAt,
+      Instant settledAt
+  ) {}
+
+  /** {@code nextCursor} is what to pass as {@code after} next time; it stays put when the page is empty. */
+  public record SettlementPageResponse(List<SettlementResponse> settlements, long nextCursor) {}
+}
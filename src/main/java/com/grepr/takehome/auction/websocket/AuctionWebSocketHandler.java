@@ -1,26 +1,34 @@
 package com.grepr.takehome.auction.websocket;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.grepr.takehome.auction.domain.Auction;
 import com.grepr.takehome.auction.realtime.AuctionEvent;
-import com.grepr.takehome.auction.realtime.AuctionEventMapper;
 import com.grepr.takehome.auction.realtime.AuctionEventPublisher;
-import com.grepr.takehome.auction.repo.AuctionRepository;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher.Subscription;
+import com.grepr.takehome.auction.realtime.Deflate;
+import com.grepr.takehome.auction.recording.TrafficRecorder;
 import com.grepr.takehome.auction.repo.ItemRepository;
 import com.grepr.takehome.auction.service.AuctionService;
+import com.grepr.takehome.auction.service.BidRateLimiter;
+import com.grepr.takehome.auction.service.BidReceipt;
 import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.exception.ConflictException;
 import com.grepr.takehome.auction.exception.NotFoundException;
+import com.grepr.takehome.auction.exception.ServiceUnavailableException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
 import java.math.BigDecimal;
-import java.time.Clock;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 
-import org.apache.commons.lang3.StringUtils;
 import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -28,149 +36,168 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 @Component
 public class AuctionWebSocketHandler extends TextWebSocketHandler {
   private static final String ATTR_ITEM_ID = "itemId";
+  // The session wrapped for concurrent sends; everything is sent through it.
+  private static final String ATTR_OUTBOUND = "outbound";
 
-  private final Clock clock;
   private final ObjectMapper objectMapper;
   private final ItemRepository itemRepository;
-  private final AuctionRepository auctionRepository;
   private final AuctionService auctionService;
   private final AuctionEventPublisher publisher;
-  private final AuctionEventMapper mapper;
+  private final WebSocketSessions sessions;
+  private final BidRateLimiter rateLimiter;
+  private final TrafficRecorder recorder;
+  private final boolean compressionEnabled;
 
   public AuctionWebSocketHandler(
-      Clock clock,
       ObjectMapper objectMapper,
       ItemRepository itemRepository,
-      AuctionRepository auctionRepository,
       AuctionService auctionService,
       AuctionEventPublisher publisher,
-      AuctionEventMapper mapper
+      WebSocketSessions sessions,
+      BidRateLimiter rateLimiter,
+      TrafficRecorder recorder,
+      @Value("${auction.websocket.compression.enabled:false}") boolean compressionEnabled
   ) {
-    this.clock = clock;
     this.objectMapper = objectMapper;
     this.itemRepository = itemRepository;
-    this.auctionRepository = auctionRepository;
     this.auctionService = auctionService;
     this.publisher = publisher;
-    this.mapper = mapper;
+    this.sessions = sessions;
+    this.rateLimiter = rateLimiter;
+    this.recorder = recorder;
+    this.compressionEnabled = compressionEnabled;
+  }
+
+  @Override
+  public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+    session.getAttributes().put(ATTR_OUTBOUND, sessions.register(session));
+  }
+
+  @Override
+  protected void handlePongMessage(@NonNull WebSocketSession session, @NonNull PongMessage message) {
+    sessions.touch(session);
   }
 
   @Override
   public void handleTextMessage(@NonNull WebSocketSession session, TextMessage message) throws Exception {
-    JsonNode root = objectMapper.readTree(message.getPayload());
-    String type = text(root, "type");
-    if (type == null) {
-      sendError(session, "Missing 'type'");
+    sessions.touch(session);
+    session = outbound(session);
+    InboundMessage inbound = InboundMessage.parse(objectMapper, message.getPayload());
+    if (inbound.type() == null) {
+      sendError(session, "Missing 'type'", inbound.requestId());
       return;
     }
 
-    switch (type) {
-      case "SUBSCRIBE" -> handleSubscribe(session, root);
-      case "PLACE_BID" -> handlePlaceBid(session, root);
-      default -> sendError(session, "Unknown message type: " + type);
+    switch (inbound.type()) {
+      case "SUBSCRIBE" -> handleSubscribe(session, inbound);
+      case "PLACE_BID" -> handlePlaceBid(session, inbound);
+      default -> sendError(session, "Unknown message type: " + inbound.type(), inbound.requestId());
     }
   }
 
-  private void handleSubscribe(WebSocketSession session, JsonNode root) throws Exception {
-    UUID itemId = uuid(root, "itemId");
+  private void handleSubscribe(WebSocketSession session, InboundMessage inbound) throws Exception {
+    UUID itemId = inbound.itemId();
     if (itemId == null) {
-      sendError(session, "Missing/invalid 'itemId'");
+      sendError(session, "Missing/invalid 'itemId'", inbound.requestId());
       return;
     }
+    recorder.subscribe(session.getId(), itemId);
 
     itemRepository.findById(itemId)
         .orElseThrow(() -> new NotFoundException("Item not found: " + itemId));
 
     // Single subscription per session (simple).
+    // Also replaced when it is the same item, in case 'compress' changed.
     UUID previous = (UUID) session.getAttributes().get(ATTR_ITEM_ID);
-    if (previous != null && !previous.equals(itemId)) {
+    if (previous != null) {
       publisher.removeSession(previous, session);
     }
     session.getAttributes().put(ATTR_ITEM_ID, itemId);
-    publisher.addSession(itemId, session);
-
-    // Initial snapshot (sent only to this session).
-    Instant now = Instant.now(clock);
-    Auction auction = auctionRepository.findByItem_Id(itemId).orElse(null);
-    AuctionEvent snapshot = mapper.snapshot(itemId, auction, now);
-    session.sendMessage(new TextMessage(serialize(snapshot)));
+    boolean compressed = compressionEnabled && inbound.compress();
+    Subscription subscription = publisher.addSession(itemId, session, compressed);
+
+    // Initial snapshot (sent only to this session), read from the primary like the SSE one.
+    AuctionEvent snapshot = auctionService.snapshot(itemId, inbound.includeLeaderboard())
+        .withSequence(subscription.snapshotSequence());
+    String json = serialize(snapshot);
+    byte[] deflated = compressed ? Deflate.compress(json.getBytes(StandardCharsets.UTF_8)) : null;
+    session.sendMessage(deflated != null && deflated.length < json.length()
+        ? new BinaryMessage(deflated)
+        : new TextMessage(json));
   }
 
-  private void handlePlaceBid(WebSocketSession session, JsonNode root) throws Exception {
-    UUID itemId = uuid(root, "itemId");
-    UUID bidderUserId = uuid(root, "bidderUserId");
-    BigDecimal amount = decimal(root);
+  private void handlePlaceBid(WebSocketSession session, InboundMessage inbound) throws Exception {
+    UUID itemId = inbound.itemId();
+    UUID bidderUserId = inbound.bidderUserId();
+    BigDecimal amount = inbound.amount();
 
     if (itemId == null || bidderUserId == null || amount == null) {
-      sendError(session, "Required: itemId, bidderUserId, amount");
+      sendError(session, "Required: itemId, bidderUserId, amount", inbound.requestId());
       return;
     }
 
     try {
-      auctionService.placeBid(itemId, bidderUserId, amount);
-      // Success event is broadcast by AuctionService via publisher.
-    } catch (BadRequestException | NotFoundException ex) {
-      sendError(session, ex.getMessage());
+      String sessionId = session.getId();
+      BidReceipt receipt = recorder.bid(sessionId, itemId, bidderUserId, amount, inbound.idempotencyKey(), () -> {
+        rateLimiter.checkWebSocket(sessionId, bidderUserId);
+        return auctionService.placeBid(itemId, bidderUserId, amount, inbound.idempotencyKey());
+      });
+      // Success event is broadcast by AuctionService via publisher. A replay broadcasts nothing, so
+      // only the retrying session hears back.
+      if (receipt.replayed()) {
+        session.sendMessage(new TextMessage(serialize(new BidReplayedMessage(
+            "BID_REPLAYED", itemId, receipt.bidId(), receipt.bidderUserId(), receipt.amount(), receipt.createdAt(),
+            inbound.requestId()))));
+      }
+    } catch (BadRequestException | NotFoundException | ConflictException ex) {
+      sendError(session, ex.getMessage(), inbound.requestId());
+    } catch (TooManyRequestsException ex) {
+      sendRetryLater(session, ex.getMessage(), ex.getReason(), ex.getRetryAfter(), inbound.requestId());
+    } catch (ServiceUnavailableException ex) {
+      sendRetryLater(
+          session, ex.getMessage(), ServiceUnavailableException.OUTCOME_UNKNOWN, ex.getRetryAfter(), inbound.requestId());
     } catch (Exception ex) {
-      sendError(session, "Failed to place bid");
+      sendError(session, "Failed to place bid", inbound.requestId());
     }
   }
 
   @Override
   public void afterConnectionClosed(WebSocketSession session, @NonNull CloseStatus status) {
+    sessions.unregister(session);
+    recorder.closed(session.getId());
     UUID itemId = (UUID) session.getAttributes().get(ATTR_ITEM_ID);
     if (itemId != null) {
-      publisher.removeSession(itemId, session);
+      publisher.removeSession(itemId, outbound(session));
     }
   }
 
-  private void sendError(WebSocketSession session, String message) throws Exception {
-    session.sendMessage(new TextMessage(serialize(new ErrorMessage("ERROR", message))));
+  private static WebSocketSession outbound(WebSocketSession session) {
+    WebSocketSession outbound = (WebSocketSession) session.getAttributes().get(ATTR_OUTBOUND);
+    return outbound != null ? outbound : session;
   }
 
-  private record ErrorMessage(String type, String message) {}
-  
-  private String serialize(Object value) {
-    try {
-      return objectMapper.writeValueAsString(value);
-    } catch (JsonProcessingException e) {
-      throw new IllegalStateException("Failed to serialize WebSocket message", e);
-    }
+  private void sendError(WebSocketSession session, String message, String requestId) throws Exception {
+    session.sendMessage(new TextMessage(serialize(new ErrorMessage("ERROR", message, null, null, requestId))));
   }
 
-  private static String text(JsonNode root, String field) {
-    JsonNode node = root.get(field);
-    return node == null || node.isNull() ? null : node.asText(null);
+  private void sendRetryLater(
+      WebSocketSession session, String message, String reason, Duration retryAfter, String requestId) throws Exception {
+    session.sendMessage(new TextMessage(serialize(
+        new ErrorMessage("ERROR", message, reason, retryAfter.toMillis(), requestId))));
   }
 
-  private static UUID uuid(JsonNode root, String field) {
-    String raw = text(root, field);
-    if (StringUtils.isBlank(raw)) {
-      return null;
-    }
-    try {
-      return UUID.fromString(raw);
-    } catch (IllegalArgumentException e) {
-      return null;
-    }
-  }
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private record ErrorMessage(String type, String message, String reason, Long retryAfterMs, String requestId) {}
 
-  private static BigDecimal decimal(JsonNode root) {
-    JsonNode node = root.get("amount");
-    if (node == null || node.isNull()) {
-      return null;
-    }
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private record BidReplayedMessage(
+      String type, UUID itemId, UUID bidId, UUID bidderUserId, BigDecimal amount, Instant createdAt, String requestId) {}
+  
+  private String serialize(Object value) {
     try {
-      if (node.isNumber()) {
-        return node.decimalValue();
-      }
-      if (node.isTextual()) {
-        return new BigDecimal(node.asText());
-      }
-      return null;
-    } catch (Exception e) {
-      return null;
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize WebSocket message", e);
     }
   }
 }
-
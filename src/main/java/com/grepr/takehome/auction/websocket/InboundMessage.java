@@ -0,0 +1,76 @@
+package com.grepr.takehome.auction.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A client frame received on {@code /ws}, parsed leniently: missing or malformed fields come back
+ * as {@code null} and the handler decides which ones are required for the given {@link #type()}.
+ * {@code requestId} is the client's own and is echoed on the replies to the frame.
+ */
+public record InboundMessage(
+    String type,
+    UUID itemId,
+    UUID bidderUserId,
+    BigDecimal amount,
+    boolean includeLeaderboard,
+    String idempotencyKey,
+    boolean compress,
+    String requestId
+) {
+  public static InboundMessage parse(ObjectMapper objectMapper, String payload) throws JsonProcessingException {
+    return from(objectMapper.readTree(payload));
+  }
+
+  public static InboundMessage from(JsonNode root) {
+    return new InboundMessage(
+        text(root, "type"),
+        uuid(root, "itemId"),
+        uuid(root, "bidderUserId"),
+        decimal(root, "amount"),
+        root.path("includeLeaderboard").asBoolean(false),
+        text(root, "idempotencyKey"),
+        root.path("compress").asBoolean(false),
+        text(root, "requestId")
+    );
+  }
+
+  private static String text(JsonNode root, String field) {
+    JsonNode node = root.get(field);
+    return node == null || node.isNull() ? null : node.asText(null);
+  }
+
+  private static UUID uuid(JsonNode root, String field) {
+    String raw = text(root, field);
+    if (StringUtils.isBlank(raw)) {
+      return null;
+    }
+    try {
+      return UUID.fromString(raw);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static BigDecimal decimal(JsonNode root, String field) {
+    JsonNode node = root.get(field);
+    if (node == null || node.isNull()) {
+      return null;
+    }
+    try {
+      if (node.isNumber()) {
+        return node.decimalValue();
+      }
+      if (node.isTextual()) {
+        return new BigDecimal(node.asText());
+      }
+      return null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
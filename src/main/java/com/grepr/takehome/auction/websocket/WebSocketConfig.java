@@ -1,23 +1,88 @@
 package com.grepr.takehome.auction.websocket;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
   private final AuctionWebSocketHandler handler;
+  private final boolean compressionEnabled;
 
-  public WebSocketConfig(AuctionWebSocketHandler handler) {
+  public WebSocketConfig(
+      AuctionWebSocketHandler handler,
+      @Value("${auction.websocket.compression.enabled:false}") boolean compressionEnabled
+  ) {
     this.handler = handler;
+    this.compressionEnabled = compressionEnabled;
   }
 
   @Override
   public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
     registry.addHandler(handler, "/ws")
+        .setHandshakeHandler(compressionEnabled
+            ? new DefaultHandshakeHandler(new NoExtensionsUpgradeStrategy())
+            : new DefaultHandshakeHandler())
         .setAllowedOrigins("*");
   }
-}
 
+  /**
+   * Declines every extension a client offers, permessage-deflate in particular. The container would
+   * otherwise compress each frame again per session, with a deflater per session, which is what the
+   * shared compression ({@code auction.websocket.compression.enabled}) replaces. Tomcat negotiates
+   * extensions from the request headers itself, so the offer is hidden from it.
+   */
+  private static final class NoExtensionsUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+    @Override
+    protected void upgradeHttpToWebSocket(
+        HttpServletRequest request, HttpServletResponse response, ServerEndpointConfig endpointConfig,
+        Map<String, String> pathParams) throws Exception {
+      super.upgradeHttpToWebSocket(new HttpServletRequestWrapper(request) {
+        @Override
+        public String getHeader(String name) {
+          return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+          return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name)
+              ? Collections.emptyEnumeration()
+              : super.getHeaders(name);
+        }
+      }, response, endpointConfig, pathParams);
+    }
+  }
+
+  /**
+   * The container allocates both inbound buffers up front for every session, so at 100k sessions
+   * their size is most of the per-connection memory. Client frames are small; a text message longer
+   * than the text buffer closes the session (1009), so it is also the maximum message size.
+   */
+  @Bean
+  public ServletServerContainerFactoryBean createWebSocketContainer(
+      @Value("${auction.websocket.text-buffer-size:2048}") int textBufferSize,
+      @Value("${auction.websocket.binary-buffer-size:1024}") int binaryBufferSize,
+      @Value("${auction.websocket.send-time-limit-ms:5000}") long sendTimeLimitMs
+  ) {
+    ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+    container.setMaxTextMessageBufferSize(textBufferSize);
+    container.setMaxBinaryMessageBufferSize(binaryBufferSize);
+    container.setAsyncSendTimeout(sendTimeLimitMs);
+    return container;
+  }
+}
@@ -0,0 +1,173 @@
+package com.grepr.takehome.auction.websocket;
+
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.Session;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * The open {@code /ws} sessions, for heartbeats and eviction.
+ *
+ * <p>Every session is sent to through a {@link ConcurrentWebSocketSessionDecorator}, so event
+ * delivery, replies and pings can send concurrently. Its outbound budget is
+ * {@code auction.websocket.send-buffer-bytes} queued behind a slow send; a client that goes past it,
+ * or keeps a send blocked for {@code send-time-limit-ms}, is disconnected.
+ *
+ * <p>Every {@code heartbeat-ms} each session is pinged; one that has sent nothing, not even a pong,
+ * for {@code idle-timeout-ms} is closed, which also drops its subscription. Half-dead connections
+ * are gone within a heartbeat of the timeout instead of lingering until a send fails. Pings are sent
+ * on a thread of their own: a stalled one can hold it for {@code send-time-limit-ms}, which must not
+ * hold up the scheduled tasks (opening and closing auctions among them).
+ */
+@Component
+public class WebSocketSessions {
+  private static final Logger log = LoggerFactory.getLogger(WebSocketSessions.class);
+  // Tomcat's per-session limit on a blocking send, 20s unless set.
+  private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+  private static final CloseStatus IDLE = CloseStatus.SESSION_NOT_RELIABLE.withReason("Idle timeout");
+
+  private final AuctionMetrics metrics;
+  private final int sendTimeLimitMs;
+  private final int sendBufferBytes;
+  private final long idleTimeoutNanos;
+  private final long heartbeatMs;
+  // Inbound message buffers the container allocates for every session (text ones are chars).
+  private final long bufferBytesPerSession;
+  private final ConcurrentHashMap<String, Tracked> sessions = new ConcurrentHashMap<>();
+  private ScheduledExecutorService heartbeats;
+
+  private static final class Tracked {
+    private final ConcurrentWebSocketSessionDecorator session;
+    private volatile long lastSeenNanos = System.nanoTime();
+
+    private Tracked(ConcurrentWebSocketSessionDecorator session) {
+      this.session = session;
+    }
+  }
+
+  public WebSocketSessions(
+      AuctionMetrics metrics,
+      @Value("${auction.websocket.send-time-limit-ms:5000}") int sendTimeLimitMs,
+      @Value("${auction.websocket.send-buffer-bytes:262144}") int sendBufferBytes,
+      @Value("${auction.websocket.idle-timeout-ms:60000}") long idleTimeoutMs,
+      @Value("${auction.websocket.heartbeat-ms:25000}") long heartbeatMs,
+      @Value("${auction.websocket.text-buffer-size:2048}") int textBufferSize,
+      @Value("${auction.websocket.binary-buffer-size:1024}") int binaryBufferSize
+  ) {
+    this.metrics = metrics;
+    this.sendTimeLimitMs = sendTimeLimitMs;
+    this.sendBufferBytes = sendBufferBytes;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+    this.heartbeatMs = heartbeatMs;
+    this.bufferBytesPerSession = 2L * textBufferSize + binaryBufferSize;
+  }
+
+  @PostConstruct
+  void start() {
+    metrics.registerWebSocketGauges(this, WebSocketSessions::count, WebSocketSessions::estimatedMemoryBytes);
+    heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("websocket-heartbeat").daemon().factory());
+    heartbeats.scheduleWithFixedDelay(() -> {
+      try {
+        heartbeat();
+      } catch (RuntimeException e) {
+        // An exception would cancel the task; the next heartbeat tries again.
+        log.warn("WebSocket heartbeat failed", e);
+      }
+    }, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    heartbeats.shutdownNow();
+  }
+
+  /** Starts tracking {@code session}; send to it only through the returned decorator. */
+  public WebSocketSession register(WebSocketSession session) {
+    Session nativeSession = session instanceof NativeWebSocketSession standard
+        ? standard.getNativeSession(Session.class)
+        : null;
+    if (nativeSession != null) {
+      // Also bounds the send the decorator's own time limit cannot interrupt.
+      nativeSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMs);
+    }
+    ConcurrentWebSocketSessionDecorator decorated =
+        new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferBytes, OverflowStrategy.TERMINATE);
+    sessions.put(session.getId(), new Tracked(decorated));
+    return decorated;
+  }
+
+  /** Records that the client sent something, a pong included. */
+  public void touch(WebSocketSession session) {
+    Tracked tracked = sessions.get(session.getId());
+    if (tracked != null) {
+      tracked.lastSeenNanos = System.nanoTime();
+    }
+  }
+
+  public void unregister(WebSocketSession session) {
+    sessions.remove(session.getId());
+  }
+
+  private void heartbeat() {
+    long now = System.nanoTime();
+    int evicted = 0;
+    for (Tracked tracked : sessions.values()) {
+      ConcurrentWebSocketSessionDecorator session = tracked.session;
+      if (now - tracked.lastSeenNanos > idleTimeoutNanos) {
+        evicted++;
+        close(session, IDLE);
+        continue;
+      }
+      if (session.getTimeSinceSendStarted() > 0) {
+        // A send is in progress; the next one past its time limit closes the session anyway.
+        continue;
+      }
+      try {
+        session.sendMessage(new PingMessage());
+      } catch (IOException | RuntimeException e) {
+        close(session, CloseStatus.SESSION_NOT_RELIABLE);
+      }
+    }
+    if (evicted > 0) {
+      metrics.incrementWebSocketEvicted(evicted);
+      log.info("Closed {} idle WebSocket sessions", evicted);
+    }
+  }
+
+  private int count() {
+    return sessions.size();
+  }
+
+  /** Inbound buffers plus whatever is queued behind slow sends; the container's own overhead is not counted. */
+  private double estimatedMemoryBytes() {
+    long queued = 0;
+    for (Tracked tracked : sessions.values()) {
+      queued += tracked.session.getBufferSize();
+    }
+    return (double) sessions.size() * bufferBytesPerSession + queued;
+  }
+
+  private void close(WebSocketSession session, CloseStatus status) {
+    sessions.remove(session.getId());
+    try {
+      session.close(status);
+    } catch (IOException | RuntimeException e) {
+      // Already gone.
+    }
+  }
+}
@@ -0,0 +1,64 @@
+-- Range-partition bids by created_at (one partition per UTC day) and add an archive for the bids
+-- of long-closed auctions. Inserts always land in the current day's partition, so the hot indexes
+-- stay small; older days are only read for history and emptied by the archival job.
+
+ALTER TABLE bids RENAME TO bids_legacy;
+ALTER INDEX bids_auction_created_at_idx RENAME TO bids_legacy_auction_created_at_idx;
+ALTER INDEX bids_auction_amount_idx RENAME TO bids_legacy_auction_amount_idx;
+ALTER TABLE bids_legacy RENAME CONSTRAINT bids_amount_chk TO bids_legacy_amount_chk;
+
+CREATE TABLE bids (
+  id UUID NOT NULL,
+  auction_id UUID NOT NULL REFERENCES auctions(id) ON DELETE CASCADE,
+  bidder_user_id UUID NOT NULL,
+  amount NUMERIC(19, 2) NOT NULL,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT bids_amount_chk CHECK (amount > 0),
+  -- The partition key has to be part of every unique constraint on a partitioned table.
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX bids_auction_created_at_idx ON bids(auction_id, created_at DESC);
+CREATE INDEX bids_auction_amount_idx ON bids(auction_id, amount DESC);
+
+-- Everything before today goes into one history partition; today and the next few days get their
+-- own. BidPartitionMaintainer keeps creating days ahead from here on. The default partition only
+-- catches rows if the maintainer falls behind.
+DO $$
+DECLARE
+  today DATE := (now() AT TIME ZONE 'UTC')::date;
+  day DATE;
+BEGIN
+  EXECUTE format('CREATE TABLE bids_history PARTITION OF bids FOR VALUES FROM (MINVALUE) TO (%L)',
+                 today::timestamp AT TIME ZONE 'UTC');
+  FOR i IN 0..3 LOOP
+    day := today + i;
+    EXECUTE format('CREATE TABLE %I PARTITION OF bids FOR VALUES FROM (%L) TO (%L)',
+                   'bids_p' || to_char(day, 'YYYYMMDD'),
+                   day::timestamp AT TIME ZONE 'UTC',
+                   (day + 1)::timestamp AT TIME ZONE 'UTC');
+  END LOOP;
+END $$;
+
+CREATE TABLE bids_default PARTITION OF bids DEFAULT;
+
+INSERT INTO bids (id, auction_id, bidder_user_id, amount, created_at)
+SELECT id, auction_id, bidder_user_id, amount, created_at FROM bids_legacy;
+
+DROP TABLE bids_legacy;
+
+-- Bids of auctions closed long enough ago. Written once and only read for history, so it carries
+-- just the index that history reads use.
+CREATE TABLE bids_archive (
+  id UUID PRIMARY KEY,
+  auction_id UUID NOT NULL REFERENCES auctions(id) ON DELETE CASCADE,
+  bidder_user_id UUID NOT NULL,
+  amount NUMERIC(19, 2) NOT NULL,
+  created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX bids_archive_auction_created_at_idx ON bids_archive(auction_id, created_at DESC);
+
+ALTER TABLE auctions ADD COLUMN bids_archived_at TIMESTAMPTZ NULL;
+
+CREATE INDEX auctions_closed_unarchived_idx ON auctions(closed_at) WHERE status = 'CLOSED' AND bids_archived_at IS NULL;
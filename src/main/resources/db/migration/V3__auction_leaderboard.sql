@@ -0,0 +1,38 @@
+-- Per-auction leaderboard maintained by placeBid: the top bids by amount (bounded, highest first)
+-- and the number of distinct bidders, so neither has to be computed from the bid history.
+
+ALTER TABLE auctions
+  ADD COLUMN top_bids JSONB NOT NULL DEFAULT '[]',
+  ADD COLUMN bidder_count INTEGER NOT NULL DEFAULT 0;
+
+-- One row per (auction, bidder); bidder_count is only incremented when the insert is not a no-op.
+CREATE TABLE auction_bidders (
+  auction_id UUID NOT NULL REFERENCES auctions(id) ON DELETE CASCADE,
+  bidder_user_id UUID NOT NULL,
+  PRIMARY KEY (auction_id, bidder_user_id)
+);
+
+INSERT INTO auction_bidders (auction_id, bidder_user_id)
+SELECT auction_id, bidder_user_id FROM bids
+UNION
+SELECT auction_id, bidder_user_id FROM bids_archive;
+
+UPDATE auctions a
+SET bidder_count = (SELECT count(*) FROM auction_bidders ab WHERE ab.auction_id = a.id);
+
+UPDATE auctions a
+SET top_bids = coalesce((
+  SELECT jsonb_agg(jsonb_build_object(
+           'bidId', t.id,
+           'bidderUserId', t.bidder_user_id,
+           'amount', t.amount,
+           'createdAt', to_char(t.created_at AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'))
+         ORDER BY t.amount DESC, t.created_at)
+  FROM (
+    SELECT id, bidder_user_id, amount, created_at FROM bids WHERE auction_id = a.id
+    UNION ALL
+    SELECT id, bidder_user_id, amount, created_at FROM bids_archive WHERE auction_id = a.id
+    ORDER BY amount DESC, created_at
+    LIMIT 10
+  ) t
+), '[]');
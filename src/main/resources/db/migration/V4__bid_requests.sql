@@ -0,0 +1,16 @@
+-- Client-supplied idempotency keys for bid submissions. A retried request with the same key finds
+-- its row here and gets the original bid back instead of placing a second one. Rows only need to
+-- outlive client retries, so BidRequestPurger deletes them after auction.bids.idempotency.retention-hours.
+
+CREATE TABLE bid_requests (
+  bidder_user_id UUID NOT NULL,
+  idempotency_key TEXT NOT NULL,
+  item_id UUID NOT NULL,
+  amount NUMERIC(19, 2) NOT NULL,
+  bid_id UUID NOT NULL,
+  bid_created_at TIMESTAMPTZ NOT NULL,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (bidder_user_id, idempotency_key)
+);
+
+CREATE INDEX bid_requests_created_at_idx ON bid_requests(created_at);
@@ -0,0 +1,28 @@
+-- Final results of closed auctions, written in the same transaction as the close (see
+-- SettlementRepository.settle). sequence orders settlements by commit, so downstream consumers can
+-- page through them with a cursor instead of polling auctions and scanning bids.
+
+ALTER TABLE auctions ADD COLUMN bid_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE auctions a
+SET bid_count = (SELECT count(*) FROM bids b WHERE b.auction_id = a.id)
+              + (SELECT count(*) FROM bids_archive ba WHERE ba.auction_id = a.id);
+
+CREATE TABLE auction_settlements (
+  sequence BIGSERIAL PRIMARY KEY,
+  auction_id UUID NOT NULL UNIQUE REFERENCES auctions(id) ON DELETE CASCADE,
+  item_id UUID NOT NULL,
+  winner_user_id UUID NULL,
+  final_price NUMERIC(19, 2) NOT NULL,
+  bid_count INTEGER NOT NULL,
+  bidder_count INTEGER NOT NULL,
+  closed_at TIMESTAMPTZ NOT NULL,
+  settled_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO auction_settlements (auction_id, item_id, winner_user_id, final_price, bid_count, bidder_count, closed_at, settled_at)
+SELECT id, item_id, current_winner_user_id, current_price, bid_count, bidder_count,
+       coalesce(closed_at, end_time), coalesce(closed_at, end_time)
+FROM auctions
+WHERE status = 'CLOSED'
+ORDER BY coalesce(closed_at, end_time), id;
@@ -0,0 +1,66 @@
+package com.grepr.takehome.auction.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.grepr.takehome.auction.domain.AuctionStatus;
+import com.grepr.takehome.auction.domain.TopBid;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class JournalCodecTest {
+  private static AuctionWrite roundTrip(AuctionWrite write) {
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    JournalCodec.encode(write, buffer);
+    buffer.flip();
+    AuctionWrite decoded = JournalCodec.decode(buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    return decoded;
+  }
+
+  @Test
+  void roundTripsABid() {
+    Instant now = Instant.parse("2026-10-19T10:15:30.123456789Z");
+    UUID bidder = UUID.randomUUID();
+    List<TopBid> topBids = List.of(
+        new TopBid(UUID.randomUUID(), bidder, new BigDecimal("1234567890123456.99"), now),
+        new TopBid(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("0.01"), now.minusSeconds(5)));
+    AuctionWrite write = new AuctionWrite(
+        UUID.randomUUID(), UUID.randomUUID(), AuctionStatus.OPEN, now.plusSeconds(60),
+        new BigDecimal("1234567890123456.99"), bidder, null, topBids, 42, 7,
+        new AuctionWrite.NewBid(UUID.randomUUID(), bidder, new BigDecimal("1234567890123456.99"), now, true), 12, 3);
+
+    // The generation is not journaled.
+    assertThat(roundTrip(write)).isEqualTo(withGeneration(write, 0));
+  }
+
+  @Test
+  void roundTripsAStatusChangeWithoutABid() {
+    Instant now = Instant.parse("2026-10-19T10:15:30Z");
+    AuctionWrite write = new AuctionWrite(
+        UUID.randomUUID(), UUID.randomUUID(), AuctionStatus.CLOSED, now, new BigDecimal("10.00"),
+        null, now, List.of(), 0, 0, null, 5, 0);
+
+    assertThat(roundTrip(write)).isEqualTo(write);
+  }
+
+  @Test
+  void keepsTheScaleOfAmounts() {
+    Instant now = Instant.EPOCH;
+    AuctionWrite write = new AuctionWrite(
+        UUID.randomUUID(), UUID.randomUUID(), AuctionStatus.SCHEDULED, now, new BigDecimal("5.10"),
+        null, null, List.of(), 0, 0, null, 1, 0);
+
+    assertThat(roundTrip(write).currentPrice()).hasToString("5.10");
+  }
+
+  private static AuctionWrite withGeneration(AuctionWrite write, long generation) {
+    return new AuctionWrite(
+        write.itemId(), write.auctionId(), write.status(), write.endTime(), write.currentPrice(),
+        write.currentWinnerUserId(), write.closedAt(), write.topBids(), write.bidCount(), write.bidderCount(),
+        write.bid(), write.version(), generation);
+  }
+}
@@ -0,0 +1,118 @@
+package com.grepr.takehome.auction.realtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import com.grepr.takehome.auction.realtime.AuctionEventPublisher.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class AuctionEventPublisherTest {
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+  // No delivery threads: a lane is drained by whoever completes the ticket at its head.
+  private final AuctionEventPublisher publisher =
+      new AuctionEventPublisher(objectMapper, new AuctionMetrics(new SimpleMeterRegistry()), 16, 0);
+  private final List<AuctionEvent> observed = new ArrayList<>();
+
+  AuctionEventPublisherTest() {
+    publisher.observe(observed::add);
+  }
+
+  private static AuctionEvent event(UUID itemId, AuctionEventType type) {
+    return new AuctionEvent(type, Instant.now(), itemId, null, null, null, null);
+  }
+
+  @Test
+  void deliversTicketsInTheOrderTheyWereReserved() {
+    UUID itemId = UUID.randomUUID();
+    Ticket first = publisher.reserve(itemId);
+    Ticket second = publisher.reserve(itemId);
+    AuctionEvent bid = event(itemId, AuctionEventType.BID_PLACED);
+    AuctionEvent closed = event(itemId, AuctionEventType.AUCTION_CLOSED);
+
+    second.publish(closed);
+    assertThat(observed).isEmpty();
+
+    first.publish(bid);
+    assertThat(observed).containsExactly(bid, closed);
+  }
+
+  @Test
+  void cancelledTicketReleasesTheOnesBehindIt() {
+    UUID itemId = UUID.randomUUID();
+    Ticket cancelled = publisher.reserve(itemId);
+    Ticket next = publisher.reserve(itemId);
+    AuctionEvent bid = event(itemId, AuctionEventType.BID_PLACED);
+
+    next.publish(bid);
+    cancelled.cancel();
+
+    assertThat(observed).containsExactly(bid);
+  }
+
+  @Test
+  void ticketIsCompletedOnlyOnce() {
+    UUID itemId = UUID.randomUUID();
+    Ticket ticket = publisher.reserve(itemId);
+
+    ticket.cancel();
+    ticket.publish(event(itemId, AuctionEventType.BID_PLACED));
+    AuctionEvent later = event(itemId, AuctionEventType.AUCTION_CLOSED);
+    publisher.reserve(itemId).publish(later);
+
+    assertThat(observed).containsExactly(later);
+  }
+
+  @Test
+  void openTicketHoldsBackOnlyItsOwnItem() {
+    UUID busy = UUID.randomUUID();
+    UUID other = UUID.randomUUID();
+    Ticket open = publisher.reserve(busy);
+    publisher.reserve(busy).publish(event(busy, AuctionEventType.BID_PLACED));
+    AuctionEvent otherBid = event(other, AuctionEventType.BID_PLACED);
+
+    publisher.reserve(other).publish(otherBid);
+
+    assertThat(observed).containsExactly(otherBid);
+    open.cancel();
+    assertThat(observed).hasSize(2);
+  }
+
+  @Test
+  void subscribersGetIncreasingSequences() throws Exception {
+    UUID itemId = UUID.randomUUID();
+    List<OutboundEvent> received = new ArrayList<>();
+    publisher.subscribe(itemId, event -> received.add(event), null);
+    Ticket first = publisher.reserve(itemId);
+    Ticket second = publisher.reserve(itemId);
+
+    second.publish(event(itemId, AuctionEventType.AUCTION_CLOSED));
+    first.publish(event(itemId, AuctionEventType.BID_PLACED));
+
+    assertThat(received).extracting(OutboundEvent::type)
+        .containsExactly(AuctionEventType.BID_PLACED, AuctionEventType.AUCTION_CLOSED);
+    assertThat(received.get(0).id()).isLessThan(received.get(1).id());
+    assertThat(objectMapper.readTree(received.get(1).json()).path("sequence").asLong()).isEqualTo(received.get(1).id());
+  }
+
+  @Test
+  void resumeReplaysWhatTheSubscriberMissed() {
+    UUID itemId = UUID.randomUUID();
+    List<OutboundEvent> received = new ArrayList<>();
+    publisher.subscribe(itemId, event -> received.add(event), null);
+    publisher.reserve(itemId).publish(event(itemId, AuctionEventType.BID_PLACED));
+    publisher.reserve(itemId).publish(event(itemId, AuctionEventType.AUCTION_CLOSED));
+
+    AuctionEventPublisher.Subscription resumed =
+        publisher.subscribe(itemId, event -> true, received.get(0).eventId());
+
+    assertThat(resumed.replay()).extracting(OutboundEvent::id).containsExactly(received.get(1).id());
+    assertThat(publisher.subscribe(itemId, event -> true, "elsewhere-1").replay()).isNull();
+  }
+}
@@ -0,0 +1,164 @@
+package com.grepr.takehome.auction.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import com.grepr.takehome.auction.exception.BadRequestException;
+import com.grepr.takehome.auction.exception.ConflictException;
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class BidDeduplicatorTest {
+  private static final UUID ITEM = UUID.randomUUID();
+  private static final UUID BIDDER = UUID.randomUUID();
+  private static final BigDecimal AMOUNT = new BigDecimal("12.50");
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicInteger runs = new AtomicInteger();
+
+  private BidDeduplicator deduplicator(int maxEntries, long maxWaitMs) {
+    return new BidDeduplicator(true, 300, maxEntries, maxWaitMs, 200, new AuctionMetrics(registry));
+  }
+
+  private static BidReceipt receipt() {
+    return new BidReceipt(UUID.randomUUID(), UUID.randomUUID(), BIDDER, AMOUNT, Instant.now(), false);
+  }
+
+  private Supplier<BidReceipt> counted(Supplier<BidReceipt> action) {
+    return () -> {
+      runs.incrementAndGet();
+      return action.get();
+    };
+  }
+
+  @Test
+  void retryGetsTheFirstReceiptAsAReplay() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    BidReceipt first = deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt));
+
+    BidReceipt retry = deduplicator.execute(ITEM, BIDDER, new BigDecimal("12.5"), "key", counted(BidDeduplicatorTest::receipt));
+
+    assertThat(runs).hasValue(1);
+    assertThat(first.replayed()).isFalse();
+    assertThat(retry).isEqualTo(first.asReplay());
+    assertThat(registry.get(AuctionMetrics.BID_DEDUPLICATED_COUNTER).tag(AuctionMetrics.SOURCE_TAG, "memory").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void keyReusedForADifferentBidIsAConflict() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt));
+
+    assertThatThrownBy(() -> deduplicator.execute(ITEM, BIDDER, new BigDecimal("13"), "key", counted(BidDeduplicatorTest::receipt)))
+        .isInstanceOf(ConflictException.class);
+    assertThatThrownBy(() -> deduplicator.execute(UUID.randomUUID(), BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt)))
+        .isInstanceOf(ConflictException.class);
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  void sameKeyFromAnotherBidderIsADifferentRequest() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt));
+
+    deduplicator.execute(ITEM, UUID.randomUUID(), AMOUNT, "key", counted(BidDeduplicatorTest::receipt));
+
+    assertThat(runs).hasValue(2);
+  }
+
+  @Test
+  void remembersDeterministicRejections() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    BadRequestException tooLow = new BadRequestException("Bid too low");
+    Supplier<BidReceipt> rejected = counted(() -> {
+      throw tooLow;
+    });
+
+    assertThatThrownBy(() -> deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", rejected)).isSameAs(tooLow);
+    assertThatThrownBy(() -> deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", rejected)).isSameAs(tooLow);
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  void forgetsSheddingSoTheRetryRunsAgain() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    Supplier<BidReceipt> shed = counted(() -> {
+      throw new TooManyRequestsException("Overloaded", Duration.ofMillis(100));
+    });
+    assertThatThrownBy(() -> deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", shed))
+        .isInstanceOf(TooManyRequestsException.class);
+
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt));
+
+    assertThat(runs).hasValue(2);
+  }
+
+  @Test
+  void retryOfARequestStillRunningIsToldToComeBack() throws Exception {
+    BidDeduplicator deduplicator = deduplicator(100, 50);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<BidReceipt> first = CompletableFuture.supplyAsync(() -> deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return receipt();
+    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    TooManyRequestsException inProgress = catchThrowableOfType(TooManyRequestsException.class,
+        () -> deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt)));
+    release.countDown();
+
+    assertThat(inProgress).isNotNull();
+    assertThat(inProgress.getReason()).isEqualTo(TooManyRequestsException.IN_PROGRESS);
+    assertThat(runs).hasValue(0);
+    assertThat(deduplicator.execute(ITEM, BIDDER, AMOUNT, "key", counted(BidDeduplicatorTest::receipt)))
+        .isEqualTo(first.get(5, TimeUnit.SECONDS).asReplay());
+  }
+
+  @Test
+  void evictsTheOldestKeysPastMaxEntries() {
+    BidDeduplicator deduplicator = deduplicator(1, 1000);
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "first", counted(BidDeduplicatorTest::receipt));
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "second", counted(BidDeduplicatorTest::receipt));
+
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, "first", counted(BidDeduplicatorTest::receipt));
+
+    assertThat(runs).hasValue(3);
+  }
+
+  @Test
+  void runsEveryRequestWithoutAKey() {
+    BidDeduplicator deduplicator = deduplicator(100, 1000);
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, null, counted(BidDeduplicatorTest::receipt));
+    deduplicator.execute(ITEM, BIDDER, AMOUNT, null, counted(BidDeduplicatorTest::receipt));
+
+    assertThat(runs).hasValue(2);
+  }
+
+  @Test
+  void checksKeyLength() {
+    assertThatThrownBy(() -> BidDeduplicator.checkKey(" ")).isInstanceOf(BadRequestException.class);
+    assertThatThrownBy(() -> BidDeduplicator.checkKey("k".repeat(BidDeduplicator.MAX_KEY_LENGTH + 1)))
+        .isInstanceOf(BadRequestException.class);
+    BidDeduplicator.checkKey("k".repeat(BidDeduplicator.MAX_KEY_LENGTH));
+    BidDeduplicator.checkKey(null);
+  }
+}
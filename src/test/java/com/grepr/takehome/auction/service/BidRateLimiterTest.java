@@ -0,0 +1,113 @@
+package com.grepr.takehome.auction.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import com.grepr.takehome.auction.exception.TooManyRequestsException;
+import com.grepr.takehome.auction.observability.AuctionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BidRateLimiterTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  // One bid a second keeps every bucket from refilling while a test runs.
+  private BidRateLimiter limiter(boolean enabled, int maxEntries, int httpUserBurst, int webSocketUserBurst, double sessionPerSecond, int sessionBurst) {
+    return new BidRateLimiter(
+        enabled, maxEntries, 1, httpUserBurst, 1, webSocketUserBurst, sessionPerSecond, sessionBurst, new AuctionMetrics(registry));
+  }
+
+  private double rateLimited() {
+    return registry.get(AuctionMetrics.BID_REJECTED_COUNTER).tag(AuctionMetrics.REASON_TAG, "rate_limited").counter().count();
+  }
+
+  @Test
+  void allowsTheBurstThenRejectsWithARetryTime() {
+    BidRateLimiter limiter = limiter(true, 100, 3, 3, 1, 3);
+    UUID user = UUID.randomUUID();
+
+    for (int i = 0; i < 3; i++) {
+      limiter.checkHttp(user);
+    }
+    TooManyRequestsException rejected =
+        catchThrowableOfType(TooManyRequestsException.class, () -> limiter.checkHttp(user));
+
+    assertThat(rejected).isNotNull();
+    assertThat(rejected.getReason()).isEqualTo(TooManyRequestsException.RATE_LIMITED);
+    assertThat(rejected.getRetryAfter()).isPositive();
+    assertThat(rateLimited()).isEqualTo(1);
+  }
+
+  @Test
+  void limitsEachBidderSeparately() {
+    BidRateLimiter limiter = limiter(true, 100, 1, 1, 1, 1);
+    UUID first = UUID.randomUUID();
+
+    limiter.checkHttp(first);
+
+    assertThatNoException().isThrownBy(() -> limiter.checkHttp(UUID.randomUUID()));
+    assertThatThrownBy(() -> limiter.checkHttp(first)).isInstanceOf(TooManyRequestsException.class);
+  }
+
+  @Test
+  void doesNothingWhenDisabled() {
+    BidRateLimiter limiter = limiter(false, 100, 1, 1, 1, 1);
+    UUID user = UUID.randomUUID();
+
+    for (int i = 0; i < 10; i++) {
+      limiter.checkHttp(user);
+      limiter.checkWebSocket("session", user);
+    }
+    assertThat(rateLimited()).isZero();
+  }
+
+  @Test
+  void webSocketBidTurnedAwayByTheBidderTakesNothingFromTheSession() {
+    BidRateLimiter limiter = limiter(true, 100, 1, 1, 1, 2);
+    UUID user = UUID.randomUUID();
+
+    limiter.checkWebSocket("session", user);
+    assertThatThrownBy(() -> limiter.checkWebSocket("session", user)).isInstanceOf(TooManyRequestsException.class);
+
+    // The session still has room for exactly one more bid.
+    limiter.checkWebSocket("session", UUID.randomUUID());
+    assertThatThrownBy(() -> limiter.checkWebSocket("session", UUID.randomUUID())).isInstanceOf(TooManyRequestsException.class);
+  }
+
+  @Test
+  void webSocketBidTurnedAwayByTheSessionTakesNothingFromTheBidder() {
+    BidRateLimiter limiter = limiter(true, 100, 1, 2, 1, 1);
+    UUID user = UUID.randomUUID();
+
+    limiter.checkWebSocket("first", user);
+    assertThatThrownBy(() -> limiter.checkWebSocket("first", user)).isInstanceOf(TooManyRequestsException.class);
+
+    limiter.checkWebSocket("second", user);
+    assertThatThrownBy(() -> limiter.checkWebSocket("third", user)).isInstanceOf(TooManyRequestsException.class);
+  }
+
+  @Test
+  void zeroRateTurnsTheSessionLimitOff() {
+    BidRateLimiter limiter = limiter(true, 100, 1, 1, 0, 0);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.checkWebSocket("session", UUID.randomUUID());
+    }
+    assertThat(rateLimited()).isZero();
+  }
+
+  @Test
+  void newKeysAreNotLimitedOnceTheMapIsFull() {
+    BidRateLimiter limiter = limiter(true, 1, 1, 1, 1, 1);
+    limiter.checkHttp(UUID.randomUUID());
+    UUID unlimited = UUID.randomUUID();
+
+    for (int i = 0; i < 10; i++) {
+      limiter.checkHttp(unlimited);
+    }
+    assertThat(rateLimited()).isZero();
+  }
+}